@@ -0,0 +1,26 @@
+package com.learning.messaging.config;
+
+import com.learning.messaging.producer.SendLanes;
+import com.learning.messaging.producer.TopicProducers;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for producer backpressure (in-flight limits, priority lanes and rate limits).
+ */
+@Configuration
+@EnableConfigurationProperties(BackpressureProperties.class)
+public class BackpressureConfig {
+
+    /**
+     * Lanes in front of the per-class producers; waiting sends are sent directly on context close.
+     */
+    @Bean(destroyMethod = "close")
+    public SendLanes messagingSendLanes(BackpressureProperties props,
+                                        TopicProducers producers,
+                                        MeterRegistry meterRegistry) {
+        return new SendLanes(props, producers, meterRegistry);
+    }
+}
@@ -0,0 +1,144 @@
+package com.learning.messaging.config;
+
+import com.learning.messaging.producer.Priority;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for the producer in-flight limits.
+ *
+ * Bound using the prefix "messaging.producer.backpressure".
+ *
+ * Example:
+ *   messaging.producer.backpressure.max-in-flight-records=10000
+ *   messaging.producer.backpressure.max-in-flight-bytes=67108864
+ *   messaging.producer.backpressure.overflow-policy=SHED
+ *   messaging.producer.backpressure.topics.audit.max-in-flight-records=500
+ *   messaging.producer.backpressure.topics.audit.priority=LOW
+ *   messaging.producer.backpressure.topics.audit.max-records-per-second=200
+ *   messaging.producer.backpressure.lanes.enabled=true
+ *   messaging.producer.backpressure.lanes.weights.HIGH=8
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.producer.backpressure")
+public class BackpressureProperties {
+
+    /**
+     * Whether in-flight limits are enforced at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of records in flight across all topics (including pending retries).
+     */
+    private int maxInFlightRecords = 10_000;
+
+    /**
+     * Maximum number of estimated payload bytes in flight across all topics.
+     */
+    private long maxInFlightBytes = 64L * 1024 * 1024;
+
+    /**
+     * What to do when a limit is reached.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    /**
+     * How long a send may block waiting for capacity (BLOCK and SHED policies).
+     */
+    private long blockTimeoutMs = 1000;
+
+    /**
+     * Usage ratio (0..1] above which LOW priority traffic is shed (SHED policy only).
+     */
+    private double shedWatermark = 0.8;
+
+    /**
+     * Size assumed for payloads whose size cannot be estimated cheaply.
+     */
+    private int defaultRecordBytes = 1024;
+
+    /**
+     * Per-topic limits and priorities, keyed by topic name.
+     */
+    private Map<String, TopicLimit> topics = new HashMap<>();
+
+    /**
+     * Priority lanes in front of the Kafka producer.
+     */
+    private Lanes lanes = new Lanes();
+
+    /**
+     * Limits for a single topic. Unset limits mean "only the global limit applies".
+     */
+    @Data
+    public static class TopicLimit {
+        private Integer maxInFlightRecords;
+        private Long maxInFlightBytes;
+        private Priority priority = Priority.NORMAL;
+        /**
+         * Sustained send rate (attempts, retries included); enforced only when lanes are enabled.
+         */
+        private Double maxRecordsPerSecond;
+    }
+
+    /**
+     * Sends wait in one lane per {@link Priority} and are handed to the Kafka producer by weight,
+     * at most {@code maxInFlight} unacknowledged at a time.
+     */
+    @Data
+    public static class Lanes {
+        private boolean enabled = false;
+
+        /**
+         * Records handed to the Kafka producer and not yet acknowledged; further sends wait in their lane.
+         */
+        private int maxInFlight = 1000;
+
+        /**
+         * Relative share of the producer each lane gets while several have sends waiting.
+         */
+        private Map<Priority, Integer> weights = new HashMap<>(Map.of(
+                Priority.HIGH, 8,
+                Priority.NORMAL, 4,
+                Priority.LOW, 1));
+
+        /**
+         * Lane for retry attempts; a topic's retries never go above its own lane.
+         */
+        private Priority retryPriority = Priority.LOW;
+    }
+
+    /**
+     * Behavior when the in-flight limit is reached.
+     */
+    public enum OverflowPolicy {
+        /** Block the caller up to blockTimeoutMs, then fail. */
+        BLOCK,
+        /** Fail immediately with a FAILED PublishResult. */
+        FAIL_FAST,
+        /** Fail LOW priority traffic above the shed watermark, block everything else. */
+        SHED
+    }
+
+    // ---- Helper methods ----
+
+    /**
+     * Resolve the priority configured for a topic (NORMAL when not configured).
+     */
+    public Priority priorityFor(String topic) {
+        TopicLimit limit = topics.get(topic);
+        return limit != null && limit.getPriority() != null ? limit.getPriority() : Priority.NORMAL;
+    }
+
+    /**
+     * Resolve the rate limit configured for a topic (0 when unlimited).
+     */
+    public double maxRecordsPerSecondFor(String topic) {
+        TopicLimit limit = topics.get(topic);
+        return limit != null && limit.getMaxRecordsPerSecond() != null ? limit.getMaxRecordsPerSecond() : 0;
+    }
+}
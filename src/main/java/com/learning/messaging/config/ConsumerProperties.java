@@ -0,0 +1,142 @@
+package com.learning.messaging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration properties for the messaging-core consumer engine.
+ *
+ * Bound using the prefix "messaging.consumer".
+ *
+ * Example:
+ *   messaging.consumer.concurrency=3
+ *   messaging.consumer.max-poll-records=1000
+ *   messaging.consumer.fetch-min-bytes=65536
+ *   messaging.consumer.sync-commit-interval=5s
+ *   messaging.consumer.deduplication.enabled=true
+ *   messaging.consumer.retry-topics.enabled=true
+ *   messaging.consumer.retry-topics.delays=1s,30s
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.consumer")
+public class ConsumerProperties {
+
+    /**
+     * Whether the engine starts {@code EventConsumer} beans at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Default number of Kafka consumers (poll threads) per subscription.
+     */
+    private int concurrency = 1;
+
+    /**
+     * Maximum time a poll blocks waiting for records.
+     */
+    private Duration pollTimeout = Duration.ofMillis(500);
+
+    /**
+     * Maximum records returned by a single poll (max.poll.records).
+     */
+    private int maxPollRecords = 500;
+
+    /**
+     * Minimum bytes the broker accumulates before answering a fetch (fetch.min.bytes).
+     */
+    private int fetchMinBytes = 1;
+
+    /**
+     * Maximum time the broker waits for fetch.min.bytes (fetch.max.wait.ms).
+     */
+    private Duration fetchMaxWait = Duration.ofMillis(500);
+
+    /**
+     * Maximum bytes per partition per fetch (max.partition.fetch.bytes).
+     */
+    private int maxPartitionFetchBytes = 1024 * 1024;
+
+    /**
+     * Offsets are committed asynchronously after every poll, and synchronously at this interval.
+     */
+    private Duration syncCommitInterval = Duration.ofSeconds(5);
+
+    /**
+     * Attempts per record (or per batch) before the failure is logged and skipped
+     * (or, with retry topics, forwarded to the next tier).
+     */
+    private int handlerAttempts = 3;
+
+    /**
+     * Pause between in-place handler attempts.
+     */
+    private Duration handlerBackoff = Duration.ofMillis(100);
+
+    /**
+     * KEY_ORDERED dispatch: records in flight per poll thread before its partitions are paused.
+     */
+    private int maxInFlight = 1000;
+
+    /**
+     * KEY_ORDERED dispatch: handler threads when virtual threads are not available (Java &lt; 21).
+     */
+    private int dispatchThreads = 64;
+
+    /**
+     * How long to wait for poll threads to finish on shutdown.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Dropping of duplicate deliveries by message id, before deserialization.
+     */
+    private Deduplication deduplication = new Deduplication();
+
+    /**
+     * Non-blocking retries: failed records move through delay topics instead of blocking their partition.
+     */
+    private RetryTopics retryTopics = new RetryTopics();
+
+    @Data
+    public static class Deduplication {
+
+        /** Whether records whose message id was already seen are dropped. Default = false. */
+        private boolean enabled = false;
+
+        /** How long a message id counts as seen. Default = 10m. */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * Message ids kept per subscription; beyond this the oldest are forgotten early.
+         * Each takes 48 bytes off-heap. Default = 100000.
+         */
+        private int maxEntries = 100_000;
+
+        /**
+         * Directory for memory-mapped id tables that survive (clean) restarts;
+         * unset keeps them off-heap in memory only.
+         */
+        @Nullable
+        private String directory;
+    }
+
+    @Data
+    public static class RetryTopics {
+
+        /**
+         * Whether records whose handler failed are forwarded to {@code <topic>.retry.<delay>} tiers and then
+         * to the DLQ, instead of being skipped. Not applied to batch subscriptions. Default = false.
+         */
+        private boolean enabled = false;
+
+        /** Delay of each tier, in order; one tier consumer per subscription and delay. Default = 1s,30s. */
+        private List<Duration> delays = List.of(Duration.ofSeconds(1), Duration.ofSeconds(30));
+
+        /** Maximum time to wait for the broker to acknowledge a forwarded record. Default = 30s. */
+        private Duration sendTimeout = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,12 @@
+package com.learning.messaging.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the consumer engine.
+ */
+@Configuration
+@EnableConfigurationProperties(ConsumerProperties.class)
+public class EventConsumerConfig {
+}
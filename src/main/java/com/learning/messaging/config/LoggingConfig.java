@@ -0,0 +1,12 @@
+package com.learning.messaging.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for publish-path logging (sampling, rate limits, periodic summaries).
+ */
+@Configuration
+@EnableConfigurationProperties(LoggingProperties.class)
+public class LoggingConfig {
+}
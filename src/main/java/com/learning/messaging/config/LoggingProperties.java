@@ -0,0 +1,63 @@
+package com.learning.messaging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for publish-path logging ({@link com.learning.messaging.logging.MessagingLog}).
+ *
+ * Bound using the prefix "messaging.logging".
+ *
+ * Example:
+ *   messaging.logging.sample-rate=0.001
+ *   messaging.logging.topic-sample-rates.payments=1.0
+ *   messaging.logging.failure-logs-per-second=10
+ *   messaging.logging.summary-interval=10s
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.logging")
+public class LoggingProperties {
+
+    /**
+     * Fraction (0..1) of successful publishes logged individually at INFO.
+     * 0 logs none (they are still counted in the summary), 1 logs every record.
+     */
+    private double sampleRate = 0.0;
+
+    /**
+     * Per-topic sample rate, overriding {@link #sampleRate}.
+     */
+    private Map<String, Double> topicSampleRates = new HashMap<>();
+
+    /**
+     * Failed-attempt WARN lines per topic and second; the rest are counted and reported as suppressed.
+     */
+    private int failureLogsPerSecond = 10;
+
+    /**
+     * Full-detail lines for exhausted records (stack trace and payload) per topic and second.
+     */
+    private int exhaustedLogsPerSecond = 100;
+
+    /**
+     * Characters of the event payload included in exhausted-record lines.
+     */
+    private int maxPayloadChars = 2048;
+
+    /**
+     * Interval of the per-topic summary lines (produced, failed, exhausted, suppressed).
+     * Zero or negative disables the summary.
+     */
+    private Duration summaryInterval = Duration.ofSeconds(10);
+
+    /**
+     * Sample rate for the given topic.
+     */
+    public double sampleRateFor(String topic) {
+        return topicSampleRates.getOrDefault(topic, sampleRate);
+    }
+}
@@ -0,0 +1,85 @@
+package com.learning.messaging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for messaging-core metrics.
+ *
+ * Bound using the prefix "messaging.metrics".
+ *
+ * Example:
+ *   messaging.metrics.max-topics=1000
+ *   messaging.metrics.topic-idle-timeout=30m
+ *   messaging.metrics.latency.percentiles=0.5,0.95,0.99
+ *   messaging.metrics.latency.slo=50ms,200ms
+ *   messaging.metrics.latency.topics.telemetry=false
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.metrics")
+public class MetricsProperties {
+
+    /**
+     * Maximum number of topics with their own cached meters.
+     * Topics beyond this limit are recorded under the "_overflow" topic tag.
+     */
+    private int maxTopics = 1000;
+
+    /**
+     * Cached topic meters idle for longer than this can be evicted
+     * (and removed from the registry) to make room for new topics.
+     */
+    private Duration topicIdleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * Latency timers and attempt histograms on the publish path.
+     */
+    private Latency latency = new Latency();
+
+    @Data
+    public static class Latency {
+
+        /**
+         * Whether latency is recorded for topics not listed in {@link #topics}.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Per-topic switch, overriding {@link #enabled}.
+         */
+        private Map<String, Boolean> topics = new HashMap<>();
+
+        /**
+         * Client-side percentiles published for every latency timer.
+         */
+        private List<Double> percentiles = new ArrayList<>(List.of(0.5, 0.95, 0.99));
+
+        /**
+         * Whether to publish histogram buckets for server-side percentile aggregation.
+         */
+        private boolean histogram = false;
+
+        /**
+         * SLO boundaries published as histogram buckets (e.g. 50ms,200ms).
+         */
+        private List<Duration> slo = new ArrayList<>();
+
+        /**
+         * Largest latency the histograms are sized for.
+         */
+        private Duration maxExpected = Duration.ofSeconds(30);
+
+        /**
+         * Whether latency is recorded for the given topic.
+         */
+        public boolean isEnabledFor(String topic) {
+            return topics.getOrDefault(topic, enabled);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.learning.messaging.config;
+
+import com.learning.messaging.producer.TopicProducers;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for the per-topic-class producers (messaging.producer.tuning.*).
+ */
+@Configuration
+@EnableConfigurationProperties(ProducerTuningProperties.class)
+public class ProducerTuningConfig {
+
+    /**
+     * Byte[] templates derived from the Boot producer factory, one producer per class in use;
+     * closed on context close.
+     */
+    @Bean(destroyMethod = "close")
+    @SuppressWarnings("unchecked")
+    public TopicProducers messagingTopicProducers(ProducerFactory<?, ?> producerFactory,
+                                                  ProducerTuningProperties props) {
+        return new TopicProducers(props, overrides -> {
+            Map<String, Object> config = new HashMap<>(overrides);
+            config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+            return new KafkaTemplate<>((ProducerFactory<String, byte[]>) producerFactory, config);
+        });
+    }
+}
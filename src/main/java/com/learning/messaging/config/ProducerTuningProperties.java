@@ -0,0 +1,96 @@
+package com.learning.messaging.config;
+
+import com.learning.messaging.producer.TopicClass;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for the per-topic-class producers.
+ *
+ * Bound using the prefix "messaging.producer.tuning".
+ *
+ * Example:
+ *   messaging.producer.tuning.enabled=true
+ *   messaging.producer.tuning.window=30s
+ *   messaging.producer.tuning.bulk.min-records-per-second=500
+ *   messaging.producer.tuning.bulk.max-linger=50ms
+ *   messaging.producer.tuning.topics.payments=LATENCY
+ *   messaging.producer.tuning.topics.audit=BULK
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.producer.tuning")
+public class ProducerTuningProperties {
+
+    /**
+     * Whether topics are routed to per-class producers. When off, every topic uses the
+     * spring.kafka.producer settings through one producer.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long traffic is observed before a topic's class is (re)evaluated.
+     */
+    private Duration window = Duration.ofSeconds(30);
+
+    /**
+     * Topics pinned to a class; they are never moved. Pin latency-critical topics to LATENCY.
+     */
+    private Map<String, TopicClass> topics = new HashMap<>();
+
+    private Bulk bulk = new Bulk();
+
+    /**
+     * When a topic counts as bulk traffic, and the bounds for the settings derived for it.
+     * A topic is promoted when either threshold is reached within a window and demoted
+     * again only once it falls below half of both.
+     */
+    @Data
+    public static class Bulk {
+        /**
+         * Send rate from which a topic is promoted.
+         */
+        private double minRecordsPerSecond = 500;
+
+        /**
+         * Average record size (key plus value) from which a topic is promoted.
+         */
+        private int minRecordBytes = 16 * 1024;
+
+        /**
+         * linger.ms is half the observed ack latency, within these bounds.
+         */
+        private Duration minLinger = Duration.ofMillis(5);
+        private Duration maxLinger = Duration.ofMillis(100);
+
+        /**
+         * batch.size is the bytes expected per linger, rounded up to a power of two, within these bounds.
+         */
+        private int minBatchBytes = 64 * 1024;
+        private int maxBatchBytes = 1024 * 1024;
+
+        /**
+         * compression.type for bulk batches.
+         */
+        private String compression = "lz4";
+
+        /**
+         * Expected bytes per linger below which batches are sent uncompressed (too small to gain from it).
+         */
+        private int minCompressedBatchBytes = 4 * 1024;
+    }
+
+    // ---- Helper methods ----
+
+    /**
+     * The class a topic is pinned to, or {@code null} if it is classified from its traffic.
+     */
+    @Nullable
+    public TopicClass pinnedClass(String topic) {
+        return topics.get(topic);
+    }
+}
@@ -0,0 +1,69 @@
+package com.learning.messaging.config;
+
+import com.learning.messaging.producer.EventProducer;
+import com.learning.messaging.replay.DlqReplayEndpoint;
+import com.learning.messaging.replay.DlqReplayer;
+import com.learning.messaging.replay.ReplayCheckpoints;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Configuration for DLQ replay.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplayProperties.class)
+public class ReplayConfig {
+
+    /**
+     * Reads DLQ topics as raw bytes and republishes through the application's {@link EventProducer},
+     * so replayed records get the same retries, metrics and exhausted handling as live ones.
+     */
+    @Bean
+    public DlqReplayer dlqReplayer(ConsumerFactory<?, ?> consumerFactory,
+                                   EventProducer<Object> producer,
+                                   ReplayProperties props) {
+        return new DlqReplayer(consumerFactory, valueDeserializer(consumerFactory), producer,
+                new ReplayCheckpoints(Path.of(props.getCheckpointDirectory())), props);
+    }
+
+    @Bean
+    public DlqReplayEndpoint dlqReplayEndpoint(DlqReplayer replayer) {
+        return new DlqReplayEndpoint(replayer);
+    }
+
+    /**
+     * The value deserializer configured for the application (spring.kafka.consumer.value-deserializer),
+     * applied only to records that pass the replay filters.
+     */
+    @SuppressWarnings("unchecked")
+    private static Deserializer<Object> valueDeserializer(ConsumerFactory<?, ?> factory) {
+        if (factory.getValueDeserializer() != null) {
+            return (Deserializer<Object>) factory.getValueDeserializer();
+        }
+        Map<String, Object> configs = factory.getConfigurationProperties();
+        Object configured = configs.get(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG);
+        Deserializer<Object> deserializer;
+        try {
+            if (configured == null) {
+                deserializer = (Deserializer<Object>) (Deserializer<?>) new ByteArrayDeserializer();
+            } else if (configured instanceof Class<?> type) {
+                deserializer = (Deserializer<Object>) Utils.newInstance(type);
+            } else {
+                deserializer = Utils.newInstance(configured.toString(), Deserializer.class);
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Value deserializer class not found: " + configured, e);
+        }
+        deserializer.configure(configs, false);
+        return deserializer;
+    }
+}
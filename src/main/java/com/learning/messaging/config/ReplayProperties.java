@@ -0,0 +1,49 @@
+package com.learning.messaging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for DLQ replay.
+ *
+ * Bound using the prefix "messaging.replay".
+ *
+ * These are the defaults of every replay; the rate and most filters can be overridden
+ * per replay (see {@link com.learning.messaging.replay.ReplayRequest}).
+ *
+ * Example:
+ *   messaging.replay.rate-per-second=200
+ *   messaging.replay.checkpoint-directory=/var/lib/orders-service/replay
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.replay")
+public class ReplayProperties {
+
+    /**
+     * Directory holding one checkpoint file (per-partition offsets) per named replay.
+     */
+    private String checkpointDirectory = "messaging-replay";
+
+    /**
+     * Default maximum records republished per second (0 = unlimited).
+     */
+    private double ratePerSecond = 500;
+
+    /**
+     * Records fetched per poll and republished per {@code sendAll} batch.
+     */
+    private int batchSize = 500;
+
+    /**
+     * How long a poll of the DLQ topic may block.
+     */
+    private Duration pollTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Maximum time to wait for a republished batch (including its retries) before the replay fails.
+     * The checkpoint is not moved past an unfinished batch, so resuming sends it again.
+     */
+    private Duration batchTimeout = Duration.ofMinutes(2);
+}
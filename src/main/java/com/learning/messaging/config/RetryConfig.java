@@ -1,11 +1,18 @@
 package com.learning.messaging.config;
 
+import com.learning.messaging.retry.ExecutorRetryScheduler;
+import com.learning.messaging.retry.HashedWheelRetryScheduler;
+import com.learning.messaging.retry.KeySequencer;
+import com.learning.messaging.retry.RetryScheduler;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 /**
@@ -17,23 +24,63 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 public class RetryConfig {
 
     /**
-     * Shared scheduled executor for retry tasks.
+     * Worker pool that runs fired retry attempts.
      * <p>
-     * - Thread count is configurable via messaging.retry.scheduler-threads
-     * - Threads named "messaging-retry-scheduler-<id>"
+     * - Thread count is configurable via messaging.producer.retry-worker-threads
+     * - Threads named "messaging-retry-worker-<id>"
      * - Daemon threads → won't block JVM shutdown
-     * - Uncaught exceptions are logged
-     * - Spring calls shutdown() automatically on context close
      */
     @Bean(destroyMethod = "shutdown")
-    public ScheduledExecutorService messagingRetryScheduler(RetryProperties props) {
-        int threads = Math.max(1, props.getSchedulerThreads());
+    public ExecutorService messagingRetryWorkers(RetryProperties props) {
+        int threads = Math.max(1, props.getRetryWorkerThreads());
 
-        return new ScheduledThreadPoolExecutor(threads, r -> {
+        return Executors.newFixedThreadPool(threads, r -> {
             Thread t = new Thread(r);
-            t.setName("messaging-retry-scheduler-" + t.getId());
+            t.setName("messaging-retry-worker-" + t.getId());
             t.setDaemon(true);
             return t;
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Per-key sequencer for ordered retries (messaging.producer.ordered-retries=true).
+     * <p>
+     * - Sharded by key hash (messaging.producer.ordered-retry-shards)
+     * - Records released from behind a retry are sent from the retry worker pool
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "messaging.producer", name = "ordered-retries", havingValue = "true")
+    public KeySequencer messagingKeySequencer(RetryProperties props,
+                                              @Qualifier("messagingRetryWorkers") ExecutorService workers) {
+        return new KeySequencer(props.getOrderedRetryShards(), workers);
+    }
+
+    /**
+     * Shared scheduler for retry tasks.
+     * <p>
+     * - Implementation is selected via messaging.producer.scheduler-type
+     * - HASHED_WHEEL: O(1) scheduling, tick configurable via messaging.producer.wheel-tick-ms
+     * - EXECUTOR: ScheduledThreadPoolExecutor with messaging.producer.scheduler-threads threads
+     * - Fired retries always run on the worker pool, never on the timer thread
+     * - Spring calls shutdown() automatically on context close
+     */
+    @Bean(destroyMethod = "shutdown")
+    public RetryScheduler messagingRetryScheduler(RetryProperties props,
+                                                  @Qualifier("messagingRetryWorkers") ExecutorService workers) {
+        if (props.getSchedulerType() == RetryProperties.SchedulerType.EXECUTOR) {
+            int threads = Math.max(1, props.getSchedulerThreads());
+
+            return new ExecutorRetryScheduler(new ScheduledThreadPoolExecutor(threads, r -> {
+                Thread t = new Thread(r);
+                t.setName("messaging-retry-scheduler-" + t.getId());
+                t.setDaemon(true);
+                return t;
+            }), workers);
+        }
+
+        log.info("Using hashed-wheel retry scheduler [tickMs={}, wheelSize={}]",
+                props.getWheelTickMs(), props.getWheelSize());
+        return new HashedWheelRetryScheduler(props.getWheelTickMs(), props.getWheelSize(),
+                workers, "messaging-retry-wheel");
+    }
+}
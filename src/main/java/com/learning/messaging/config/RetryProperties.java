@@ -3,6 +3,10 @@ package com.learning.messaging.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Configuration properties for retry & DLQ behavior in the messaging library.
  *
@@ -54,9 +58,175 @@ public class RetryProperties {
      */
     private String dlqTopic;
 
-    /** Number of threads in retry scheduler. Default = 2. */
+    /** Backoff strategy for topics without a matching policy. Default = EXPONENTIAL. */
+    private BackoffStrategy backoffStrategy = BackoffStrategy.EXPONENTIAL;
+
+    /**
+     * Give up once a retry would start later than this after the first attempt.
+     * Zero = no deadline, only maxAttempts applies. Required by the DEADLINE strategy.
+     */
+    private Duration deadline = Duration.ZERO;
+
+    /**
+     * Per-topic retry policies, keyed by topic name or pattern ("orders.*").
+     * Exact names win over patterns; patterns are tried in declaration order.
+     * Unset fields fall back to the global values above.
+     */
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    /**
+     * Forwarding of exhausted records to the DLQ topic.
+     */
+    private Dlq dlq = new Dlq();
+
+    /** Number of threads in retry scheduler (EXECUTOR scheduler only). Default = 2. */
     private int schedulerThreads = 2;
 
+    /** Retry scheduler implementation. Default = HASHED_WHEEL. */
+    private SchedulerType schedulerType = SchedulerType.HASHED_WHEEL;
+
+    /**
+     * Tick duration of the hashed-wheel scheduler (in milliseconds).
+     * Retries fire up to one tick later than their backoff. Default = 10.
+     */
+    private long wheelTickMs = 10;
+
+    /** Number of buckets in the hashed wheel, rounded up to a power of two. Default = 512. */
+    private int wheelSize = 512;
+
+    /** Number of threads that run fired retries. Default = 4. */
+    private int retryWorkerThreads = 4;
+
+    /**
+     * Keep keyed records behind a pending retry of the same topic and key, so a retried
+     * record is not overtaken by newer records with its key. Applies to single sends only:
+     * records of a batch (sendAll, DLQ replay) are not sequenced. Default = false.
+     */
+    private boolean orderedRetries = false;
+
+    /** Lock stripes of the per-key sequencer used by ordered retries. Default = 64. */
+    private int orderedRetryShards = 64;
+
+    /**
+     * Per-topic circuit breaker around send attempts.
+     */
+    private Breaker circuitBreaker = new Breaker();
+
+    /**
+     * Per-topic token-bucket budget capping retries relative to first attempts.
+     */
+    private Budget retryBudget = new Budget();
+
+    /**
+     * Available retry scheduler implementations.
+     */
+    public enum SchedulerType {
+        /** Hashed timing wheel: O(1) scheduling, tick-granular delays. */
+        HASHED_WHEEL,
+        /** ScheduledThreadPoolExecutor: exact delays, O(log n) scheduling. */
+        EXECUTOR
+    }
+
+    @Data
+    public static class Dlq {
+
+        /** Exhausted records waiting to be forwarded; beyond this they are dropped. Default = 10000. */
+        private int queueCapacity = 10_000;
+
+        /** Maximum records sent per DLQ batch. Default = 500. */
+        private int batchSize = 500;
+
+        /** Attempts per DLQ record; DLQ sends never go through the main retry path. Default = 3. */
+        private int maxAttempts = 3;
+
+        /** Pause between DLQ send attempts. Default = 1s. */
+        private Duration backoff = Duration.ofSeconds(1);
+
+        /** Maximum time to wait for the broker to acknowledge a DLQ batch. Default = 30s. */
+        private Duration sendTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Policy {
+
+        private BackoffStrategy backoffStrategy;
+
+        private Integer maxAttempts;
+
+        private Long initialBackoffMs;
+
+        private Double multiplier;
+
+        private Long maxBackoffMs;
+
+        private Duration deadline;
+    }
+
+    /**
+     * Backoff strategies; n is the number of the failed attempt and
+     * base(n) = initialBackoffMs * multiplier^(n-1), capped at maxBackoffMs.
+     */
+    public enum BackoffStrategy {
+        /** base(n): deterministic, so the retries of one failure wave stay in lockstep. */
+        EXPONENTIAL,
+        /** initialBackoffMs before every retry. */
+        FIXED,
+        /** Uniform in [0, base(n)]: spreads a wave of retries across the whole window. */
+        FULL_JITTER,
+        /** Uniform in [initialBackoffMs, 3 * previous delay], capped at maxBackoffMs. */
+        DECORRELATED_JITTER,
+        /** Full jitter, retrying until the deadline instead of for maxAttempts attempts. */
+        DEADLINE
+    }
+
+    @Data
+    public static class Breaker {
+
+        /** Whether the circuit breaker is active. Default = false. */
+        private boolean enabled = false;
+
+        /** Failure rate (0..1) over one window of attempts that opens the circuit. Default = 0.5. */
+        private double failureRateThreshold = 0.5;
+
+        /** Number of attempts per evaluation window. Default = 50. */
+        private int windowSize = 50;
+
+        /** How long the circuit stays open before letting probes through. Default = 10s. */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /** Probe attempts allowed while half-open; all must succeed to close. Default = 5. */
+        private int halfOpenProbes = 5;
+
+        /** What happens to a record while the circuit is open. Default = FAIL_FAST. */
+        private OpenAction openAction = OpenAction.FAIL_FAST;
+    }
+
+    @Data
+    public static class Budget {
+
+        /** Whether the retry budget is active. Default = false. */
+        private boolean enabled = false;
+
+        /** Retries earned per first attempt, e.g. 0.1 → retries capped at ~10% of traffic. Default = 0.1. */
+        private double ratio = 0.1;
+
+        /** Retries always allowed per second, so low-traffic topics can still retry. Default = 10. */
+        private double minRetriesPerSecond = 10;
+
+        /** Maximum retry tokens a topic can accumulate. Default = 100. */
+        private double maxTokens = 100;
+    }
+
+    /**
+     * What to do with a record that is not attempted because the circuit is open.
+     */
+    public enum OpenAction {
+        /** Complete the send exceptionally right away; handlers are not invoked. */
+        FAIL_FAST,
+        /** Hand the record to the exhausted handlers (DLQ, spool), as if retries ran out. */
+        DIVERT
+    }
+
     // ---- Helper methods ----
 
     /**
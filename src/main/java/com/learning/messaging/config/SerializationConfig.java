@@ -0,0 +1,42 @@
+package com.learning.messaging.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.messaging.serialization.EventCodec;
+import com.learning.messaging.serialization.EventCodecs;
+import com.learning.messaging.serialization.JacksonEventCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Configuration for event serialization.
+ */
+@Configuration
+@EnableConfigurationProperties(SerializationProperties.class)
+public class SerializationConfig {
+
+    /**
+     * JSON codec on the application's ObjectMapper when there is one.
+     */
+    @Bean
+    public JacksonEventCodec jsonEventCodec(ObjectProvider<ObjectMapper> objectMapper) {
+        ObjectMapper mapper = objectMapper.getIfAvailable();
+        return mapper != null ? JacksonEventCodec.json(mapper) : JacksonEventCodec.json();
+    }
+
+    @Bean
+    public JacksonEventCodec cborEventCodec() {
+        return JacksonEventCodec.cbor();
+    }
+
+    /**
+     * All {@link EventCodec} beans, including the application's own.
+     */
+    @Bean
+    public EventCodecs eventCodecs(List<EventCodec> codecs, SerializationProperties props) {
+        return new EventCodecs(codecs, props.getCodec(), props.getTypes());
+    }
+}
@@ -0,0 +1,35 @@
+package com.learning.messaging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for event serialization.
+ *
+ * Bound using the prefix "messaging.serialization".
+ *
+ * {@link com.learning.messaging.producer.EventProducer} encodes each event once with an
+ * {@link com.learning.messaging.serialization.EventCodec} (json and cbor built in, more via
+ * EventCodec beans); the bytes are reused by retries, the DLQ and the spool.
+ *
+ * Example:
+ *   messaging.serialization.codec=json
+ *   messaging.serialization.types[com.example.orders.OrderEvent]=cbor
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.serialization")
+public class SerializationProperties {
+
+    /**
+     * Name of the codec for events without a type mapping. Default = json.
+     */
+    private String codec = "json";
+
+    /**
+     * Codec name per event class (fully qualified class name).
+     */
+    private Map<String, String> types = new LinkedHashMap<>();
+}
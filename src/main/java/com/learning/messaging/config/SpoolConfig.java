@@ -0,0 +1,64 @@
+package com.learning.messaging.config;
+
+import com.learning.messaging.serialization.EventCodecs;
+import com.learning.messaging.spool.DiskSpool;
+import com.learning.messaging.spool.SpoolDrainer;
+import com.learning.messaging.spool.SpoolExhaustedHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Configuration for the durable local spool (messaging.spool.enabled=true).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "messaging.spool", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SpoolProperties.class)
+public class SpoolConfig {
+
+    /**
+     * The spool itself; segments are forced to disk and unmapped on context close.
+     */
+    @Bean(destroyMethod = "close")
+    public DiskSpool messagingSpool(SpoolProperties props) {
+        return new DiskSpool(Path.of(props.getDirectory()), props.getSegmentSize(), props.getFsyncEveryRecords());
+    }
+
+    /**
+     * Replaces the DLQ handler while the spool is enabled; appends on its own writer thread.
+     */
+    @Bean
+    public SpoolExhaustedHandler spoolExhaustedHandler(DiskSpool spool,
+                                                       EventCodecs codecs,
+                                                       SpoolProperties props,
+                                                       MeterRegistry meterRegistry) {
+        return new SpoolExhaustedHandler(spool, codecs, props.getQueueCapacity(), meterRegistry);
+    }
+
+    /**
+     * Replays spooled records through a byte[] template derived from the Boot producer factory,
+     * so they reach Kafka exactly as encoded when they were spooled. The drainer closes it on stop.
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public SpoolDrainer spoolDrainer(DiskSpool spool,
+                                     ProducerFactory<?, ?> producerFactory,
+                                     SpoolProperties props,
+                                     MeterRegistry meterRegistry) {
+        KafkaTemplate<String, byte[]> template = new KafkaTemplate<>(
+                (ProducerFactory<String, byte[]>) producerFactory,
+                Map.of(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                        ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class));
+        return new SpoolDrainer(spool, template, props, meterRegistry);
+    }
+}
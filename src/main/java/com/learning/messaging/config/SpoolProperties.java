@@ -0,0 +1,75 @@
+package com.learning.messaging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the durable local spool.
+ *
+ * Bound using the prefix "messaging.spool".
+ *
+ * When enabled, records whose retries are exhausted are appended to a memory-mapped
+ * on-disk log (instead of being sent to the DLQ on the same, unavailable cluster)
+ * and replayed in order once the broker accepts them again.
+ *
+ * Example:
+ *   messaging.spool.enabled=true
+ *   messaging.spool.directory=/var/lib/orders-service/spool
+ *   messaging.spool.segment-size=67108864
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.spool")
+public class SpoolProperties {
+
+    /**
+     * Whether exhausted records are spooled to disk (replaces the DLQ handler).
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory holding the spool segments and the read cursor.
+     */
+    private String directory = "messaging-spool";
+
+    /**
+     * Size of each memory-mapped segment file in bytes (also the maximum record size).
+     */
+    private int segmentSize = 64 * 1024 * 1024;
+
+    /**
+     * Force appended records to disk after this many appends...
+     */
+    private int fsyncEveryRecords = 100;
+
+    /**
+     * ...or after this interval, whichever comes first.
+     */
+    private Duration fsyncInterval = Duration.ofMillis(200);
+
+    /**
+     * Exhausted records waiting for the spool writer thread; further ones are rejected and lost.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * Maximum records replayed per drain round.
+     */
+    private int drainBatchSize = 500;
+
+    /**
+     * Pause between drain rounds when the spool is empty.
+     */
+    private Duration drainIdleInterval = Duration.ofSeconds(1);
+
+    /**
+     * Pause before retrying a drain round that failed (broker still unavailable).
+     */
+    private Duration drainBackoff = Duration.ofSeconds(5);
+
+    /**
+     * Maximum time to wait for the broker to acknowledge a drain round.
+     */
+    private Duration drainSendTimeout = Duration.ofSeconds(30);
+}
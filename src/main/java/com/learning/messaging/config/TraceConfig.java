@@ -0,0 +1,31 @@
+package com.learning.messaging.config;
+
+import com.learning.messaging.trace.MonotonicTraceIdGenerator;
+import com.learning.messaging.trace.TraceIdGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for traceId generation.
+ */
+@Configuration
+@EnableConfigurationProperties(TraceProperties.class)
+public class TraceConfig {
+
+    /**
+     * Default traceId generator, selected via messaging.trace.id-format.
+     * Define your own {@link TraceIdGenerator} bean to replace it.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TraceIdGenerator traceIdGenerator(TraceProperties props) {
+        if (props.getIdFormat() == TraceProperties.IdFormat.UUID) {
+            return TraceIdGenerator.uuid();
+        }
+        return props.getNodeId() != null
+                ? new MonotonicTraceIdGenerator(props.getNodeId())
+                : new MonotonicTraceIdGenerator();
+    }
+}
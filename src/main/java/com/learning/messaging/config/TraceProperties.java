@@ -0,0 +1,40 @@
+package com.learning.messaging.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for traceId generation.
+ *
+ * Bound using the prefix "messaging.trace".
+ *
+ * A traceId is generated only when the MDC has none (typically background producers).
+ *
+ * Example:
+ *   messaging.trace.id-format=MONOTONIC
+ *   messaging.trace.node-id=42
+ */
+@Data
+@ConfigurationProperties(prefix = "messaging.trace")
+public class TraceProperties {
+
+    /**
+     * Format of generated traceIds.
+     */
+    private IdFormat idFormat = IdFormat.MONOTONIC;
+
+    /**
+     * Fixed node id for MONOTONIC ids (e.g. a pod ordinal). Random per process when unset.
+     */
+    private Integer nodeId;
+
+    /**
+     * Available traceId formats.
+     */
+    public enum IdFormat {
+        /** 32 hex chars (time + node + counter), W3C trace-id compatible, no SecureRandom per id. */
+        MONOTONIC,
+        /** Random UUID strings, as generated before MONOTONIC existed. */
+        UUID
+    }
+}
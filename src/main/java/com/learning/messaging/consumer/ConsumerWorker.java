@@ -0,0 +1,538 @@
+package com.learning.messaging.consumer;
+
+import com.learning.messaging.config.ConsumerProperties;
+import com.learning.messaging.headers.MessagingHeaders;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Poll loop driving one {@link EventConsumer} with one Kafka consumer.
+ * <p>
+ * - Polls raw bytes and deserializes them itself, so records can be inspected before deserialization
+ * - With a {@link DeduplicationCache}, drops records whose message id was already seen before
+ *   deserializing them; the offsets of dropped records are committed like processed ones
+ * - Processes records in partition order, per record or per partition batch
+ * - Or, with a {@link KeyOrderedDispatcher}, concurrently with per-key order; partitions are paused
+ *   while {@code maxInFlight} records are outstanding, and only completed offset prefixes are committed
+ * - With {@link RetryTopics}, a record whose handler keeps failing is forwarded to its next delay tier
+ *   (or the DLQ) and committed, so the partition keeps flowing; a partition whose next record is not due
+ *   yet is paused until it is. A record is only committed once forwarded: a failing forward is retried
+ * - Commits processed offsets asynchronously after every poll, and synchronously every
+ *   {@code syncCommitInterval}, on partition revocation and on shutdown
+ * - On shutdown, a record whose handler fails (or that was not started yet) is not committed past,
+ *   so it is redelivered instead of skipped
+ */
+@Slf4j
+class ConsumerWorker implements Runnable {
+
+    private final String name;
+    private final Subscription subscription;
+    private final Consumer<String, byte[]> consumer;
+    private final Deserializer<Object> deserializer;
+    private final ConsumerProperties props;
+    private final Function<String, ConsumerMeters> meters;
+    @Nullable
+    private final KeyOrderedDispatcher dispatcher;
+    @Nullable
+    private final DeduplicationCache deduplication;
+    @Nullable
+    private final RetryTopics retryTopics;
+
+    /** Offsets processed since the last commit; only accessed by the poll thread. */
+    private final Map<TopicPartition, OffsetAndMetadata> pendingOffsets = new HashMap<>();
+
+    /** Dispatched offsets per partition (KEY_ORDERED only); only accessed by the poll thread. */
+    private final Map<TopicPartition, OffsetTracker> trackers = new HashMap<>();
+
+    /** Partitions paused until their next retry-tier record is due (epoch millis); only accessed by the poll thread. */
+    private final Map<TopicPartition, Long> heldUntil = new HashMap<>();
+
+    private volatile boolean running = true;
+    private long nextSyncCommitNanos;
+    private boolean paused;
+
+    ConsumerWorker(String name,
+                   Subscription subscription,
+                   Consumer<String, byte[]> consumer,
+                   Deserializer<Object> deserializer,
+                   ConsumerProperties props,
+                   Function<String, ConsumerMeters> meters,
+                   @Nullable KeyOrderedDispatcher dispatcher,
+                   @Nullable DeduplicationCache deduplication,
+                   @Nullable RetryTopics retryTopics) {
+        this.name = name;
+        this.subscription = subscription;
+        this.consumer = consumer;
+        this.deserializer = deserializer;
+        this.props = props;
+        this.meters = meters;
+        this.dispatcher = dispatcher;
+        this.deduplication = deduplication;
+        this.retryTopics = retryTopics;
+    }
+
+    @Override
+    public void run() {
+        log.info("Consumer started [name={}, topics={}, batch={}, dispatch={}]",
+                name, subscription.topics(), subscription.batch(), subscription.dispatch());
+        nextSyncCommitNanos = System.nanoTime() + props.getSyncCommitInterval().toNanos();
+        try {
+            consumer.subscribe(subscription.topics(), new CommitOnRevoke());
+            while (running) {
+                if (!heldUntil.isEmpty()) {
+                    resumeDue();
+                }
+                ConsumerRecords<String, byte[]> records = consumer.poll(props.getPollTimeout());
+                if (dispatcher != null) {
+                    if (!records.isEmpty()) {
+                        dispatchKeyOrdered(records);
+                    }
+                    collectCompleted();
+                    applyBackpressure();
+                } else if (!records.isEmpty()) {
+                    dispatch(records);
+                }
+                commit();
+            }
+        } catch (WakeupException e) {
+            if (running) {
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Consumer loop failed [name={}]", name, e);
+        } finally {
+            try {
+                awaitInFlight();
+                commitSync();
+            } catch (Exception e) {
+                log.warn("Final commit failed [name={}]", name, e);
+            }
+            consumer.close();
+            log.info("Consumer stopped [name={}]", name);
+        }
+    }
+
+    /**
+     * Stop polling; the loop commits and closes the consumer on its way out.
+     */
+    void stop() {
+        running = false;
+        consumer.wakeup();
+    }
+
+    private void dispatch(ConsumerRecords<String, byte[]> records) {
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<String, byte[]>> partitionRecords = records.records(partition);
+            if (subscription.batch()) {
+                handleBatch(partition, partitionRecords);
+            } else {
+                for (ConsumerRecord<String, byte[]> record : partitionRecords) {
+                    if (!running) {
+                        return;
+                    }
+                    if (retryTopics != null && holdUntilDue(partition, record)) {
+                        break;
+                    }
+                    if (!handleRecord(record)) {
+                        return;
+                    }
+                    markProcessed(partition, record.offset());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the handler was abandoned on shutdown and the record must not be committed
+     */
+    private boolean handleRecord(ConsumerRecord<String, byte[]> record) {
+        ConsumerMeters topicMeters = meters.apply(record.topic());
+        if (isDuplicate(record, topicMeters)) {
+            return true;
+        }
+        Object event;
+        try {
+            event = deserialize(record);
+        } catch (Exception e) {
+            log.error("Skipping undeserializable record [name={}, topic={}, partition={}, offset={}, error={}]",
+                    name, record.topic(), record.partition(), record.offset(), e.toString());
+            topicMeters.failure().increment();
+            return true;
+        }
+        if (!invoke(() -> subscription.consumer().onEvent(event), record,
+                record.topic(), record.partition(), record.offset(), topicMeters)) {
+            forget(record);
+            return false;
+        }
+        topicMeters.records().increment();
+        return true;
+    }
+
+    private void handleBatch(TopicPartition partition, List<ConsumerRecord<String, byte[]>> records) {
+        ConsumerMeters topicMeters = meters.apply(partition.topic());
+        List<Object> events = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, byte[]>> delivered = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (isDuplicate(record, topicMeters)) {
+                continue;
+            }
+            try {
+                events.add(deserialize(record));
+                delivered.add(record);
+            } catch (Exception e) {
+                log.error("Skipping undeserializable record [name={}, topic={}, partition={}, offset={}, error={}]",
+                        name, record.topic(), record.partition(), record.offset(), e.toString());
+                topicMeters.failure().increment();
+            }
+        }
+        long lastOffset = records.get(records.size() - 1).offset();
+        if (!events.isEmpty()) {
+            if (!invoke(() -> subscription.consumer().onEvents(events), null,
+                    partition.topic(), partition.partition(), lastOffset, topicMeters)) {
+                delivered.forEach(this::forget);
+                return;
+            }
+            topicMeters.records().increment(events.size());
+        }
+        markProcessed(partition, lastOffset);
+    }
+
+    private void dispatchKeyOrdered(ConsumerRecords<String, byte[]> records) {
+        for (TopicPartition partition : records.partitions()) {
+            OffsetTracker tracker = trackers.computeIfAbsent(partition, tp -> new OffsetTracker());
+            ConsumerMeters topicMeters = meters.apply(partition.topic());
+            for (ConsumerRecord<String, byte[]> record : records.records(partition)) {
+                OffsetTracker.Slot slot = tracker.add(record.offset());
+                if (isDuplicate(record, topicMeters)) {
+                    slot.complete();
+                    continue;
+                }
+                Object event;
+                try {
+                    // deserializers are not required to be thread-safe: decode on the poll thread
+                    event = deserialize(record);
+                } catch (Exception e) {
+                    log.error("Skipping undeserializable record [name={}, topic={}, partition={}, offset={}, error={}]",
+                            name, record.topic(), record.partition(), record.offset(), e.toString());
+                    topicMeters.failure().increment();
+                    slot.complete();
+                    continue;
+                }
+                dispatcher.submit(record.key(), () -> {
+                    // a record not started or abandoned on shutdown keeps its slot open, so it is not committed
+                    boolean handled = true;
+                    try {
+                        handled = running && invoke(() -> subscription.consumer().onEvent(event), record,
+                                record.topic(), record.partition(), record.offset(), topicMeters);
+                        if (handled) {
+                            topicMeters.records().increment();
+                        } else {
+                            forget(record);
+                        }
+                    } finally {
+                        if (handled) {
+                            slot.complete();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Move the completed offset prefix of every partition into the pending commit.
+     */
+    private void collectCompleted() {
+        trackers.forEach((partition, tracker) -> {
+            long next = tracker.advance();
+            if (next >= 0) {
+                pendingOffsets.put(partition, new OffsetAndMetadata(next));
+            }
+        });
+    }
+
+    /**
+     * Pause fetching while too many records are in flight; resume once half have drained.
+     * Paused partitions still poll, so the consumer keeps its group membership.
+     */
+    private void applyBackpressure() {
+        int inFlight = dispatcher.inFlight();
+        if (!paused && inFlight >= props.getMaxInFlight()) {
+            consumer.pause(consumer.assignment());
+            paused = true;
+            log.debug("Paused fetching [name={}, inFlight={}]", name, inFlight);
+        } else if (paused && inFlight <= props.getMaxInFlight() / 2) {
+            consumer.resume(consumer.paused());
+            paused = false;
+            log.debug("Resumed fetching [name={}, inFlight={}]", name, inFlight);
+        }
+    }
+
+    /**
+     * Pause a retry-tier partition whose next record is not due yet, and rewind it to that record.
+     * Records of a tier become due in offset order, so nothing behind it is due either.
+     *
+     * @return {@code true} if the partition was paused
+     */
+    private boolean holdUntilDue(TopicPartition partition, ConsumerRecord<String, byte[]> record) {
+        long dueAt = RetryTopics.dueAt(record);
+        if (dueAt <= System.currentTimeMillis()) {
+            return false;
+        }
+        consumer.seek(partition, record.offset());
+        consumer.pause(List.of(partition));
+        heldUntil.put(partition, dueAt);
+        return true;
+    }
+
+    private void resumeDue() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<TopicPartition, Long>> it = heldUntil.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<TopicPartition, Long> held = it.next();
+            if (held.getValue() <= now) {
+                consumer.resume(List.of(held.getKey()));
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Wait (bounded) for dispatched records to finish and collect their offsets.
+     * Records still running after the timeout, or skipped or abandoned on shutdown, are not committed
+     * and will be redelivered.
+     */
+    private void awaitInFlight() {
+        if (dispatcher == null) {
+            return;
+        }
+        try {
+            if (!dispatcher.awaitIdle(props.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("In-flight records did not finish in time [name={}, inFlight={}]", name, dispatcher.inFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        collectCompleted();
+    }
+
+    /**
+     * Whether the record's message id was already seen (records without one are never duplicates).
+     * Marks the id as seen otherwise.
+     */
+    private boolean isDuplicate(ConsumerRecord<String, byte[]> record, ConsumerMeters topicMeters) {
+        if (deduplication == null) {
+            return false;
+        }
+        Header messageId = record.headers().lastHeader(MessagingHeaders.MESSAGE_ID);
+        if (messageId == null || messageId.value() == null || deduplication.firstSeen(messageId.value())) {
+            return false;
+        }
+        topicMeters.duplicate().increment();
+        log.debug("Dropping duplicate record [name={}, topic={}, partition={}, offset={}]",
+                name, record.topic(), record.partition(), record.offset());
+        return true;
+    }
+
+    private Object deserialize(ConsumerRecord<String, byte[]> record) {
+        Object event = deserializer.deserialize(record.topic(), record.headers(), record.value());
+        if (event == null) {
+            throw new IllegalStateException("null event");
+        }
+        Class<?> eventType = subscription.eventType();
+        if (eventType != null && !eventType.isInstance(event)) {
+            throw new IllegalStateException("expected " + eventType.getName() + " but got " + event.getClass().getName());
+        }
+        return event;
+    }
+
+    /**
+     * Run the handler, retrying in place; after the last attempt the record is forwarded to its next
+     * retry tier if there are retry topics, otherwise the failure is logged and skipped.
+     * A failure while stopping ends the retries without skipping: the record is left for redelivery.
+     *
+     * @param record the record to forward, {@code null} for a batch
+     * @return {@code false} if the handler or the forward was abandoned on shutdown
+     */
+    private boolean invoke(Runnable handler, @Nullable ConsumerRecord<String, byte[]> record,
+                        String topic, int partition, long offset, ConsumerMeters topicMeters) {
+        int attempts = Math.max(1, props.getHandlerAttempts());
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            try {
+                handler.run();
+                return true;
+            } catch (Exception e) {
+                if (attempt == attempts) {
+                    topicMeters.failure().increment();
+                    if (record != null && retryTopics != null) {
+                        return forward(record, e, attempt);
+                    }
+                    log.error("Handler failed → skipping [name={}, topic={}, partition={}, offset={}, attempts={}]",
+                            name, topic, partition, offset, attempt, e);
+                    return true;
+                }
+                if (!running) {
+                    log.warn("Handler failed while stopping → leaving for redelivery [name={}, topic={}, partition={}, offset={}, attempt={}, error={}]",
+                            name, topic, partition, offset, attempt, e.toString());
+                    return false;
+                }
+                log.warn("Handler failed → retrying in place [name={}, topic={}, partition={}, offset={}, attempt={}, error={}]",
+                        name, topic, partition, offset, attempt, e.toString());
+                sleep(props.getHandlerBackoff());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forward a failed record to its next retry tier (or the DLQ) and forget its message id,
+     * so the redelivery is not dropped as a duplicate. A failed forward is retried in place
+     * (the partition waits, like for a failing handler) until it succeeds or the worker stops.
+     *
+     * @return {@code false} if it was not forwarded before stopping: the record is left for redelivery
+     */
+    private boolean forward(ConsumerRecord<String, byte[]> record, Exception error, int attempts) {
+        for (int forwardAttempt = 1; ; forwardAttempt++) {
+            try {
+                String target = retryTopics.forward(record, error);
+                log.warn("Handler failed → forwarded [name={}, topic={}, partition={}, offset={}, attempts={}, to={}, error={}]",
+                        name, record.topic(), record.partition(), record.offset(), attempts, target, error.toString());
+                forget(record);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                if (!running) {
+                    log.warn("Forwarding failed while stopping → leaving for redelivery [name={}, topic={}, partition={}, offset={}, error={}]",
+                            name, record.topic(), record.partition(), record.offset(), e.toString());
+                    return false;
+                }
+                log.error("Forwarding failed record failed → retrying [name={}, topic={}, partition={}, offset={}, forwardAttempt={}, error={}]",
+                        name, record.topic(), record.partition(), record.offset(), forwardAttempt, e.toString());
+                sleep(props.getHandlerBackoff());
+            }
+        }
+    }
+
+    /**
+     * Forget the record's message id, so its redelivery is not dropped as a duplicate.
+     */
+    private void forget(ConsumerRecord<String, byte[]> record) {
+        if (deduplication == null) {
+            return;
+        }
+        Header messageId = record.headers().lastHeader(MessagingHeaders.MESSAGE_ID);
+        if (messageId != null && messageId.value() != null) {
+            deduplication.forget(messageId.value());
+        }
+    }
+
+    private void markProcessed(TopicPartition partition, long offset) {
+        pendingOffsets.put(partition, new OffsetAndMetadata(offset + 1));
+    }
+
+    private void commit() {
+        if (pendingOffsets.isEmpty()) {
+            return;
+        }
+        if (System.nanoTime() - nextSyncCommitNanos >= 0) {
+            commitSync();
+            return;
+        }
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(pendingOffsets);
+        pendingOffsets.clear();
+        // the callback runs on the poll thread, inside a later poll or commit
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception != null) {
+                log.warn("Async commit failed [name={}, offsets={}, error={}]", name, offsets, exception.toString());
+                requeue(offsets);
+            }
+        });
+    }
+
+    /**
+     * Put the offsets of a failed async commit back, so the next commit retries them, unless newer
+     * offsets of the partition are already pending or the partition was revoked meanwhile.
+     */
+    private void requeue(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        Set<TopicPartition> assignment = consumer.assignment();
+        offsets.forEach((partition, offset) -> {
+            if (assignment.contains(partition)) {
+                pendingOffsets.merge(partition, offset,
+                        (pending, failed) -> pending.offset() >= failed.offset() ? pending : failed);
+            }
+        });
+    }
+
+    private void commitSync() {
+        nextSyncCommitNanos = System.nanoTime() + props.getSyncCommitInterval().toNanos();
+        if (pendingOffsets.isEmpty()) {
+            return;
+        }
+        // commitSync runs completed async callbacks first, which may requeue into pendingOffsets
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(pendingOffsets);
+        consumer.commitSync(offsets);
+        offsets.forEach(pendingOffsets::remove);
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Commits processed offsets of revoked partitions before another consumer takes them over.
+     */
+    private final class CommitOnRevoke implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            try {
+                awaitInFlight();
+                partitions.forEach(trackers::remove);
+                partitions.forEach(heldUntil::remove);
+                commitSync();
+            } catch (Exception e) {
+                log.warn("Commit on revoke failed [name={}, partitions={}]", name, partitions, e);
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            log.info("Partitions assigned [name={}, partitions={}]", name, partitions);
+            if (paused) {
+                consumer.pause(partitions);
+            }
+        }
+    }
+
+    /**
+     * Resolved meter handles for one topic.
+     */
+    record ConsumerMeters(Counter records, Counter failure, Counter duplicate) {
+    }
+}
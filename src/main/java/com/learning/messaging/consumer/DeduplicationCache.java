@@ -0,0 +1,208 @@
+package com.learning.messaging.consumer;
+
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bounded, time-windowed set of the message ids a subscription has seen.
+ * <p>
+ * - Ids are hashed to 128 bits and kept as {@code [hi, lo, seenAtMillis]} long triples in an
+ *   open-addressed table, off-heap (direct buffer) or in a memory-mapped file: no object per entry
+ * - An id is looked up in a window of {@value #PROBE_WINDOW} slots from its home slot; a new id takes
+ *   the first empty slot of the window or else its oldest slot, so expired ids are overwritten in
+ *   place and, when the table is full, the oldest ids are forgotten first. Memory never grows.
+ * - A mapped table is reused on restart only if it was closed cleanly. After a crash it starts
+ *   empty: ids marked for records whose offsets were never committed would otherwise make their
+ *   redelivery look like a duplicate.
+ * - Thread-safe; the poll threads of one subscription share one cache
+ */
+final class DeduplicationCache implements Closeable {
+
+    static final String SUFFIX = ".dedup";
+
+    private static final int PROBE_WINDOW = 8;
+    private static final int SLOT_BYTES = 24;
+
+    /** Header: {@code [long magic][long slots][long state][long reserved]}. */
+    private static final int HEADER_BYTES = 32;
+    private static final long MAGIC = 0x6D73672D64656475L;
+    private static final int STATE_OFFSET = 16;
+    private static final long STATE_OPEN = 1;
+    private static final long STATE_CLOSED = 2;
+
+    private final ByteBuffer table;
+    @Nullable
+    private final FileChannel channel;
+    private final int mask;
+    private final long ttlMillis;
+
+    private DeduplicationCache(ByteBuffer table, @Nullable FileChannel channel, int slots, long ttlMillis) {
+        this.table = table;
+        this.channel = channel;
+        this.mask = slots - 1;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * An off-heap cache that does not survive restarts.
+     *
+     * @param maxEntries ids kept at least (the table has twice as many slots, rounded up to a power of two)
+     * @param ttlMillis  how long an id counts as seen
+     */
+    static DeduplicationCache offHeap(int maxEntries, long ttlMillis) {
+        int slots = slots(maxEntries);
+        ByteBuffer table = ByteBuffer.allocateDirect(HEADER_BYTES + slots * SLOT_BYTES);
+        return new DeduplicationCache(table, null, slots, ttlMillis);
+    }
+
+    /**
+     * A cache backed by a memory-mapped file, reused if it was closed cleanly with the same size.
+     */
+    static DeduplicationCache mapped(Path file, int maxEntries, long ttlMillis) throws IOException {
+        int slots = slots(maxEntries);
+        int size = HEADER_BYTES + slots * SLOT_BYTES;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean reusable = channel.size() == size;
+        MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (!reusable
+                || table.getLong(0) != MAGIC
+                || table.getLong(8) != slots
+                || table.getLong(STATE_OFFSET) != STATE_CLOSED) {
+            for (int i = 0; i < size; i += 8) {
+                table.putLong(i, 0L);
+            }
+            table.putLong(0, MAGIC);
+            table.putLong(8, slots);
+        }
+        table.putLong(STATE_OFFSET, STATE_OPEN);
+        table.force();
+        return new DeduplicationCache(table, channel, slots, ttlMillis);
+    }
+
+    private static int slots(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        long slots = Math.max(PROBE_WINDOW, Long.highestOneBit(2L * maxEntries - 1) << 1);
+        if (HEADER_BYTES + slots * SLOT_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maxEntries too large: " + maxEntries);
+        }
+        return (int) slots;
+    }
+
+    /**
+     * Record a delivery of {@code messageId}.
+     *
+     * @return {@code true} if it was not seen within the TTL (deliver it), {@code false} for a duplicate
+     */
+    boolean firstSeen(byte[] messageId) {
+        return firstSeen(messageId, System.currentTimeMillis());
+    }
+
+    synchronized boolean firstSeen(byte[] messageId, long nowMillis) {
+        long hi = hash(messageId, 0x9E3779B97F4A7C15L);
+        long lo = hash(messageId, 0xC2B2AE3D27D4EB4FL);
+        // 0 marks an empty slot
+        long now = Math.max(1, nowMillis);
+
+        int home = (int) hi & mask;
+        int victim = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (home + i) & mask;
+            int position = HEADER_BYTES + slot * SLOT_BYTES;
+            long seenAt = table.getLong(position + 16);
+            if (seenAt == 0) {
+                // slots are never emptied again, so the id can't be further along
+                victim = slot;
+                break;
+            }
+            if (table.getLong(position) == hi && table.getLong(position + 8) == lo) {
+                if (now - seenAt < ttlMillis) {
+                    return false;
+                }
+                victim = slot;
+                break;
+            }
+            if (seenAt < oldest) {
+                oldest = seenAt;
+                victim = slot;
+            }
+        }
+        int position = HEADER_BYTES + victim * SLOT_BYTES;
+        table.putLong(position, hi);
+        table.putLong(position + 8, lo);
+        table.putLong(position + 16, now);
+        return true;
+    }
+
+    /**
+     * Forget {@code messageId}, so its next delivery is handled again (e.g. from a retry topic).
+     */
+    synchronized void forget(byte[] messageId) {
+        long hi = hash(messageId, 0x9E3779B97F4A7C15L);
+        long lo = hash(messageId, 0xC2B2AE3D27D4EB4FL);
+        int home = (int) hi & mask;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int position = HEADER_BYTES + ((home + i) & mask) * SLOT_BYTES;
+            if (table.getLong(position + 16) == 0) {
+                return;
+            }
+            if (table.getLong(position) == hi && table.getLong(position + 8) == lo) {
+                // keep the slot occupied (probing stops at empty slots) but oldest, so it is reused first
+                table.putLong(position, 0L);
+                table.putLong(position + 8, 0L);
+                table.putLong(position + 16, 1L);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Number of slots; at least twice the configured maximum entries.
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Mark a mapped table as cleanly closed and flush it. Call once the subscription's
+     * offsets have been committed for the last time.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        table.putLong(STATE_OFFSET, STATE_CLOSED);
+        ((MappedByteBuffer) table).force();
+        channel.close();
+    }
+
+    /**
+     * FNV-1a over the id bytes, finished with the murmur3 64-bit mixer.
+     */
+    private static long hash(byte[] bytes, long seed) {
+        long h = seed ^ 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85A53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,41 @@
+package com.learning.messaging.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor that runs {@link DispatchMode#KEY_ORDERED} handlers.
+ * <p>
+ * Uses a virtual-thread-per-task executor when the JVM provides one (Java 21+), so blocking
+ * I/O-bound handlers scale well past the platform thread count. On older JVMs it falls back
+ * to a fixed pool of platform threads.
+ */
+@Slf4j
+final class DispatchExecutors {
+
+    private DispatchExecutors() {
+    }
+
+    static ExecutorService create(int fallbackThreads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            log.info("Key-ordered dispatch uses virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(1, fallbackThreads);
+            log.info("Virtual threads unavailable → key-ordered dispatch uses {} platform threads", threads);
+            AtomicInteger ids = new AtomicInteger();
+            return Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r);
+                t.setName("messaging-consumer-dispatch-" + ids.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.learning.messaging.consumer;
+
+/**
+ * How records of a subscription are handed to the {@link EventConsumer}.
+ */
+public enum DispatchMode {
+    /** One record (or partition batch) at a time on the poll thread, in partition order. */
+    SERIAL,
+    /**
+     * Records of a partition are processed concurrently, records with the same key in order.
+     * Only the contiguous range of completed offsets is committed.
+     */
+    KEY_ORDERED
+}
@@ -1,5 +1,38 @@
 package com.learning.messaging.consumer;
 
+import java.util.List;
+
+/**
+ * Abstraction for consuming domain events from Kafka (or other brokers).
+ * <p>
+ * Beans implementing this interface and annotated with {@link EventSubscription}
+ * are subscribed and driven by the {@link EventConsumerContainer}; no
+ * {@code @KafkaListener} or container tuning is needed.
+ *
+ * @param <T> the type of event payload
+ */
 public interface EventConsumer<T> {
 
+    /**
+     * Handle a single event.
+     * Throwing marks the record as failed; it is retried in place up to
+     * {@code messaging.consumer.handler-attempts} times, then skipped or, with
+     * {@code messaging.consumer.retry-topics.enabled}, forwarded to the next retry topic.
+     *
+     * @param event the deserialized event payload
+     */
+    void onEvent(T event);
+
+    /**
+     * Handle all events of one poll, in partition order.
+     * Only called for subscriptions with {@link EventSubscription#batch()} enabled.
+     * Defaults to calling {@link #onEvent} for each event.
+     *
+     * @param events the deserialized event payloads
+     */
+    default void onEvents(List<T> events) {
+        for (T event : events) {
+            onEvent(event);
+        }
+    }
 }
@@ -0,0 +1,338 @@
+package com.learning.messaging.consumer;
+
+import com.learning.messaging.config.ConsumerProperties;
+import com.learning.messaging.config.MetricsProperties;
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.metrics.TopicMeterCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Finds {@link EventConsumer} beans annotated with {@link EventSubscription} and runs them.
+ * <p>
+ * - One poll thread (and Kafka consumer) per unit of concurrency
+ * - {@link DispatchMode#KEY_ORDERED} subscriptions share one handler executor
+ *   (virtual threads when available)
+ * - Poll and fetch sizing come from {@link ConsumerProperties}, so services don't hand-tune containers
+ * - Consumers are created from the Spring Boot {@link ConsumerFactory} (spring.kafka.consumer.*),
+ *   with auto-commit disabled because the engine commits itself
+ * - With messaging.consumer.deduplication.enabled, each subscription's poll threads share one
+ *   {@link DeduplicationCache}, closed once they have committed for the last time
+ * - With messaging.consumer.retry-topics.enabled, failed records of non-batch subscriptions are forwarded
+ *   to {@link RetryTopics} tiers; each tier gets one extra poll thread per subscription, running the same
+ *   {@link EventConsumer} in the same group, through a byte[] template built from the Boot producer factory
+ * - Metrics: {@code messaging.consumer.records}, {@code messaging.consumer.failure} and
+ *   {@code messaging.consumer.duplicate}, tagged by topic
+ */
+@Slf4j
+@Component
+public class EventConsumerContainer implements SmartLifecycle {
+
+    private static final String METRIC_RECORDS = "messaging.consumer.records";
+    private static final String METRIC_FAILURE = "messaging.consumer.failure";
+    private static final String METRIC_DUPLICATE = "messaging.consumer.duplicate";
+
+    private final ApplicationContext context;
+    private final ObjectProvider<ConsumerFactory<?, ?>> consumerFactory;
+    private final ObjectProvider<ProducerFactory<?, ?>> producerFactory;
+    private final ConsumerProperties props;
+    private final RetryProperties retryProps;
+    private final MeterRegistry meterRegistry;
+    private final TopicMeterCache<ConsumerWorker.ConsumerMeters> meters;
+    private final List<ConsumerWorker> workers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final List<DeduplicationCache> deduplicationCaches = new ArrayList<>();
+    private ExecutorService dispatchExecutor;
+    /** Created here for the retry topics, so closed here too. */
+    private KafkaTemplate<String, byte[]> retryTemplate;
+
+    private volatile boolean running;
+
+    public EventConsumerContainer(ApplicationContext context,
+                                  ObjectProvider<ConsumerFactory<?, ?>> consumerFactory,
+                                  ObjectProvider<ProducerFactory<?, ?>> producerFactory,
+                                  ConsumerProperties props,
+                                  RetryProperties retryProps,
+                                  MeterRegistry meterRegistry,
+                                  MetricsProperties metricsProps) {
+        this.context = context;
+        this.consumerFactory = consumerFactory;
+        this.producerFactory = producerFactory;
+        this.props = props;
+        this.retryProps = retryProps;
+        this.meterRegistry = meterRegistry;
+        this.meters = new TopicMeterCache<>(this::createMeters, this::removeMeters, metricsProps);
+    }
+
+    private ConsumerWorker.ConsumerMeters createMeters(String topic) {
+        return new ConsumerWorker.ConsumerMeters(
+                meterRegistry.counter(METRIC_RECORDS, "topic", topic),
+                meterRegistry.counter(METRIC_FAILURE, "topic", topic),
+                meterRegistry.counter(METRIC_DUPLICATE, "topic", topic));
+    }
+
+    private void removeMeters(ConsumerWorker.ConsumerMeters consumerMeters) {
+        meterRegistry.remove(consumerMeters.records());
+        meterRegistry.remove(consumerMeters.failure());
+        meterRegistry.remove(consumerMeters.duplicate());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (!props.isEnabled()) {
+            return;
+        }
+
+        List<Subscription> subscriptions = resolveSubscriptions();
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        ConsumerFactory<?, ?> factory = consumerFactory.getIfAvailable();
+        if (factory == null) {
+            throw new IllegalStateException("EventConsumer beans found but no Kafka ConsumerFactory is configured");
+        }
+
+        RetryTopics retryTopics = props.getRetryTopics().isEnabled() ? createRetryTopics() : null;
+        for (Subscription subscription : subscriptions) {
+            DeduplicationCache deduplication = deduplicationCache(subscription);
+            RetryTopics subscriptionRetryTopics = subscription.batch() ? null : retryTopics;
+            for (int i = 0; i < subscription.concurrency(); i++) {
+                startWorker(subscription.beanName() + "-" + i, subscription, factory, deduplication,
+                        subscriptionRetryTopics);
+            }
+            if (subscriptionRetryTopics == null) {
+                continue;
+            }
+            List<List<String>> tiers = subscriptionRetryTopics.tierTopics(subscription.topics());
+            for (int tier = 1; tier <= tiers.size(); tier++) {
+                Subscription tierSubscription = new Subscription(subscription.beanName(), subscription.consumer(),
+                        subscription.eventType(), tiers.get(tier - 1), subscription.groupId(), false, 1,
+                        DispatchMode.SERIAL);
+                startWorker(subscription.beanName() + "-retry" + tier, tierSubscription, factory, deduplication,
+                        subscriptionRetryTopics);
+            }
+        }
+    }
+
+    private void startWorker(String name,
+                             Subscription subscription,
+                             ConsumerFactory<?, ?> factory,
+                             @Nullable DeduplicationCache deduplication,
+                             @Nullable RetryTopics retryTopics) {
+        ConsumerWorker worker = new ConsumerWorker(
+                name,
+                subscription,
+                createConsumer(factory, subscription, name),
+                valueDeserializer(factory),
+                props,
+                meters::get,
+                subscription.dispatch() == DispatchMode.KEY_ORDERED
+                        ? new KeyOrderedDispatcher(dispatchExecutor())
+                        : null,
+                deduplication,
+                retryTopics);
+        Thread thread = new Thread(worker, "messaging-consumer-" + name);
+        workers.add(worker);
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Forwards failed records through a byte[] template derived from the Boot producer factory,
+     * so they reach the tier topics exactly as they were consumed.
+     */
+    @SuppressWarnings("unchecked")
+    private RetryTopics createRetryTopics() {
+        ProducerFactory<?, ?> factory = producerFactory.getIfAvailable();
+        if (factory == null) {
+            throw new IllegalStateException("Consumer retry topics are enabled but no Kafka ProducerFactory is configured");
+        }
+        retryTemplate = new KafkaTemplate<>(
+                (ProducerFactory<String, byte[]>) factory,
+                Map.of(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                        ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class));
+        ConsumerProperties.RetryTopics config = props.getRetryTopics();
+        return new RetryTopics(retryTemplate, config.getDelays(), retryProps, config.getSendTimeout());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        workers.forEach(ConsumerWorker::stop);
+        long deadline = System.nanoTime() + props.getShutdownTimeout().toNanos();
+        for (Thread thread : threads) {
+            try {
+                thread.join(Math.max(1, (deadline - System.nanoTime()) / 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+        threads.clear();
+        for (DeduplicationCache cache : deduplicationCaches) {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                log.warn("Closing deduplication cache failed", e);
+            }
+        }
+        deduplicationCaches.clear();
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdown();
+            dispatchExecutor = null;
+        }
+        if (retryTemplate != null) {
+            try {
+                retryTemplate.destroy();
+            } catch (Exception e) {
+                log.warn("Closing retry topic producer failed", e);
+            }
+            retryTemplate = null;
+        }
+    }
+
+    /**
+     * The subscription's id cache, or {@code null} when deduplication is disabled.
+     */
+    @Nullable
+    private DeduplicationCache deduplicationCache(Subscription subscription) {
+        ConsumerProperties.Deduplication config = props.getDeduplication();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        long ttlMillis = config.getTtl().toMillis();
+        DeduplicationCache cache;
+        if (StringUtils.hasText(config.getDirectory())) {
+            Path file = Path.of(config.getDirectory(), subscription.beanName() + DeduplicationCache.SUFFIX);
+            try {
+                cache = DeduplicationCache.mapped(file, config.getMaxEntries(), ttlMillis);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open deduplication cache " + file, e);
+            }
+        } else {
+            cache = DeduplicationCache.offHeap(config.getMaxEntries(), ttlMillis);
+        }
+        deduplicationCaches.add(cache);
+        return cache;
+    }
+
+    private ExecutorService dispatchExecutor() {
+        if (dispatchExecutor == null) {
+            dispatchExecutor = DispatchExecutors.create(props.getDispatchThreads());
+        }
+        return dispatchExecutor;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Subscription> resolveSubscriptions() {
+        List<Subscription> subscriptions = new ArrayList<>();
+        Map<String, EventConsumer> beans = context.getBeansOfType(EventConsumer.class);
+        beans.forEach((beanName, bean) -> {
+            Class<?> targetClass = AopUtils.getTargetClass(bean);
+            EventSubscription annotation = AnnotationUtils.findAnnotation(targetClass, EventSubscription.class);
+            if (annotation == null) {
+                log.warn("EventConsumer bean has no @EventSubscription → not started [bean={}]", beanName);
+                return;
+            }
+            if (annotation.batch() && annotation.dispatch() == DispatchMode.KEY_ORDERED) {
+                throw new IllegalStateException("@EventSubscription on bean '" + beanName
+                        + "' combines batch=true with KEY_ORDERED dispatch");
+            }
+            String groupId = StringUtils.hasText(annotation.groupId()) ? annotation.groupId() : null;
+            int concurrency = annotation.concurrency() > 0 ? annotation.concurrency() : Math.max(1, props.getConcurrency());
+            Class<?> eventType = ResolvableType.forClass(targetClass).as(EventConsumer.class).resolveGeneric(0);
+            subscriptions.add(new Subscription(beanName, (EventConsumer<Object>) bean, eventType,
+                    List.copyOf(Arrays.asList(annotation.topics())), groupId, annotation.batch(), concurrency,
+                    annotation.dispatch()));
+        });
+        return subscriptions;
+    }
+
+    private Properties consumerOverrides() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, props.getMaxPollRecords());
+        overrides.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, props.getFetchMinBytes());
+        overrides.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) props.getFetchMaxWait().toMillis());
+        overrides.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, props.getMaxPartitionFetchBytes());
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        return overrides;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, byte[]> createConsumer(ConsumerFactory<?, ?> factory, Subscription subscription, String name) {
+        return (Consumer<String, byte[]>) factory.createConsumer(subscription.groupId(), null, "-" + name, consumerOverrides());
+    }
+
+    /**
+     * The value deserializer configured for the application (spring.kafka.consumer.value-deserializer),
+     * applied by the engine instead of the Kafka consumer.
+     */
+    @SuppressWarnings("unchecked")
+    private Deserializer<Object> valueDeserializer(ConsumerFactory<?, ?> factory) {
+        if (factory.getValueDeserializer() != null) {
+            return (Deserializer<Object>) factory.getValueDeserializer();
+        }
+        Map<String, Object> configs = factory.getConfigurationProperties();
+        Object configured = configs.get(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG);
+        Deserializer<Object> deserializer;
+        try {
+            if (configured == null) {
+                deserializer = (Deserializer<Object>) (Deserializer<?>) new ByteArrayDeserializer();
+            } else if (configured instanceof Class<?> type) {
+                deserializer = (Deserializer<Object>) Utils.newInstance(type);
+            } else {
+                deserializer = Utils.newInstance(configured.toString(), Deserializer.class);
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Value deserializer class not found: " + configured, e);
+        }
+        deserializer.configure(configs, false);
+        return deserializer;
+    }
+}
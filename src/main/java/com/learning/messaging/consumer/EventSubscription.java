@@ -0,0 +1,48 @@
+package com.learning.messaging.consumer;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares which topics an {@link EventConsumer} bean is subscribed to.
+ *
+ * <pre>
+ * &#64;Component
+ * &#64;EventSubscription(topics = "orders")
+ * public class OrderConsumer implements EventConsumer&lt;OrderEvent&gt; { ... }
+ * </pre>
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EventSubscription {
+
+    /**
+     * Topics to subscribe to.
+     */
+    String[] topics();
+
+    /**
+     * Consumer group; empty means {@code spring.kafka.consumer.group-id}.
+     */
+    String groupId() default "";
+
+    /**
+     * Deliver each poll through {@link EventConsumer#onEvents} instead of per-record {@link EventConsumer#onEvent}.
+     */
+    boolean batch() default false;
+
+    /**
+     * Number of Kafka consumers (poll threads); 0 means {@code messaging.consumer.concurrency}.
+     */
+    int concurrency() default 0;
+
+    /**
+     * How records are dispatched to the handler.
+     * {@link DispatchMode#KEY_ORDERED} cannot be combined with {@link #batch()}.
+     */
+    DispatchMode dispatch() default DispatchMode.SERIAL;
+}
@@ -0,0 +1,111 @@
+package com.learning.messaging.consumer;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs tasks concurrently while keeping tasks with the same key in submission order.
+ * <p>
+ * - Each key with pending work has a FIFO queue; one executor task drains it
+ * - Keys without pending work cost nothing, so memory is bounded by in-flight records
+ * - Tasks with a {@code null} key have no ordering constraint and run independently
+ */
+class KeyOrderedDispatcher {
+
+    private final Executor executor;
+    private final ConcurrentHashMap<Object, ArrayDeque<Runnable>> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition idle = idleLock.newCondition();
+
+    KeyOrderedDispatcher(Executor executor) {
+        this.executor = executor;
+    }
+
+    void submit(Object key, Runnable task) {
+        inFlight.incrementAndGet();
+        if (key == null) {
+            executor.execute(() -> runAndRelease(task));
+            return;
+        }
+        boolean[] created = new boolean[1];
+        queues.compute(key, (k, queue) -> {
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                created[0] = true;
+            }
+            queue.addLast(task);
+            return queue;
+        });
+        if (created[0]) {
+            executor.execute(() -> drain(key, task));
+        }
+    }
+
+    /**
+     * Run the head task of the key's queue, then keep going until the queue is empty.
+     * The queue is removed atomically with its last task, so a concurrent submit either
+     * sees the queue (and its task is picked up here) or creates a new one.
+     */
+    private void drain(Object key, Runnable first) {
+        Runnable task = first;
+        while (task != null) {
+            runAndRelease(task);
+            Runnable[] next = new Runnable[1];
+            queues.compute(key, (k, queue) -> {
+                queue.pollFirst();
+                next[0] = queue.peekFirst();
+                return queue.isEmpty() ? null : queue;
+            });
+            task = next[0];
+        }
+    }
+
+    private void runAndRelease(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            if (inFlight.decrementAndGet() == 0) {
+                idleLock.lock();
+                try {
+                    idle.signalAll();
+                } finally {
+                    idleLock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of submitted tasks that have not finished.
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Wait until all submitted tasks have finished.
+     *
+     * @return {@code true} if idle, {@code false} if the timeout elapsed first
+     */
+    boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        idleLock.lock();
+        try {
+            while (inFlight.get() > 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = idle.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            idleLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.learning.messaging.consumer;
+
+import java.util.ArrayDeque;
+
+/**
+ * Tracks the offsets of one partition that were dispatched for concurrent processing.
+ * <p>
+ * Records complete out of order, but only the contiguous prefix of completed offsets
+ * may be committed: committing past an unfinished record would lose it on a crash.
+ * Offsets are added and committed by the poll thread; {@link Slot#complete()} may be
+ * called from any thread.
+ */
+class OffsetTracker {
+
+    private final ArrayDeque<Slot> slots = new ArrayDeque<>();
+    private long committable = -1;
+
+    /**
+     * Register a dispatched offset (offsets must be added in increasing order).
+     */
+    Slot add(long offset) {
+        Slot slot = new Slot(offset);
+        slots.addLast(slot);
+        return slot;
+    }
+
+    /**
+     * Advance past the completed prefix.
+     *
+     * @return the offset to commit (next offset to consume), or -1 if nothing new completed
+     */
+    long advance() {
+        long next = -1;
+        Slot head;
+        while ((head = slots.peekFirst()) != null && head.done) {
+            slots.pollFirst();
+            next = head.offset + 1;
+        }
+        if (next > committable) {
+            committable = next;
+            return next;
+        }
+        return -1;
+    }
+
+    /**
+     * Number of dispatched offsets not yet committed past.
+     */
+    int pending() {
+        return slots.size();
+    }
+
+    /**
+     * Completion flag of one dispatched record.
+     */
+    static final class Slot {
+        private final long offset;
+        private volatile boolean done;
+
+        private Slot(long offset) {
+            this.offset = offset;
+        }
+
+        void complete() {
+            done = true;
+        }
+    }
+}
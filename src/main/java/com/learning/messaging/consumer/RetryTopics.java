@@ -0,0 +1,167 @@
+package com.learning.messaging.consumer;
+
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.headers.MessagingHeaders;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Chain of delay topics a failed record moves through instead of blocking its partition.
+ * <p>
+ * - Tier {@code n} of topic {@code orders} is {@code orders.retry.<delay n>} (e.g. {@code orders.retry.1s},
+ *   {@code orders.retry.30s}); after the last tier the record goes to
+ *   {@link RetryProperties#resolveDlqTopic} of the original topic
+ * - Records are forwarded as they were consumed (key, value, headers), plus the original topic,
+ *   tier, due time and error headers; the DLQ copy carries the same headers as producer-side DLQ records
+ *   (so it can be replayed) and no tier or due time
+ * - Each tier topic has the same delay for all its records, so a partition's records become due in
+ *   offset order and a tier consumer only has to wait for the head of each partition
+ */
+final class RetryTopics {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
+
+    private static final Set<String> FORWARDING_HEADERS = Set.of(
+            MessagingHeaders.ORIGINAL_TOPIC, MessagingHeaders.RETRY_TIER, MessagingHeaders.DUE_AT,
+            MessagingHeaders.ERROR_CLASS, MessagingHeaders.ERROR_MESSAGE, MessagingHeaders.ATTEMPTS,
+            MessagingHeaders.FAILED_AT);
+
+    private final KafkaTemplate<String, byte[]> template;
+    private final List<Duration> delays;
+    private final RetryProperties retryProps;
+    private final Duration sendTimeout;
+
+    /**
+     * @param template    sends the forwarded records
+     * @param delays      delay of each tier, in order
+     * @param retryProps  resolves the DLQ topic after the last tier
+     * @param sendTimeout maximum time to wait for the broker to acknowledge a forwarded record
+     */
+    RetryTopics(KafkaTemplate<String, byte[]> template, List<Duration> delays, RetryProperties retryProps,
+                Duration sendTimeout) {
+        this.template = template;
+        this.delays = List.copyOf(delays);
+        this.retryProps = retryProps;
+        this.sendTimeout = sendTimeout;
+    }
+
+    int tiers() {
+        return delays.size();
+    }
+
+    /**
+     * Topic of tier {@code tier} (1-based) for records of {@code topic}.
+     */
+    String tierTopic(String topic, int tier) {
+        return topic + ".retry." + label(delays.get(tier - 1));
+    }
+
+    /**
+     * All tier topics of the given topics, tier by tier.
+     */
+    List<List<String>> tierTopics(List<String> topics) {
+        List<List<String>> tiers = new ArrayList<>(delays.size());
+        for (int tier = 1; tier <= delays.size(); tier++) {
+            List<String> tierTopics = new ArrayList<>(topics.size());
+            for (String topic : topics) {
+                tierTopics.add(tierTopic(topic, tier));
+            }
+            tiers.add(List.copyOf(tierTopics));
+        }
+        return tiers;
+    }
+
+    /**
+     * Send a record whose handler failed to its next tier, or to the DLQ after the last one,
+     * and wait for the broker to acknowledge it.
+     *
+     * @return the topic it was forwarded to
+     */
+    String forward(ConsumerRecord<String, byte[]> record, Exception error)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        String originalTopic = header(record, MessagingHeaders.ORIGINAL_TOPIC);
+        if (originalTopic == null) {
+            originalTopic = record.topic();
+        }
+        String tierHeader = header(record, MessagingHeaders.RETRY_TIER);
+        int tier = tierHeader != null ? Integer.parseInt(tierHeader) + 1 : 1;
+        long now = System.currentTimeMillis();
+
+        Headers headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!FORWARDING_HEADERS.contains(header.key())) {
+                headers.add(header);
+            }
+        }
+        add(headers, MessagingHeaders.ORIGINAL_TOPIC, originalTopic);
+        String target;
+        if (tier <= delays.size()) {
+            target = tierTopic(originalTopic, tier);
+            add(headers, MessagingHeaders.RETRY_TIER, Integer.toString(tier));
+            add(headers, MessagingHeaders.DUE_AT, Long.toString(now + delays.get(tier - 1).toMillis()));
+        } else {
+            target = retryProps.resolveDlqTopic(originalTopic);
+        }
+        add(headers, MessagingHeaders.ATTEMPTS, Integer.toString(tier));
+        add(headers, MessagingHeaders.FAILED_AT, Long.toString(now));
+        add(headers, MessagingHeaders.ERROR_CLASS, error.getClass().getName());
+        String message = error.getMessage();
+        if (message != null && message.length() > MAX_ERROR_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+        }
+        add(headers, MessagingHeaders.ERROR_MESSAGE, message);
+
+        template.send(new ProducerRecord<>(target, null, record.key(), record.value(), headers))
+                .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        return target;
+    }
+
+    /**
+     * Epoch millis when a tier record may be handled, 0 for records that are not waiting.
+     */
+    static long dueAt(ConsumerRecord<String, byte[]> record) {
+        String dueAt = header(record, MessagingHeaders.DUE_AT);
+        return dueAt != null ? Long.parseLong(dueAt) : 0;
+    }
+
+    /**
+     * {@code 500ms}, {@code 30s}, {@code 5m}, {@code 2h}: the largest unit that divides the delay.
+     */
+    static String label(Duration delay) {
+        long millis = delay.toMillis();
+        if (millis % 3_600_000 == 0 && millis > 0) {
+            return millis / 3_600_000 + "h";
+        }
+        if (millis % 60_000 == 0 && millis > 0) {
+            return millis / 60_000 + "m";
+        }
+        if (millis % 1_000 == 0 && millis > 0) {
+            return millis / 1_000 + "s";
+        }
+        return millis + "ms";
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static void add(Headers headers, String name, String value) {
+        if (value != null) {
+            headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
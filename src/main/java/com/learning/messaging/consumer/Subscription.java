@@ -0,0 +1,27 @@
+package com.learning.messaging.consumer;
+
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Resolved subscription of one {@link EventConsumer} bean.
+ *
+ * @param beanName   name of the consumer bean
+ * @param consumer   the consumer bean
+ * @param eventType  event type resolved from {@code EventConsumer<T>}, {@code null} if unresolvable
+ * @param topics     subscribed topics
+ * @param groupId    consumer group
+ * @param batch      whether events are delivered through {@link EventConsumer#onEvents}
+ * @param concurrency number of Kafka consumers (poll threads)
+ * @param dispatch   how records are dispatched to the handler
+ */
+record Subscription(String beanName,
+                    EventConsumer<Object> consumer,
+                    @Nullable Class<?> eventType,
+                    List<String> topics,
+                    String groupId,
+                    boolean batch,
+                    int concurrency,
+                    DispatchMode dispatch) {
+}
@@ -0,0 +1,68 @@
+package com.learning.messaging.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Immutable DTO representing the outcome of publishing a batch of events.
+ *
+ * <p>{@link #results} holds one {@link PublishResult} per record, in the same order
+ * as the records passed to {@code sendAll}. Client services should make per-record
+ * decisions based on each result's {@link PublishResult#getStatus() status}.</p>
+ */
+@Value
+public class BatchPublishResult {
+
+    /**
+     * Kafka topic the batch was published to.
+     */
+    String topic;
+
+    /**
+     * Per-record results, index-aligned with the submitted records.
+     */
+    List<PublishResult> results;
+
+    /**
+     * Number of records that were published successfully.
+     */
+    int succeeded;
+
+    /**
+     * Number of records that still failed after retries were exhausted.
+     */
+    int failed;
+
+    /**
+     * Number of send rounds used (1 = no retries were needed).
+     */
+    int attempts;
+
+    /**
+     * TraceId shared by all records of the batch.
+     */
+    String traceId;
+
+    /**
+     * Whether every record of the batch was published successfully.
+     */
+    public boolean isAllSucceeded() {
+        return failed == 0;
+    }
+
+    // ---- Factory methods ----
+
+    /**
+     * Build a batch result from per-record results, deriving the success/failure counts.
+     */
+    public static BatchPublishResult of(String topic, List<PublishResult> results, int attempts, String traceId) {
+        int succeeded = 0;
+        for (PublishResult result : results) {
+            if (result.getStatus() == PublishResult.Status.SUCCESS) {
+                succeeded++;
+            }
+        }
+        return new BatchPublishResult(topic, results, succeeded, results.size() - succeeded, attempts, traceId);
+    }
+}
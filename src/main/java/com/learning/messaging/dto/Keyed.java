@@ -0,0 +1,43 @@
+package com.learning.messaging.dto;
+
+import lombok.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * An event paired with its optional partitioning key, used for batch publishing.
+ *
+ * @param <T> the type of event payload
+ */
+@Value
+public class Keyed<T> {
+
+    /**
+     * Optional partitioning key.
+     * <p>{@code null} lets Kafka choose the partition.</p>
+     */
+    String key;
+
+    /**
+     * The event payload.
+     */
+    T event;
+
+    /**
+     * Message id to send the event with, for redelivering a record that already has one
+     * (e.g. a DLQ replay); {@code null} lets the producer generate a new one.
+     */
+    String messageId;
+
+    public static <T> Keyed<T> of(@Nullable String key, @NonNull T event) {
+        return new Keyed<>(key, event, null);
+    }
+
+    public static <T> Keyed<T> of(@NonNull T event) {
+        return new Keyed<>(null, event, null);
+    }
+
+    public static <T> Keyed<T> of(@Nullable String key, @NonNull T event, @Nullable String messageId) {
+        return new Keyed<>(key, event, messageId);
+    }
+}
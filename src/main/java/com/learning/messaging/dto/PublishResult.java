@@ -11,7 +11,7 @@ import java.time.Instant;
  * <ul>
  *   <li><b>Business-use fields</b>: {@link #status}, {@link #error}.
  *       These determine how client services should react (e.g. retry, DLQ handling).</li>
- *   <li><b>Operational/debug fields</b>: {@link #topic}, {@link #partition}, {@link #offset}, {@link #traceId}, {@link #timestamp}.
+ *   <li><b>Operational/debug fields</b>: {@link #topic}, {@link #partition}, {@link #offset}, {@link #traceId}, {@link #timestampMillis}.
  *       These are for observability, logging, metrics, and debugging only — not for business logic.</li>
  * </ul>
  *
@@ -33,16 +33,14 @@ public class PublishResult {
     String topic;
 
     /**
-     * Partition assigned by Kafka.
-     * <p>May be {@code null} if unknown or if the record failed before partition assignment.</p>
+     * Partition assigned by Kafka, -1 if unknown (kept primitive: no boxing per send).
      */
-    Integer partition;
+    int partition;
 
     /**
-     * Offset within the partition.
-     * <p>May be {@code null} if the record never made it to a partition (e.g. failure).</p>
+     * Offset within the partition, -1 if unknown.
      */
-    Long offset;
+    long offset;
 
     /**
      * Exception that caused the failure, if any.
@@ -57,35 +55,69 @@ public class PublishResult {
     String traceId;
 
     /**
-     * Instant when the publish attempt finished.
+     * Epoch millis when the publish attempt finished; see {@link #getTimestamp()}.
      */
-    Instant timestamp;
+    long timestampMillis;
 
     /**
      * Status of the publish result.
      */
     public enum Status { SUCCESS, FAILED, DLQ }
 
+    private PublishResult(Status status, String topic, int partition, long offset,
+                          Throwable error, String traceId, long timestampMillis) {
+        this.status = status;
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.error = error;
+        this.traceId = traceId;
+        this.timestampMillis = timestampMillis;
+    }
+
+    /**
+     * Partition assigned by Kafka.
+     * <p>May be {@code null} if unknown or if the record failed before partition assignment.</p>
+     */
+    public Integer getPartition() {
+        return partition >= 0 ? partition : null;
+    }
+
+    /**
+     * Offset within the partition.
+     * <p>May be {@code null} if the record never made it to a partition (e.g. failure).</p>
+     */
+    public Long getOffset() {
+        return offset >= 0 ? offset : null;
+    }
+
+    /**
+     * Instant when the publish attempt finished (created on each call, from {@link #getTimestampMillis()}).
+     */
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(timestampMillis);
+    }
+
     // ---- Factory methods ----
 
     /**
      * Successful publish result.
      */
     public static PublishResult success(String topic, int partition, long offset, String traceId) {
-        return new PublishResult(Status.SUCCESS, topic, partition, offset, null, traceId, Instant.now());
+        return new PublishResult(Status.SUCCESS, topic, partition, offset, null, traceId, System.currentTimeMillis());
     }
 
     /**
      * Failed publish result.
      */
     public static PublishResult failed(String topic, Throwable error, String traceId) {
-        return new PublishResult(Status.FAILED, topic, null, null, error, traceId, Instant.now());
+        return new PublishResult(Status.FAILED, topic, -1, -1, error, traceId, System.currentTimeMillis());
     }
 
     /**
      * Dead-lettered publish result (when message is pushed to DLQ).
      */
     public static PublishResult dlq(String dlqTopic, Throwable error, String traceId) {
-        return new PublishResult(Status.DLQ, dlqTopic, null, null, error, traceId, Instant.now());
+        return new PublishResult(Status.DLQ, dlqTopic, -1, -1, error, traceId, System.currentTimeMillis());
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.learning.messaging.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Raised when a send is rejected because the producer's in-flight limit is reached.
+ * Carried as the error of a {@code FAILED} PublishResult; never retried.
+ */
+@Getter
+public class ProducerSaturatedException extends RuntimeException {
+
+    private final String topic;
+    private final Reason reason;
+
+    public ProducerSaturatedException(String topic, Reason reason) {
+        super("Producer saturated for topic=" + topic + ", reason=" + reason);
+        this.topic = topic;
+        this.reason = reason;
+    }
+
+    /**
+     * Why the send was rejected.
+     */
+    public enum Reason {
+        /** Limit reached and the overflow policy does not wait. */
+        FULL,
+        /** Waited blockTimeoutMs without capacity becoming available. */
+        TIMEOUT,
+        /** LOW priority traffic shed above the watermark. */
+        SHED
+    }
+}
@@ -0,0 +1,30 @@
+package com.learning.messaging.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Raised when an attempt is not made because the topic's circuit is open,
+ * or a retry is not scheduled because the topic's retry budget is spent.
+ */
+@Getter
+public class RetryRejectedException extends RuntimeException {
+
+    private final String topic;
+    private final Reason reason;
+
+    public RetryRejectedException(String topic, Reason reason) {
+        super("Retry rejected for topic=" + topic + ", reason=" + reason);
+        this.topic = topic;
+        this.reason = reason;
+    }
+
+    /**
+     * Why the attempt was rejected.
+     */
+    public enum Reason {
+        /** The topic's circuit breaker is open (or out of half-open probes). */
+        CIRCUIT_OPEN,
+        /** Retries for the topic exceed the configured share of first attempts. */
+        BUDGET_EXHAUSTED
+    }
+}
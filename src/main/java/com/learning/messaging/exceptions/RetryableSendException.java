@@ -1,12 +1,17 @@
 package com.learning.messaging.exceptions;
 
+import com.learning.messaging.serialization.EncodedEvent;
 import lombok.Getter;
+import org.springframework.lang.Nullable;
 
 import java.time.Instant;
 
 /**
  * Wrapper exception for exhausted retries.
- * Bundles context (topic, key, event, traceId, timestamp, cause).
+ * Bundles context (topic, key, event, traceId, attempts, timestamp, cause).
+ * <p>
+ * {@link #getEncoded()} holds the bytes the event was sent as, so handlers can forward
+ * it without encoding it again ({@code null} when the event was never encoded).
  */
 @Getter
 public class RetryableSendException extends RuntimeException {
@@ -15,13 +20,42 @@ public class RetryableSendException extends RuntimeException {
     private final String key;
     private final Object event;
     private final String traceId;
+    private final int attempts;
     private final Instant timestamp;
+    @Nullable
+    private final EncodedEvent encoded;
 
     public RetryableSendException(String topic,
                                   String key,
                                   Object event,
                                   String traceId,
                                   Throwable cause) {
+        this(topic, key, event, traceId, 1, cause);
+    }
+
+    /**
+     * @param attempts number of attempts made before giving up (0 if none was made)
+     */
+    public RetryableSendException(String topic,
+                                  String key,
+                                  Object event,
+                                  String traceId,
+                                  int attempts,
+                                  Throwable cause) {
+        this(topic, key, event, null, traceId, attempts, cause);
+    }
+
+    /**
+     * @param encoded  the event as sent (nullable)
+     * @param attempts number of attempts made before giving up (0 if none was made)
+     */
+    public RetryableSendException(String topic,
+                                  String key,
+                                  Object event,
+                                  @Nullable EncodedEvent encoded,
+                                  String traceId,
+                                  int attempts,
+                                  Throwable cause) {
         super("Retries exhausted for topic=" + topic +
                         ", key=" + key +
                         ", traceId=" + traceId +
@@ -31,7 +65,9 @@ public class RetryableSendException extends RuntimeException {
         this.topic = topic;
         this.key = key;
         this.event = event;
+        this.encoded = encoded;
         this.traceId = traceId;
+        this.attempts = attempts;
         this.timestamp = Instant.now();
     }
 }
\ No newline at end of file
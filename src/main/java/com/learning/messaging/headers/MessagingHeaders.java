@@ -0,0 +1,49 @@
+package com.learning.messaging.headers;
+
+/**
+ * Kafka record header names written by messaging-core.
+ */
+public final class MessagingHeaders {
+
+    /** traceId of the send that produced the record. */
+    public static final String TRACE_ID = "x-trace-id";
+
+    /**
+     * Unique id of the record, generated once per {@code EventProducer} send and kept by retries,
+     * the DLQ and DLQ replays; consumers use it to drop duplicate deliveries.
+     */
+    public static final String MESSAGE_ID = "x-message-id";
+
+    /** DLQ: topic the record was originally sent to. */
+    public static final String ORIGINAL_TOPIC = "x-original-topic";
+
+    /** DLQ: class name of the error that made the record fail. */
+    public static final String ERROR_CLASS = "x-error-class";
+
+    /** DLQ: message of the error that made the record fail. */
+    public static final String ERROR_MESSAGE = "x-error-message";
+
+    /** DLQ: number of send attempts made before giving up (decimal string). */
+    public static final String ATTEMPTS = "x-attempts";
+
+    /** DLQ: epoch millis when retries were exhausted (decimal string). */
+    public static final String FAILED_AT = "x-failed-at";
+
+    /** Consumer retry topics: tier the record was forwarded to (1-based decimal string). */
+    public static final String RETRY_TIER = "x-retry-tier";
+
+    /** Consumer retry topics: epoch millis before which the record is not handled (decimal string). */
+    public static final String DUE_AT = "x-due-at";
+
+    /** Content type of the value, set by the {@link com.learning.messaging.serialization.EventCodec} that encoded it. */
+    public static final String CONTENT_TYPE = "x-content-type";
+
+    /**
+     * Class name of the encoded event; the same header Spring's {@code JsonDeserializer} reads,
+     * so JSON records stay readable by consumers not using messaging-core.
+     */
+    public static final String TYPE_ID = "__TypeId__";
+
+    private MessagingHeaders() {
+    }
+}
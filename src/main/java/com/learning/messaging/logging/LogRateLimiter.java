@@ -0,0 +1,62 @@
+package com.learning.messaging.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed one-second window of log permits.
+ * <p>
+ * Denied lines are counted; the next permitted line (or the summary) reports them
+ * via {@link #drainSuppressed()}.
+ */
+final class LogRateLimiter {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int permitsPerSecond;
+    private final LongSupplier clock;
+    private final long origin;
+    /** Window number (high 32 bits) and permits used in it (low 32 bits), updated together. */
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    LogRateLimiter(int permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    LogRateLimiter(int permitsPerSecond, LongSupplier clock) {
+        this.permitsPerSecond = Math.max(0, permitsPerSecond);
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+    }
+
+    /**
+     * @return whether the line may be logged; {@code false} counts it as suppressed
+     */
+    boolean tryAcquire() {
+        long now = ((clock.getAsLong() - origin) / WINDOW_NANOS) & 0xFFFF_FFFFL;
+        while (true) {
+            long state = window.get();
+            long stateWindow = state >>> 32;
+            // a thread that read the clock late never moves the window back
+            boolean newWindow = (int) (now - stateWindow) > 0;
+            long used = newWindow ? 0 : (int) state;
+            if (used >= permitsPerSecond) {
+                suppressed.incrementAndGet();
+                return false;
+            }
+            long next = (newWindow ? now : stateWindow) << 32 | (used + 1);
+            if (window.compareAndSet(state, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Lines suppressed since the last call.
+     */
+    long drainSuppressed() {
+        return suppressed.getAndSet(0);
+    }
+}
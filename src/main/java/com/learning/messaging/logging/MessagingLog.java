@@ -0,0 +1,271 @@
+package com.learning.messaging.logging;
+
+import com.learning.messaging.config.LoggingProperties;
+import com.learning.messaging.exceptions.RetryableSendException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logging facade for the publish path.
+ * <p>
+ * - Successful publishes are counted; only a sampled fraction is logged individually
+ *   (messaging.logging.sample-rate, per topic via topic-sample-rates)
+ * - Failed attempts are logged without stack traces and rate-limited per topic;
+ *   lines over the limit are counted and reported as {@code suppressed}
+ * - Every summary interval, one line per active topic: produced, failed attempts, recovered,
+ *   exhausted and suppressed counts
+ * - Exhausted records keep full detail (stack trace, truncated payload), under their own, higher limit
+ * <p>
+ * Counting is a map lookup and a {@link LongAdder} increment; nothing is formatted unless a line is written.
+ */
+@Slf4j
+@Component
+public class MessagingLog implements SmartLifecycle {
+
+    private final LoggingProperties props;
+    private final Map<String, TopicLog> topics = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService summaryTimer;
+    private long intervalStartNanos = System.nanoTime();
+
+    public MessagingLog(LoggingProperties props) {
+        this.props = props;
+    }
+
+    private TopicLog topic(String topic) {
+        TopicLog topicLog = topics.get(topic);
+        return topicLog != null ? topicLog : topics.computeIfAbsent(topic, this::createTopicLog);
+    }
+
+    private TopicLog createTopicLog(String topic) {
+        return new TopicLog(props.sampleRateFor(topic),
+                new LogRateLimiter(props.getFailureLogsPerSecond()),
+                new LogRateLimiter(props.getExhaustedLogsPerSecond()));
+    }
+
+    private static boolean sampled(TopicLog topicLog) {
+        double rate = topicLog.sampleRate;
+        return rate > 0 && log.isInfoEnabled() && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    /**
+     * A record was acknowledged by the broker.
+     */
+    public void produced(String topic, String key, int partition, long offset, String traceId) {
+        TopicLog topicLog = topic(topic);
+        topicLog.produced.increment();
+        if (sampled(topicLog)) {
+            log.info("✅ produced [topic={}, key={}, partition={}, offset={}, traceId={}]",
+                    topic, key, partition, offset, traceId);
+        }
+    }
+
+    /**
+     * A batch reached its final outcome.
+     */
+    public void producedBatch(String topic, int records, int succeeded, int failed, int attempts, String traceId) {
+        TopicLog topicLog = topic(topic);
+        topicLog.produced.add(succeeded);
+        if (sampled(topicLog)) {
+            log.info("✅ produced batch [topic={}, records={}, succeeded={}, failed={}, attempts={}, traceId={}]",
+                    topic, records, succeeded, failed, attempts, traceId);
+        }
+    }
+
+    /**
+     * A retried record succeeded on attempt {@code attemptNo} (first attempts are not reported here).
+     */
+    public void recovered(String topic, String key, int attemptNo, String traceId) {
+        TopicLog topicLog = topic(topic);
+        topicLog.recovered.increment();
+        if (sampled(topicLog)) {
+            log.info("Retry attempt success [topic={}, key={}, attempt={}, traceId={}]", topic, key, attemptNo, traceId);
+        }
+    }
+
+    /**
+     * An attempt failed and a retry was scheduled.
+     */
+    public void retryScheduled(String topic, String key, int attemptNo, long delayMs, String traceId, Throwable error) {
+        TopicLog topicLog = topic(topic);
+        topicLog.failedAttempts.increment();
+        if (!log.isWarnEnabled()) {
+            return;
+        }
+        if (topicLog.failureLogs.tryAcquire()) {
+            log.warn("Retry attempt failed → scheduling retry [topic={}, key={}, attempt={}, nextAttempt={}, delayMs={}, traceId={}, error={}, suppressed={}]",
+                    topic, key, attemptNo, attemptNo + 1, delayMs, traceId, error.toString(),
+                    topicLog.failureLogs.drainSuppressed());
+        } else {
+            topicLog.suppressed.increment();
+        }
+    }
+
+    /**
+     * Some records of a batch round failed and are scheduled for the next round.
+     */
+    public void batchRetryScheduled(String topic, int failed, int of, int attemptNo, long delayMs, String traceId,
+                                    Throwable error) {
+        TopicLog topicLog = topic(topic);
+        topicLog.failedAttempts.add(failed);
+        if (!log.isWarnEnabled()) {
+            return;
+        }
+        if (topicLog.failureLogs.tryAcquire()) {
+            log.warn("Batch attempt partially failed → scheduling retry [topic={}, failed={}, of={}, attempt={}, nextAttempt={}, delayMs={}, traceId={}, error={}, suppressed={}]",
+                    topic, failed, of, attemptNo, attemptNo + 1, delayMs, traceId, error.toString(),
+                    topicLog.failureLogs.drainSuppressed());
+        } else {
+            topicLog.suppressed.increment();
+        }
+    }
+
+    /**
+     * A record was handed to the exhausted handlers: logged with full detail, within the exhausted-line limit.
+     */
+    public void exhausted(RetryableSendException error) {
+        TopicLog topicLog = topic(error.getTopic());
+        topicLog.exhausted.increment();
+        if (!log.isErrorEnabled()) {
+            return;
+        }
+        if (topicLog.exhaustedLogs.tryAcquire()) {
+            log.error("Exhausted retries [topic={}, key={}, attempts={}, traceId={}, timestamp={}, event={}, error={}, suppressed={}]",
+                    error.getTopic(),
+                    error.getKey(),
+                    error.getAttempts(),
+                    error.getTraceId(),
+                    error.getTimestamp(),
+                    truncate(String.valueOf(error.getEvent()), props.getMaxPayloadChars()),
+                    String.valueOf(error.getCause()),
+                    topicLog.exhaustedLogs.drainSuppressed(),
+                    error.getCause());
+        } else {
+            topicLog.suppressed.increment();
+        }
+    }
+
+    private static String truncate(String value, int maxChars) {
+        if (maxChars < 0 || value.length() <= maxChars) {
+            return value;
+        }
+        return value.substring(0, maxChars) + "…(" + value.length() + " chars)";
+    }
+
+    /**
+     * Per-topic counts since the previous call; topics without activity are left out.
+     * Idle topics keep their entry: another thread may hold it between lookup and increment,
+     * and counts added to a removed entry would never be reported.
+     */
+    List<TopicSummary> summarize() {
+        List<TopicSummary> summaries = new ArrayList<>();
+        topics.forEach((topic, topicLog) -> {
+            TopicSummary summary = new TopicSummary(topic,
+                    topicLog.produced.sumThenReset(),
+                    topicLog.failedAttempts.sumThenReset(),
+                    topicLog.recovered.sumThenReset(),
+                    topicLog.exhausted.sumThenReset(),
+                    topicLog.suppressed.sumThenReset());
+            if (!summary.isEmpty()) {
+                summaries.add(summary);
+            }
+        });
+        return summaries;
+    }
+
+    void logSummary() {
+        long now = System.nanoTime();
+        Duration interval = Duration.ofNanos(now - intervalStartNanos);
+        intervalStartNanos = now;
+        for (TopicSummary summary : summarize()) {
+            log.info("📊 Publish summary [topic={}, interval={}, produced={}, failedAttempts={}, recovered={}, exhausted={}, suppressedLogs={}]",
+                    summary.topic(), interval, summary.produced(), summary.failedAttempts(),
+                    summary.recovered(), summary.exhausted(), summary.suppressed());
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (summaryTimer != null) {
+            return;
+        }
+        summaryTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "messaging-log-summary");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalMs = props.getSummaryInterval().toMillis();
+        if (intervalMs > 0) {
+            intervalStartNanos = System.nanoTime();
+            summaryTimer.scheduleAtFixedRate(this::logSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void logSafely() {
+        try {
+            logSummary();
+        } catch (RuntimeException e) {
+            log.warn("Publish summary failed", e);
+        }
+    }
+
+    /**
+     * Writes a last summary so counts since the previous interval are not lost.
+     */
+    @Override
+    public synchronized void stop() {
+        if (summaryTimer == null) {
+            return;
+        }
+        summaryTimer.shutdownNow();
+        summaryTimer = null;
+        if (props.getSummaryInterval().toMillis() > 0) {
+            logSafely();
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return summaryTimer != null;
+    }
+
+    /**
+     * Counts of one topic over one summary interval.
+     */
+    record TopicSummary(String topic, long produced, long failedAttempts, long recovered, long exhausted,
+                        long suppressed) {
+
+        boolean isEmpty() {
+            return produced == 0 && failedAttempts == 0 && recovered == 0 && exhausted == 0 && suppressed == 0;
+        }
+    }
+
+    private static final class TopicLog {
+        private final double sampleRate;
+        private final LogRateLimiter failureLogs;
+        private final LogRateLimiter exhaustedLogs;
+        private final LongAdder produced = new LongAdder();
+        private final LongAdder failedAttempts = new LongAdder();
+        private final LongAdder recovered = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+
+        private TopicLog(double sampleRate, LogRateLimiter failureLogs, LogRateLimiter exhaustedLogs) {
+            this.sampleRate = sampleRate;
+            this.failureLogs = failureLogs;
+            this.exhaustedLogs = exhaustedLogs;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.learning.messaging.metrics;
+
+import com.learning.messaging.config.MetricsProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the latency timers and attempt histograms of the publish path.
+ * <p>
+ * - Percentiles are computed by Micrometer's HdrHistogram-based time-window histograms
+ * - Recording is a single {@code record(nanos)} call, no allocation per record
+ * - Returns {@code null} for topics where latency recording is switched off,
+ *   so callers can skip timing entirely
+ */
+@Component
+public class LatencyMeterFactory {
+
+    private final MeterRegistry meterRegistry;
+    private final MetricsProperties.Latency props;
+    private final double[] percentiles;
+    private final Duration[] slo;
+
+    public LatencyMeterFactory(MeterRegistry meterRegistry, MetricsProperties metricsProps) {
+        this.meterRegistry = meterRegistry;
+        this.props = metricsProps.getLatency();
+        this.percentiles = props.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray();
+        this.slo = props.getSlo().toArray(new Duration[0]);
+    }
+
+    /**
+     * Timer for the topic, or {@code null} if latency is not recorded for it.
+     */
+    @Nullable
+    public Timer timer(String name, String topic, String... extraTags) {
+        if (!props.isEnabledFor(topic)) {
+            return null;
+        }
+        return Timer.builder(name)
+                .tag("topic", topic)
+                .tags(extraTags)
+                .publishPercentiles(percentiles)
+                .publishPercentileHistogram(props.isHistogram())
+                .serviceLevelObjectives(slo)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(props.getMaxExpected())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Distribution summary for the topic, or {@code null} if latency is not recorded for it.
+     */
+    @Nullable
+    public DistributionSummary summary(String name, String topic) {
+        if (!props.isEnabledFor(topic)) {
+            return null;
+        }
+        return DistributionSummary.builder(name)
+                .tag("topic", topic)
+                .publishPercentiles(percentiles)
+                .publishPercentileHistogram(props.isHistogram())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos}, if the timer is enabled.
+     */
+    public static void recordSince(@Nullable Timer timer, long startNanos) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Remove a meter created by this factory from the registry (no-op for {@code null}).
+     */
+    public void remove(@Nullable Meter meter) {
+        if (meter != null) {
+            meterRegistry.remove(meter);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.learning.messaging.metrics;
+
+import com.learning.messaging.config.MetricsProperties;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded per-topic cache of resolved meter handles.
+ * <p>
+ * - Meters for a topic are resolved from the registry once, then reused on every record
+ * - Hits are a single map lookup, with no tag allocation
+ * - At most {@code maxTopics} topics are cached; when full, entries idle for longer than
+ *   {@code topicIdleTimeout} are evicted and their meters removed via {@code onEvict}
+ * - If nothing can be evicted, the topic is recorded under the shared {@link #OVERFLOW_TOPIC} meters
+ *
+ * @param <M> holder of the meters for one topic
+ */
+public class TopicMeterCache<M> {
+
+    /**
+     * Topic tag used once the cache is full.
+     */
+    public static final String OVERFLOW_TOPIC = "_overflow";
+
+    /** Access times are only refreshed at this granularity, to keep hits write-free. */
+    private static final long TOUCH_GRANULARITY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, Entry<M>> entries = new ConcurrentHashMap<>();
+    private final Function<String, M> loader;
+    private final Consumer<M> onEvict;
+    private final int maxTopics;
+    private final long idleTimeoutNanos;
+    private volatile M overflow;
+
+    public TopicMeterCache(Function<String, M> loader, Consumer<M> onEvict, int maxTopics, long idleTimeoutNanos) {
+        this.loader = loader;
+        this.onEvict = onEvict;
+        this.maxTopics = Math.max(1, maxTopics);
+        this.idleTimeoutNanos = idleTimeoutNanos;
+    }
+
+    public TopicMeterCache(Function<String, M> loader, Consumer<M> onEvict, MetricsProperties props) {
+        this(loader, onEvict, props.getMaxTopics(), props.getTopicIdleTimeout().toNanos());
+    }
+
+    /**
+     * Meters for a topic, resolving them on first use.
+     */
+    public M get(String topic) {
+        Entry<M> entry = entries.get(topic);
+        if (entry != null) {
+            entry.touch();
+            return entry.meters;
+        }
+        return load(topic);
+    }
+
+    private synchronized M load(String topic) {
+        Entry<M> entry = entries.get(topic);
+        if (entry != null) {
+            return entry.meters;
+        }
+        if (entries.size() >= maxTopics) {
+            evictIdle();
+            if (entries.size() >= maxTopics) {
+                return overflow();
+            }
+        }
+        entry = new Entry<>(loader.apply(topic));
+        entries.put(topic, entry);
+        return entry.meters;
+    }
+
+    private M overflow() {
+        M meters = overflow;
+        if (meters == null) {
+            meters = loader.apply(OVERFLOW_TOPIC);
+            overflow = meters;
+        }
+        return meters;
+    }
+
+    /**
+     * Evict entries idle for longer than the timeout.
+     *
+     * @return number of evicted topics
+     */
+    public synchronized int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        Iterator<Entry<M>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry<M> entry = it.next();
+            if (now - entry.lastAccess > idleTimeoutNanos) {
+                it.remove();
+                onEvict.accept(entry.meters);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Visit every cached topic (excluding the overflow entry).
+     */
+    public void forEach(BiConsumer<String, ? super M> action) {
+        entries.forEach((topic, entry) -> action.accept(topic, entry.meters));
+    }
+
+    /**
+     * Number of topics currently cached.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<M> {
+        private final M meters;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Entry(M meters) {
+            this.meters = meters;
+        }
+
+        private void touch() {
+            long now = System.nanoTime();
+            if (now - lastAccess > TOUCH_GRANULARITY_NANOS) {
+                lastAccess = now;
+            }
+        }
+    }
+}
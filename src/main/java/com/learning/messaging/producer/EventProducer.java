@@ -1,9 +1,12 @@
 package com.learning.messaging.producer;
 
+import com.learning.messaging.dto.BatchPublishResult;
+import com.learning.messaging.dto.Keyed;
 import com.learning.messaging.dto.PublishResult;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -31,9 +34,55 @@ public interface EventProducer<T> {
      * @param topic the Kafka topic (must not be null)
      * @param key   optional partitioning key (nullable)
      * @param event the event payload (must not be null)
-     * @return a future representing the async publish result
+     * @return a future representing the async publish result; completes with a
+     *         {@link PublishResult.Status#FAILED} result when the event can't be encoded
+     *         or the producer is saturated
      */
     CompletableFuture<PublishResult> send(@NonNull String topic,
                                           @Nullable String key,
                                           @NonNull T event);
+
+    /**
+     * Fire-and-forget send: the outcome is reported to {@code listener} instead of a future.
+     * <p>
+     * Same retries, backpressure and exhausted handling as {@link #send(String, String, Object)},
+     * without a {@link PublishResult} or a returned future per record; meant for high-rate topics
+     * whose callers rarely look at the outcome.
+     *
+     * @param topic    the Kafka topic (must not be null)
+     * @param key      optional partitioning key (nullable)
+     * @param event    the event payload (must not be null)
+     * @param listener receives the outcome (use {@link PublishListener#NONE} to ignore it)
+     */
+    default void send(@NonNull String topic,
+                      @Nullable String key,
+                      @NonNull T event,
+                      @NonNull PublishListener listener) {
+        send(topic, key, event).whenComplete((result, error) -> {
+            if (error != null) {
+                listener.onFailure(topic, key, error, null);
+            } else if (result.getStatus() == PublishResult.Status.SUCCESS) {
+                listener.onSuccess(topic, result.getPartition() != null ? result.getPartition() : -1,
+                        result.getOffset() != null ? result.getOffset() : -1, result.getTraceId());
+            } else {
+                listener.onFailure(topic, key, result.getError(), result.getTraceId());
+            }
+        });
+    }
+
+    /**
+     * Send a batch of events to a topic.
+     * <p>
+     * All records share one retry context: each retry round only re-sends the records
+     * that failed in the previous round. The returned future always completes normally;
+     * per-record outcomes are reported in {@link BatchPublishResult#getResults()}.
+     * Batch records are not covered by ordered retries: they neither wait behind a pending retry
+     * of their key nor hold back later records of it.
+     *
+     * @param topic   the Kafka topic (must not be null)
+     * @param records the keyed events to publish (must not be null or contain null events)
+     * @return a future representing the aggregated publish result
+     */
+    CompletableFuture<BatchPublishResult> sendAll(@NonNull String topic,
+                                                  @NonNull List<Keyed<T>> records);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.learning.messaging.producer;
+
+/**
+ * Estimates the payload size of a record for in-flight byte accounting.
+ * <p>
+ * Estimates only need to be cheap and roughly proportional to the serialized size;
+ * they are never used for anything but backpressure.
+ */
+@FunctionalInterface
+public interface EventSizeEstimator {
+
+    /**
+     * @param key   optional partitioning key (nullable)
+     * @param event the event payload
+     * @return estimated size in bytes (&gt;= 0)
+     */
+    long estimate(String key, Object event);
+
+    /**
+     * Default estimator: exact for byte arrays, length-based for text, a fixed fallback otherwise.
+     */
+    static EventSizeEstimator defaultEstimator(int fallbackBytes) {
+        return (key, event) -> {
+            long keyBytes = key != null ? key.length() : 0;
+            if (event instanceof byte[] bytes) {
+                return keyBytes + bytes.length;
+            }
+            if (event instanceof CharSequence text) {
+                return keyBytes + text.length();
+            }
+            return keyBytes + fallbackBytes;
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.learning.messaging.producer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts records and bytes in flight against fixed limits.
+ * <p>
+ * - Records and bytes are acquired together, so a send never holds half a permit
+ * - A request larger than the whole limit is admitted only when nothing else is in flight
+ * - Waiters are woken whenever capacity is released
+ */
+class InFlightLimiter {
+
+    private final int maxRecords;
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private long records;
+    private long bytes;
+
+    InFlightLimiter(int maxRecords, long maxBytes) {
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Try to acquire capacity, waiting up to the timeout.
+     *
+     * @param usageLimit fraction (0..1] of the limits the acquisition may fill
+     * @return {@code true} if the capacity was acquired
+     */
+    boolean tryAcquire(int recordCount, long byteCount, double usageLimit, long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (!fits(recordCount, byteCount, usageLimit)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            records += recordCount;
+            bytes += byteCount;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean tryAcquire(int recordCount, long byteCount, double usageLimit) {
+        try {
+            return tryAcquire(recordCount, byteCount, usageLimit, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    void release(int recordCount, long byteCount) {
+        lock.lock();
+        try {
+            records -= recordCount;
+            bytes -= byteCount;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(int recordCount, long byteCount, double usageLimit) {
+        if (records == 0) {
+            return true;
+        }
+        return records + recordCount <= maxRecords * usageLimit
+                && bytes + byteCount <= maxBytes * usageLimit;
+    }
+
+    long inFlightRecords() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long inFlightBytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    double utilization() {
+        lock.lock();
+        try {
+            return Math.max((double) records / maxRecords, (double) bytes / maxBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int maxRecords() {
+        return maxRecords;
+    }
+
+    long maxBytes() {
+        return maxBytes;
+    }
+
+    static long nanos(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -1,24 +1,52 @@
 package com.learning.messaging.producer;
 
+import com.learning.messaging.config.MetricsProperties;
+import com.learning.messaging.dto.BatchPublishResult;
+import com.learning.messaging.dto.Keyed;
 import com.learning.messaging.dto.PublishResult;
+import com.learning.messaging.exceptions.ProducerSaturatedException;
 import com.learning.messaging.exceptions.RetryableSendException;
+import com.learning.messaging.logging.MessagingLog;
+import com.learning.messaging.metrics.LatencyMeterFactory;
+import com.learning.messaging.metrics.TopicMeterCache;
 import com.learning.messaging.retry.RetryExecutor;
+import com.learning.messaging.serialization.EncodedEvent;
+import com.learning.messaging.serialization.EventCodecs;
+import com.learning.messaging.trace.TraceIdGenerator;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 /**
  * Kafka-based implementation of EventProducer<T>.
+ * <p>
+ * Each event is encoded once by {@link EventCodecs} before the first attempt; retries and the
+ * exhausted handlers reuse those bytes. Records are sent through byte[] templates built from
+ * the Boot producer factory, so spring.kafka.producer.value-serializer is not used here;
+ * {@link TopicProducers} picks the template of the topic's {@link TopicClass}, behind the priority
+ * lanes of {@link SendLanes} (retry attempts in the retry lane).
+ * Every record carries a {@link com.learning.messaging.headers.MessagingHeaders#MESSAGE_ID} drawn from
+ * the {@link TraceIdGenerator}, the same for all of its attempts, so consumers can drop duplicates.
+ * <p>
+ * Successes are counted and sampled by {@link MessagingLog} rather than logged per record.
  *
  * @param <T> type of event payload
  */
@@ -27,17 +55,65 @@ import java.util.function.Supplier;
 public class KafkaEventProducer<T> implements EventProducer<T> {
     private static final String METRIC_PRODUCE_SUCCESS = "messaging.producer.success";
     private static final String METRIC_PRODUCE_FAILURE = "messaging.producer.failure";
+    private static final String METRIC_PRODUCE_LATENCY = "messaging.producer.latency";
 
-    private final KafkaTemplate<String, T> kafkaTemplate;
+    private final SendLanes lanes;
+    private final EventCodecs codecs;
     private final RetryExecutor<T> retryExecutor;
     private final MeterRegistry meterRegistry;
+    private final ProducerBackpressure backpressure;
+    private final LatencyMeterFactory latencyMeters;
+    private final TraceIdGenerator traceIdGenerator;
+    private final MessagingLog messagingLog;
+    private final TopicMeterCache<TopicMeters> meters;
 
-    public KafkaEventProducer(KafkaTemplate<String, T> kafkaTemplate,
+    public KafkaEventProducer(KafkaTemplate<String, byte[]> kafkaTemplate,
+                              EventCodecs codecs,
                               RetryExecutor<T> retryExecutor,
-                              MeterRegistry meterRegistry) {
-        this.kafkaTemplate = kafkaTemplate;
+                              MeterRegistry meterRegistry,
+                              ProducerBackpressure backpressure,
+                              MetricsProperties metricsProps,
+                              LatencyMeterFactory latencyMeters,
+                              TraceIdGenerator traceIdGenerator,
+                              MessagingLog messagingLog) {
+        this(SendLanes.direct(TopicProducers.fixed(kafkaTemplate)), codecs, retryExecutor, meterRegistry, backpressure, metricsProps,
+                latencyMeters, traceIdGenerator, messagingLog);
+    }
+
+    @Autowired
+    public KafkaEventProducer(SendLanes lanes,
+                              EventCodecs codecs,
+                              RetryExecutor<T> retryExecutor,
+                              MeterRegistry meterRegistry,
+                              ProducerBackpressure backpressure,
+                              MetricsProperties metricsProps,
+                              LatencyMeterFactory latencyMeters,
+                              TraceIdGenerator traceIdGenerator,
+                              MessagingLog messagingLog) {
+        this.lanes = lanes;
+        this.codecs = codecs;
         this.retryExecutor = retryExecutor;
         this.meterRegistry = meterRegistry;
+        this.backpressure = backpressure;
+        this.latencyMeters = latencyMeters;
+        this.traceIdGenerator = traceIdGenerator;
+        this.messagingLog = messagingLog;
+        this.meters = new TopicMeterCache<>(this::createMeters, this::removeMeters, metricsProps);
+    }
+
+    private TopicMeters createMeters(String topic) {
+        return new TopicMeters(
+                meterRegistry.counter(METRIC_PRODUCE_SUCCESS, "topic", topic),
+                meterRegistry.counter(METRIC_PRODUCE_FAILURE, "topic", topic),
+                latencyMeters.timer(METRIC_PRODUCE_LATENCY, topic, "outcome", "success"),
+                latencyMeters.timer(METRIC_PRODUCE_LATENCY, topic, "outcome", "failure"));
+    }
+
+    private void removeMeters(TopicMeters topicMeters) {
+        meterRegistry.remove(topicMeters.success);
+        meterRegistry.remove(topicMeters.failure);
+        latencyMeters.remove(topicMeters.latencySuccess);
+        latencyMeters.remove(topicMeters.latencyFailure);
     }
 
     @Override
@@ -52,21 +128,35 @@ public class KafkaEventProducer<T> implements EventProducer<T> {
      */
     @Override
     public CompletableFuture<PublishResult> send(String topic, @Nullable String key, T event) {
-        if (topic == null || topic.isBlank()) {
-            throw new IllegalArgumentException("topic must not be null or blank");
-        }
-        if (event == null) {
-            throw new IllegalArgumentException("event must not be null");
-        }
+        checkArguments(topic, event);
+
+        // Capture traceId (from MDC, fallback generated)
+        final String traceId = Objects.requireNonNullElseGet(MDC.get("traceId"), traceIdGenerator::nextTraceId);
 
-        // Capture traceId (from MDC, fallback UUID)
-        final String traceId = Objects.requireNonNullElseGet(
-                MDC.get("traceId"),
-                () -> UUID.randomUUID().toString());
+        final long startNanos = System.nanoTime();
 
+        // Encode once: every attempt and the exhausted handlers reuse these bytes
+        final EncodedEvent encoded;
+        try {
+            encoded = codecs.encode(event, nextMessageId());
+        } catch (RuntimeException e) {
+            meters.get(topic).failure.increment();
+            log.error("❌ encode failed, not sent [topic={}, key={}, type={}, traceId={}]",
+                    topic, key, event.getClass().getName(), traceId, e);
+            return CompletableFuture.completedFuture(PublishResult.failed(topic, e, traceId));
+        }
+
+        // Hold in-flight capacity until the final outcome (including retries) is known
+        final long bytes = backpressure.estimate(key, encoded.payload());
+        ProducerSaturatedException rejected = backpressure.acquire(topic, 1, bytes);
+        if (rejected != null) {
+            meters.get(topic).failure.increment();
+            return CompletableFuture.completedFuture(PublishResult.failed(topic, rejected, traceId));
+        }
 
+        Attempts attempts = new Attempts(topic, key, encoded);
         Supplier<CompletableFuture<PublishResult>> supplier = () -> {
-            CompletableFuture<SendResult<String, T>> attemptFuture = kafkaTemplate.send(topic, key, event);
+            CompletableFuture<SendResult<String, byte[]>> attemptFuture = attempts.get();
 
             // return the mapped future
             return attemptFuture.handle((sendResult, throwable) -> {
@@ -78,21 +168,276 @@ public class KafkaEventProducer<T> implements EventProducer<T> {
                             md != null ? md.offset() : -1,
                             traceId
                     );
-                    meterRegistry.counter(METRIC_PRODUCE_SUCCESS, "topic", topic).increment();
-                    log.info("✅ produced [topic={}, key={}, partition={}, offset={}, traceId={}]",
-                            topic, key, pr.getPartition(), pr.getOffset(), traceId);
+                    meters.get(topic).success.increment();
+                    messagingLog.produced(topic, key, md != null ? md.partition() : -1,
+                            md != null ? md.offset() : -1, traceId);
                     return pr;
                 } else {
-                    log.warn("send failed [topic={}, key={}, traceId={}] → will retry if attempts left",
-                            topic, key, traceId, throwable);
-
-                    meterRegistry.counter(METRIC_PRODUCE_FAILURE, "topic", topic).increment();
-                    throw new RetryableSendException(topic, key, event, traceId, throwable);
+                    // logged (rate-limited) by RetryExecutor, with the retry decision
+                    meters.get(topic).failure.increment();
+                    throw new RetryableSendException(topic, key, event, encoded, traceId, 1, throwable);
                 }
             });
         };
 
-        return this.retryExecutor.executeWithRetry(topic, key,event, supplier);
+        CompletableFuture<PublishResult> result = this.retryExecutor.executeWithRetry(topic, key, event, encoded, supplier);
+        result.whenComplete((pr, throwable) -> {
+            backpressure.release(topic, 1, bytes);
+            TopicMeters topicMeters = meters.get(topic);
+            LatencyMeterFactory.recordSince(
+                    throwable == null ? topicMeters.latencySuccess : topicMeters.latencyFailure, startNanos);
+        });
+        return result;
+    }
+
+    /**
+     * Fire-and-forget variant: attempts are not mapped to a {@link PublishResult} and the final outcome
+     * goes straight to {@code listener}. As on the future path, {@code messaging.producer.failure}
+     * counts failed attempts.
+     */
+    @Override
+    public void send(String topic, @Nullable String key, T event, PublishListener listener) {
+        checkArguments(topic, event);
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+
+        final String traceId = Objects.requireNonNullElseGet(MDC.get("traceId"), traceIdGenerator::nextTraceId);
+        final long startNanos = System.nanoTime();
+
+        final EncodedEvent encoded;
+        try {
+            encoded = codecs.encode(event, nextMessageId());
+        } catch (RuntimeException e) {
+            meters.get(topic).failure.increment();
+            log.error("❌ encode failed, not sent [topic={}, key={}, type={}, traceId={}]",
+                    topic, key, event.getClass().getName(), traceId, e);
+            notifyFailure(listener, topic, key, e, traceId);
+            return;
+        }
+
+        final long bytes = backpressure.estimate(key, encoded.payload());
+        ProducerSaturatedException rejected = backpressure.acquire(topic, 1, bytes);
+        if (rejected != null) {
+            meters.get(topic).failure.increment();
+            notifyFailure(listener, topic, key, rejected, traceId);
+            return;
+        }
+
+        Attempts attempts = new Attempts(topic, key, encoded);
+        this.retryExecutor.executeWithRetry(topic, key, event, encoded, () -> countFailure(topic, attempts.get()))
+                .whenComplete(new ListenerCompletion(topic, key, traceId, bytes, startNanos, listener));
+    }
+
+    /**
+     * Attempts of one record: the first goes to the topic's lane, the others to the retry lane.
+     */
+    private final class Attempts implements Supplier<CompletableFuture<SendResult<String, byte[]>>> {
+        private final String topic;
+        private final String key;
+        private final EncodedEvent encoded;
+        private boolean retry;
+
+        private Attempts(String topic, @Nullable String key, EncodedEvent encoded) {
+            this.topic = topic;
+            this.key = key;
+            this.encoded = encoded;
+        }
+
+        @Override
+        public CompletableFuture<SendResult<String, byte[]>> get() {
+            CompletableFuture<SendResult<String, byte[]>> attempt =
+                    lanes.send(new ProducerRecord<>(topic, null, key, encoded.payload(), encoded.headers()), retry);
+            retry = true;
+            return attempt;
+        }
+    }
+
+    /**
+     * Count a failed attempt before the retry executor sees it, passing the outcome through unwrapped.
+     */
+    private CompletableFuture<SendResult<String, byte[]>> countFailure(String topic,
+                                                                       CompletableFuture<SendResult<String, byte[]>> attempt) {
+        CompletableFuture<SendResult<String, byte[]>> counted = new CompletableFuture<>();
+        attempt.whenComplete((sendResult, error) -> {
+            if (error != null) {
+                meters.get(topic).failure.increment();
+                counted.completeExceptionally(error);
+            } else {
+                counted.complete(sendResult);
+            }
+        });
+        return counted;
+    }
+
+    private byte[] nextMessageId() {
+        return traceIdGenerator.nextTraceId().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void checkArguments(String topic, Object event) {
+        if (topic == null || topic.isBlank()) {
+            throw new IllegalArgumentException("topic must not be null or blank");
+        }
+        if (event == null) {
+            throw new IllegalArgumentException("event must not be null");
+        }
+    }
+
+    private static void notifyFailure(PublishListener listener, String topic, String key, Throwable error, String traceId) {
+        try {
+            listener.onFailure(topic, key, error, traceId);
+        } catch (RuntimeException e) {
+            log.warn("PublishListener.onFailure threw [topic={}, key={}, traceId={}]", topic, key, traceId, e);
+        }
     }
 
-}
\ No newline at end of file
+    /**
+     * Final outcome of a fire-and-forget send: one object per record instead of a result and a mapped future.
+     */
+    private final class ListenerCompletion implements BiConsumer<SendResult<String, byte[]>, Throwable> {
+        private final String topic;
+        private final String key;
+        private final String traceId;
+        private final long bytes;
+        private final long startNanos;
+        private final PublishListener listener;
+
+        private ListenerCompletion(String topic, String key, String traceId, long bytes, long startNanos,
+                                   PublishListener listener) {
+            this.topic = topic;
+            this.key = key;
+            this.traceId = traceId;
+            this.bytes = bytes;
+            this.startNanos = startNanos;
+            this.listener = listener;
+        }
+
+        @Override
+        public void accept(SendResult<String, byte[]> sendResult, Throwable error) {
+            backpressure.release(topic, 1, bytes);
+            TopicMeters topicMeters = meters.get(topic);
+            if (error != null) {
+                // failed attempts were counted as they completed
+                LatencyMeterFactory.recordSince(topicMeters.latencyFailure, startNanos);
+                notifyFailure(listener, topic, key,
+                        error instanceof CompletionException && error.getCause() != null ? error.getCause() : error,
+                        traceId);
+                return;
+            }
+            topicMeters.success.increment();
+            LatencyMeterFactory.recordSince(topicMeters.latencySuccess, startNanos);
+            RecordMetadata md = sendResult.getRecordMetadata();
+            int partition = md != null ? md.partition() : -1;
+            long offset = md != null ? md.offset() : -1;
+            messagingLog.produced(topic, key, partition, offset, traceId);
+            try {
+                listener.onSuccess(topic, partition, offset, traceId);
+            } catch (RuntimeException e) {
+                log.warn("PublishListener.onSuccess threw [topic={}, key={}, traceId={}]", topic, key, traceId, e);
+            }
+        }
+    }
+
+    /**
+     * Publishes the whole batch under one traceId and one retry context.
+     * Logs (sampled) once per batch instead of once per record.
+     *
+     * @param topic   must not be null or blank
+     * @param records must not be null or contain null events
+     */
+    @Override
+    public CompletableFuture<BatchPublishResult> sendAll(String topic, List<Keyed<T>> records) {
+        if (topic == null || topic.isBlank()) {
+            throw new IllegalArgumentException("topic must not be null or blank");
+        }
+        if (records == null) {
+            throw new IllegalArgumentException("records must not be null");
+        }
+        for (Keyed<T> record : records) {
+            if (record == null || record.getEvent() == null) {
+                throw new IllegalArgumentException("records must not contain null events");
+            }
+        }
+
+        final String traceId = Objects.requireNonNullElseGet(MDC.get("traceId"), traceIdGenerator::nextTraceId);
+
+        if (records.isEmpty()) {
+            return CompletableFuture.completedFuture(BatchPublishResult.of(topic, List.of(), 0, traceId));
+        }
+
+        // Encode once; a record that can't be encoded fails the whole batch before anything is sent
+        List<EncodedEvent> encoded = new ArrayList<>(records.size());
+        long estimatedBytes = 0;
+        for (Keyed<T> record : records) {
+            EncodedEvent recordEncoded;
+            try {
+                recordEncoded = codecs.encode(record.getEvent(), record.getMessageId() != null
+                        ? record.getMessageId().getBytes(StandardCharsets.UTF_8)
+                        : nextMessageId());
+            } catch (RuntimeException e) {
+                log.error("❌ encode failed, batch not sent [topic={}, records={}, key={}, type={}, traceId={}]",
+                        topic, records.size(), record.getKey(), record.getEvent().getClass().getName(), traceId, e);
+                return CompletableFuture.completedFuture(failedBatch(topic, records.size(), e, traceId));
+            }
+            encoded.add(recordEncoded);
+            estimatedBytes += backpressure.estimate(record.getKey(), recordEncoded.payload());
+        }
+        final long bytes = estimatedBytes;
+        ProducerSaturatedException rejected = backpressure.acquire(topic, records.size(), bytes);
+        if (rejected != null) {
+            return CompletableFuture.completedFuture(failedBatch(topic, records.size(), rejected, traceId));
+        }
+
+        final long startNanos = System.nanoTime();
+        // records failed in a round are sent again in the retry lane
+        final boolean[] attempted = new boolean[records.size()];
+        return this.retryExecutor.executeBatchWithRetry(topic, records, encoded, traceId, index -> {
+            Keyed<T> record = records.get(index);
+            EncodedEvent recordEncoded = encoded.get(index);
+            boolean retry = attempted[index];
+            attempted[index] = true;
+            return lanes.send(new ProducerRecord<>(topic, null, record.getKey(),
+                            recordEncoded.payload(), recordEncoded.headers()), retry)
+                    .handle((sendResult, throwable) -> {
+                        if (throwable != null) {
+                            meters.get(topic).failure.increment();
+                            throw throwable instanceof CompletionException ce ? ce : new CompletionException(throwable);
+                        }
+                        LatencyMeterFactory.recordSince(meters.get(topic).latencySuccess, startNanos);
+                        RecordMetadata md = sendResult.getRecordMetadata();
+                        return PublishResult.success(
+                                topic,
+                                md != null ? md.partition() : -1,
+                                md != null ? md.offset() : -1,
+                                traceId
+                        );
+                    });
+        }).thenApply(batch -> {
+            TopicMeters topicMeters = meters.get(topic);
+            topicMeters.success.increment(batch.getSucceeded());
+            // each record's success latency was recorded when it was acknowledged
+            for (int i = 0; i < batch.getFailed(); i++) {
+                LatencyMeterFactory.recordSince(topicMeters.latencyFailure, startNanos);
+            }
+            messagingLog.producedBatch(topic, records.size(), batch.getSucceeded(), batch.getFailed(),
+                    batch.getAttempts(), traceId);
+            return batch;
+        }).whenComplete((batch, throwable) -> backpressure.release(topic, records.size(), bytes));
+    }
+
+    private BatchPublishResult failedBatch(String topic, int records, Throwable error, String traceId) {
+        meters.get(topic).failure.increment(records);
+        List<PublishResult> failed = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            failed.add(PublishResult.failed(topic, error, traceId));
+        }
+        return BatchPublishResult.of(topic, failed, 0, traceId);
+    }
+
+    /**
+     * Resolved meter handles for one topic.
+     * <p>Latency timers are {@code null} when latency recording is switched off for the topic.</p>
+     */
+    private record TopicMeters(Counter success, Counter failure, Timer latencySuccess, Timer latencyFailure) {
+    }
+}
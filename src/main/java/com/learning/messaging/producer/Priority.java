@@ -0,0 +1,13 @@
+package com.learning.messaging.producer;
+
+/**
+ * Relative importance of a topic's traffic when the producer is under pressure.
+ */
+public enum Priority {
+    /** Bulk / best-effort traffic: shed first when the producer is saturated. */
+    LOW,
+    /** Default priority. */
+    NORMAL,
+    /** Latency-critical traffic (e.g. payments). */
+    HIGH
+}
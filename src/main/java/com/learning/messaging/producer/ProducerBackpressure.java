@@ -0,0 +1,163 @@
+package com.learning.messaging.producer;
+
+import com.learning.messaging.config.BackpressureProperties;
+import com.learning.messaging.exceptions.ProducerSaturatedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces the global and per-topic in-flight limits of the producer.
+ * <p>
+ * A send acquires capacity before its first attempt and releases it when its final
+ * outcome is known (success, or retries exhausted), so pending retries count too.
+ * Saturation is exported via Micrometer:
+ * <ul>
+ *   <li>{@code messaging.producer.inflight.records} / {@code .bytes} / {@code .utilization} gauges</li>
+ *   <li>{@code messaging.producer.rejected} counter, tagged by topic and reason</li>
+ *   <li>{@code messaging.producer.backpressure.wait} timer for sends that had to block</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ProducerBackpressure {
+
+    private static final String METRIC_INFLIGHT_RECORDS = "messaging.producer.inflight.records";
+    private static final String METRIC_INFLIGHT_BYTES = "messaging.producer.inflight.bytes";
+    private static final String METRIC_INFLIGHT_UTILIZATION = "messaging.producer.inflight.utilization";
+    private static final String METRIC_REJECTED = "messaging.producer.rejected";
+    private static final String METRIC_WAIT = "messaging.producer.backpressure.wait";
+
+    /** Blocking on the Kafka I/O thread would stop the very completions that release capacity. */
+    private static final String KAFKA_IO_THREAD_PREFIX = "kafka-producer-network-thread";
+
+    private final BackpressureProperties props;
+    private final MeterRegistry meterRegistry;
+    private final EventSizeEstimator sizeEstimator;
+    private final InFlightLimiter global;
+    private final Map<String, InFlightLimiter> topicLimiters = new HashMap<>();
+    private final Timer waitTimer;
+
+    public ProducerBackpressure(BackpressureProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.sizeEstimator = EventSizeEstimator.defaultEstimator(props.getDefaultRecordBytes());
+        this.global = new InFlightLimiter(props.getMaxInFlightRecords(), props.getMaxInFlightBytes());
+        registerGauges(global, "global", "*");
+
+        props.getTopics().forEach((topic, limit) -> {
+            if (limit.getMaxInFlightRecords() == null && limit.getMaxInFlightBytes() == null) {
+                return;
+            }
+            InFlightLimiter limiter = new InFlightLimiter(
+                    limit.getMaxInFlightRecords() != null ? limit.getMaxInFlightRecords() : props.getMaxInFlightRecords(),
+                    limit.getMaxInFlightBytes() != null ? limit.getMaxInFlightBytes() : props.getMaxInFlightBytes());
+            topicLimiters.put(topic, limiter);
+            registerGauges(limiter, "topic", topic);
+        });
+
+        this.waitTimer = Timer.builder(METRIC_WAIT).register(meterRegistry);
+    }
+
+    private void registerGauges(InFlightLimiter limiter, String scope, String topic) {
+        Gauge.builder(METRIC_INFLIGHT_RECORDS, limiter, InFlightLimiter::inFlightRecords)
+                .tags("scope", scope, "topic", topic)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_INFLIGHT_BYTES, limiter, InFlightLimiter::inFlightBytes)
+                .tags("scope", scope, "topic", topic)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_INFLIGHT_UTILIZATION, limiter, InFlightLimiter::utilization)
+                .tags("scope", scope, "topic", topic)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Estimate the in-flight bytes of a record.
+     */
+    public long estimate(@Nullable String key, Object event) {
+        return sizeEstimator.estimate(key, event);
+    }
+
+    /**
+     * Acquire capacity for the given records according to the overflow policy.
+     *
+     * @return {@code null} when admitted, otherwise the rejection (capacity is not held)
+     */
+    @Nullable
+    public ProducerSaturatedException acquire(String topic, int records, long bytes) {
+        if (!props.isEnabled()) {
+            return null;
+        }
+
+        boolean shed = props.getOverflowPolicy() == BackpressureProperties.OverflowPolicy.SHED
+                && props.priorityFor(topic) == Priority.LOW;
+        boolean wait = !shed
+                && props.getOverflowPolicy() != BackpressureProperties.OverflowPolicy.FAIL_FAST
+                && !Thread.currentThread().getName().startsWith(KAFKA_IO_THREAD_PREFIX);
+        double usageLimit = shed ? props.getShedWatermark() : 1.0;
+
+        InFlightLimiter topicLimiter = topicLimiters.get(topic);
+        long start = System.nanoTime();
+        long deadline = start + InFlightLimiter.nanos(props.getBlockTimeoutMs());
+        try {
+            if (topicLimiter != null && !acquire(topicLimiter, records, bytes, usageLimit, wait, deadline)) {
+                return reject(topic, shed, wait);
+            }
+            if (!acquire(global, records, bytes, usageLimit, wait, deadline)) {
+                if (topicLimiter != null) {
+                    topicLimiter.release(records, bytes);
+                }
+                return reject(topic, shed, wait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return reject(topic, shed, wait);
+        }
+
+        if (wait) {
+            long waited = System.nanoTime() - start;
+            if (waited > 1_000_000) {
+                waitTimer.record(waited, TimeUnit.NANOSECONDS);
+            }
+        }
+        return null;
+    }
+
+    private static boolean acquire(InFlightLimiter limiter, int records, long bytes, double usageLimit,
+                                   boolean wait, long deadline) throws InterruptedException {
+        if (!wait) {
+            return limiter.tryAcquire(records, bytes, usageLimit);
+        }
+        return limiter.tryAcquire(records, bytes, usageLimit, deadline - System.nanoTime());
+    }
+
+    /**
+     * Release capacity acquired by {@link #acquire}.
+     */
+    public void release(String topic, int records, long bytes) {
+        if (!props.isEnabled()) {
+            return;
+        }
+        InFlightLimiter topicLimiter = topicLimiters.get(topic);
+        if (topicLimiter != null) {
+            topicLimiter.release(records, bytes);
+        }
+        global.release(records, bytes);
+    }
+
+    private ProducerSaturatedException reject(String topic, boolean shed, boolean waited) {
+        ProducerSaturatedException.Reason reason = shed
+                ? ProducerSaturatedException.Reason.SHED
+                : waited ? ProducerSaturatedException.Reason.TIMEOUT : ProducerSaturatedException.Reason.FULL;
+        meterRegistry.counter(METRIC_REJECTED, "topic", topic, "reason", reason.name()).increment();
+        log.debug("Send rejected by backpressure [topic={}, reason={}]", topic, reason);
+        return new ProducerSaturatedException(topic, reason);
+    }
+}
@@ -0,0 +1,34 @@
+package com.learning.messaging.producer;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Callback for fire-and-forget sends ({@link EventProducer#send(String, String, Object, PublishListener)}).
+ * <p>
+ * Outcomes are passed as plain arguments, so no {@link com.learning.messaging.dto.PublishResult}
+ * is created per record. Callbacks run on the Kafka producer I/O thread (or a retry worker)
+ * and must not block.
+ */
+public interface PublishListener {
+
+    /**
+     * Ignores every outcome; failures are still logged, counted and handed to the exhausted handlers.
+     */
+    PublishListener NONE = new PublishListener() {
+    };
+
+    /**
+     * The record was acknowledged (after retries, if any).
+     *
+     * @param partition partition it landed on, -1 if unknown
+     * @param offset    its offset, -1 if unknown
+     */
+    default void onSuccess(String topic, int partition, long offset, String traceId) {
+    }
+
+    /**
+     * The record was not published: retries exhausted, circuit open, producer saturated or not encodable.
+     */
+    default void onFailure(String topic, @Nullable String key, Throwable error, String traceId) {
+    }
+}
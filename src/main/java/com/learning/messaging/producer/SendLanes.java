@@ -0,0 +1,397 @@
+package com.learning.messaging.producer;
+
+import com.learning.messaging.config.BackpressureProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Weighted fair queue in front of the Kafka producer, with per-topic rate limits.
+ * <p>
+ * - Each send waits in the lane of its topic's {@link Priority}; retry attempts go to the retry lane
+ *   (LOW by default, never above the topic's own lane), so they don't compete with first attempts
+ * - A dispatcher thread hands sends to {@link TopicProducers}, keeping at most {@code maxInFlight}
+ *   unacknowledged: while the producer is saturated, higher lanes get their weight's share of the
+ *   capacity that frees up and lower lanes still get theirs (smooth weighted round-robin, no starvation)
+ * - Within a lane, topics take turns, and a topic over its {@code max-records-per-second} is skipped
+ *   until its token bucket refills, without holding up the rest of the lane
+ * - Lanes are not bounded themselves: the in-flight limits of {@link ProducerBackpressure} bound them
+ * <p>
+ * Disabled by default; then sends go straight to the producer and rate limits are not enforced.
+ * Exported via Micrometer: {@code messaging.producer.lane.queued} gauge and {@code messaging.producer.lane.wait}
+ * timer, tagged by priority.
+ */
+@Slf4j
+public class SendLanes implements Closeable {
+
+    private static final String METRIC_QUEUED = "messaging.producer.lane.queued";
+    private static final String METRIC_WAIT = "messaging.producer.lane.wait";
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final BackpressureProperties props;
+    private final TopicProducers producers;
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
+    /** Shared by a topic's lanes, so retries count against its rate too. */
+    private final Map<String, RateBucket> buckets = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Thread dispatcher;
+
+    private int inFlight;
+    private boolean running;
+
+    public SendLanes(BackpressureProperties props, TopicProducers producers, MeterRegistry meterRegistry) {
+        this.props = props;
+        this.producers = producers;
+        this.enabled = props.getLanes().isEnabled();
+        this.maxInFlight = Math.max(1, props.getLanes().getMaxInFlight());
+        if (!enabled) {
+            this.dispatcher = null;
+            return;
+        }
+        for (Priority priority : PRIORITIES) {
+            Lane lane = new Lane(priority, Math.max(1, props.getLanes().getWeights().getOrDefault(priority, 1)),
+                    Timer.builder(METRIC_WAIT).tag("priority", priority.name()).register(meterRegistry));
+            lanes[priority.ordinal()] = lane;
+            Gauge.builder(METRIC_QUEUED, lane, this::queued)
+                    .tag("priority", priority.name())
+                    .register(meterRegistry);
+        }
+        this.running = true;
+        this.dispatcher = new Thread(this::run, "messaging-producer-lanes");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Every send straight to {@code producers}.
+     */
+    public static SendLanes direct(TopicProducers producers) {
+        return new SendLanes(producers);
+    }
+
+    private SendLanes(TopicProducers producers) {
+        this.props = new BackpressureProperties();
+        this.producers = producers;
+        this.enabled = false;
+        this.maxInFlight = 1;
+        this.dispatcher = null;
+    }
+
+    /**
+     * Send {@code record} once it is its lane's turn.
+     *
+     * @param retry whether this is a retry attempt (goes to the retry lane)
+     */
+    public CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record, boolean retry) {
+        if (!enabled) {
+            return producers.send(record);
+        }
+        Priority priority = props.priorityFor(record.topic());
+        if (retry && props.getLanes().getRetryPriority().compareTo(priority) < 0) {
+            priority = props.getLanes().getRetryPriority();
+        }
+        Pending pending = new Pending(record, System.nanoTime());
+        lock.lock();
+        try {
+            if (running) {
+                lanes[priority.ordinal()].add(record.topic(), pending);
+                work.signal();
+                return pending.future;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // closed
+        return producers.send(record);
+    }
+
+    private void run() {
+        lock.lock();
+        try {
+            while (running) {
+                if (inFlight >= maxInFlight) {
+                    work.await();
+                    continue;
+                }
+                long now = System.nanoTime();
+                Lane lane = nextLane(now);
+                if (lane == null) {
+                    long waitNanos = nextTokenNanos(now);
+                    if (waitNanos > 0) {
+                        work.awaitNanos(waitNanos);
+                    } else {
+                        work.await();
+                    }
+                    continue;
+                }
+                Pending pending = lane.take(now);
+                inFlight++;
+                lock.unlock();
+                try {
+                    lane.waitTimer.record(now - pending.enqueuedNanos, TimeUnit.NANOSECONDS);
+                    dispatch(pending);
+                } finally {
+                    lock.lock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Smooth weighted round-robin over the lanes that have a send ready.
+     */
+    private Lane nextLane(long now) {
+        Lane best = null;
+        int totalWeight = 0;
+        for (Lane lane : lanes) {
+            if (!lane.ready(now)) {
+                continue;
+            }
+            lane.current += lane.weight;
+            totalWeight += lane.weight;
+            if (best == null || lane.current > best.current) {
+                best = lane;
+            }
+        }
+        if (best != null) {
+            best.current -= totalWeight;
+        }
+        return best;
+    }
+
+    /**
+     * Nanos until a rate-limited topic may send again, or 0 when nothing is waiting.
+     */
+    private long nextTokenNanos(long now) {
+        long wait = 0;
+        for (Lane lane : lanes) {
+            for (TopicQueue topic : lane.active) {
+                long topicWait = topic.bucket.nanosUntilToken(now);
+                if (topicWait > 0 && (wait == 0 || topicWait < wait)) {
+                    wait = topicWait;
+                }
+            }
+        }
+        return wait;
+    }
+
+    private void dispatch(Pending pending) {
+        CompletableFuture<SendResult<String, byte[]>> sent;
+        try {
+            sent = producers.send(pending.record);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((result, error) -> {
+            release();
+            if (error != null) {
+                pending.future.completeExceptionally(error);
+            } else {
+                pending.future.complete(result);
+            }
+        });
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double queued(Lane lane) {
+        lock.lock();
+        try {
+            return lane.queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the dispatcher and sends whatever is still waiting, without rate limits.
+     */
+    @Override
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pending> waiting = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                while (!lane.active.isEmpty()) {
+                    waiting.add(lane.take(Long.MAX_VALUE));
+                    inFlight++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        waiting.forEach(this::dispatch);
+        if (!waiting.isEmpty()) {
+            log.info("Producer lanes closed, sent waiting records directly [records={}]", waiting.size());
+        }
+    }
+
+    /**
+     * Sends of one priority, one queue per topic; guarded by the lanes' lock.
+     */
+    private final class Lane {
+        private final Priority priority;
+        private final int weight;
+        private final Timer waitTimer;
+        private final Map<String, TopicQueue> topics = new HashMap<>();
+        /** Topics with sends waiting, in turn order. */
+        private final ArrayDeque<TopicQueue> active = new ArrayDeque<>();
+        private int current;
+        private int queued;
+
+        private Lane(Priority priority, int weight, Timer waitTimer) {
+            this.priority = priority;
+            this.weight = weight;
+            this.waitTimer = waitTimer;
+        }
+
+        void add(String topic, Pending pending) {
+            TopicQueue queue = topics.computeIfAbsent(topic, name -> new TopicQueue(
+                    buckets.computeIfAbsent(name, t -> new RateBucket(props.maxRecordsPerSecondFor(t)))));
+            if (queue.sends.isEmpty()) {
+                active.addLast(queue);
+            }
+            queue.sends.addLast(pending);
+            queued++;
+        }
+
+        boolean ready(long now) {
+            for (TopicQueue topic : active) {
+                if (topic.bucket.nanosUntilToken(now) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The next send of the first topic in turn that may send at {@code now}; that topic moves to the back.
+         */
+        Pending take(long now) {
+            Iterator<TopicQueue> it = active.iterator();
+            while (it.hasNext()) {
+                TopicQueue topic = it.next();
+                if (now != Long.MAX_VALUE && topic.bucket.nanosUntilToken(now) > 0) {
+                    continue;
+                }
+                it.remove();
+                topic.bucket.take(now);
+                Pending pending = topic.sends.pollFirst();
+                if (!topic.sends.isEmpty()) {
+                    active.addLast(topic);
+                }
+                queued--;
+                return pending;
+            }
+            throw new IllegalStateException("no send ready in lane " + priority);
+        }
+    }
+
+    /**
+     * A topic's sends in one lane.
+     */
+    private static final class TopicQueue {
+        private final RateBucket bucket;
+        private final ArrayDeque<Pending> sends = new ArrayDeque<>();
+
+        private TopicQueue(RateBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * A send waiting in its lane.
+     */
+    private static final class Pending {
+        private final ProducerRecord<String, byte[]> record;
+        private final long enqueuedNanos;
+        private final CompletableFuture<SendResult<String, byte[]>> future = new CompletableFuture<>();
+
+        private Pending(ProducerRecord<String, byte[]> record, long enqueuedNanos) {
+            this.record = record;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    /**
+     * Non-blocking token bucket holding up to one second of permits; unlimited at a rate of 0.
+     */
+    private static final class RateBucket {
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+
+        private RateBucket(double permitsPerSecond) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, permitsPerSecond);
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        long nanosUntilToken(long now) {
+            if (permitsPerNano <= 0) {
+                return 0;
+            }
+            double available = Math.min(capacity, tokens + Math.max(0, now - refilledAt) * permitsPerNano);
+            return available >= 1 ? 0 : Math.max(1, (long) ((1 - available) / permitsPerNano));
+        }
+
+        void take(long now) {
+            if (permitsPerNano <= 0) {
+                return;
+            }
+            if (now != Long.MAX_VALUE) {
+                tokens = Math.min(capacity, tokens + Math.max(0, now - refilledAt) * permitsPerNano);
+                refilledAt = now;
+            }
+            tokens -= 1;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.learning.messaging.producer;
+
+/**
+ * Group of topics that share one Kafka producer and its batching settings.
+ */
+public enum TopicClass {
+    /** Never lingers and never compresses: for topics that must not wait for a batch (e.g. payments). */
+    LATENCY,
+    /** The application's spring.kafka.producer settings, unchanged. */
+    STANDARD,
+    /** Lingers, batches and compresses; settings derived from the traffic observed on the topic. */
+    BULK
+}
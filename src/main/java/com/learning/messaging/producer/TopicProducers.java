@@ -0,0 +1,454 @@
+package com.learning.messaging.producer;
+
+import com.learning.messaging.config.ProducerTuningProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Routes each topic to the Kafka producer of its {@link TopicClass}.
+ * <p>
+ * - STANDARD uses the spring.kafka.producer settings; LATENCY overrides linger.ms=0 and compression.type=none
+ * - Pinned topics keep their class. The others start as STANDARD; their record sizes, send rate and ack
+ *   latency are observed, and at the end of each window they are promoted to BULK or demoted back
+ * - The BULK producer is created when the first topic is promoted, with linger.ms, batch.size and
+ *   compression.type derived from that topic's window. Kafka fixes these per producer, so they are not
+ *   changed afterwards; later bulk topics share it.
+ * - Windows are evaluated on a background thread, never on the send path. A topic that moves keeps
+ *   its records in order: sends made while its records are still in flight on the producer it leaves
+ *   wait here, and are handed to the new producer once the last of those is acknowledged
+ * - With tuning disabled this is one template and no bookkeeping
+ */
+@Slf4j
+public class TopicProducers implements Closeable {
+
+    private final ProducerTuningProperties props;
+    private final Function<Map<String, Object>, KafkaTemplate<String, byte[]>> templates;
+    private final LongSupplier nanoClock;
+    private final long windowNanos;
+    private final KafkaTemplate<String, byte[]> standard;
+    private final List<KafkaTemplate<String, byte[]>> created = new ArrayList<>();
+    private final Map<String, TopicTraffic> traffic = new ConcurrentHashMap<>();
+    /** Evaluates windows and hands over moved topics; {@code null} when driven by {@link #evaluate()} directly. */
+    @Nullable
+    private final ScheduledExecutorService evaluator;
+    private volatile KafkaTemplate<String, byte[]> latency;
+    private volatile KafkaTemplate<String, byte[]> bulk;
+
+    /**
+     * @param templates creates a byte[] template on the application's producer settings plus the given overrides
+     */
+    public TopicProducers(ProducerTuningProperties props,
+                          Function<Map<String, Object>, KafkaTemplate<String, byte[]>> templates) {
+        this(props, templates, System::nanoTime, props.isEnabled()
+                ? Executors.newSingleThreadScheduledExecutor(TopicProducers::evaluatorThread)
+                : null);
+    }
+
+    /**
+     * @param evaluator runs the window evaluation every window; without one, call {@link #evaluate()}
+     *                  and moved topics are handed over on the thread that acknowledges their last send
+     */
+    TopicProducers(ProducerTuningProperties props,
+                   Function<Map<String, Object>, KafkaTemplate<String, byte[]>> templates,
+                   LongSupplier nanoClock,
+                   @Nullable ScheduledExecutorService evaluator) {
+        this.props = props;
+        this.templates = templates;
+        this.nanoClock = nanoClock;
+        this.windowNanos = Math.max(1, props.getWindow().toNanos());
+        this.standard = create(Map.of());
+        this.evaluator = evaluator;
+        if (evaluator != null) {
+            evaluator.scheduleWithFixedDelay(this::evaluateSafely, windowNanos, windowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private TopicProducers(KafkaTemplate<String, byte[]> template) {
+        this.props = new ProducerTuningProperties();
+        this.templates = overrides -> template;
+        this.nanoClock = System::nanoTime;
+        this.windowNanos = Long.MAX_VALUE;
+        this.standard = template;
+        this.evaluator = null;
+    }
+
+    /**
+     * Every topic through {@code template}, untuned. The template is not closed by {@link #close()}.
+     */
+    public static TopicProducers fixed(KafkaTemplate<String, byte[]> template) {
+        return new TopicProducers(template);
+    }
+
+    private static Thread evaluatorThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "messaging-producer-tuning");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    public CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+        if (!props.isEnabled()) {
+            return standard.send(record);
+        }
+        TopicTraffic topic = traffic.computeIfAbsent(record.topic(), this::newTraffic);
+        if (topic.pinned) {
+            return template(topic.topicClass).send(record);
+        }
+
+        topic.records.increment();
+        topic.bytes.add((record.key() != null ? record.key().length() : 0)
+                + (record.value() != null ? record.value().length : 0));
+        TopicClass topicClass;
+        synchronized (topic) {
+            if (topic.moving()) {
+                Waiting waiting = new Waiting(record);
+                topic.waiting.addLast(waiting);
+                return waiting.future;
+            }
+            topic.inFlight++;
+            topicClass = topic.topicClass;
+        }
+        return sendTracked(topic, template(topicClass), record);
+    }
+
+    /**
+     * The class {@code topic} is currently sent with.
+     */
+    public TopicClass classOf(String topic) {
+        if (!props.isEnabled()) {
+            return TopicClass.STANDARD;
+        }
+        TopicTraffic observed = traffic.get(topic);
+        if (observed != null) {
+            return observed.topicClass;
+        }
+        TopicClass pinned = props.pinnedClass(topic);
+        return pinned != null ? pinned : TopicClass.STANDARD;
+    }
+
+    private TopicTraffic newTraffic(String topic) {
+        TopicClass pinned = props.pinnedClass(topic);
+        return new TopicTraffic(topic, pinned != null ? pinned : TopicClass.STANDARD, pinned != null,
+                nanoClock.getAsLong());
+    }
+
+    /**
+     * Send counted in the topic's in-flight records (the caller has incremented them) and its window.
+     */
+    private CompletableFuture<SendResult<String, byte[]>> sendTracked(TopicTraffic topic,
+                                                                      KafkaTemplate<String, byte[]> template,
+                                                                      ProducerRecord<String, byte[]> record) {
+        long startNanos = nanoClock.getAsLong();
+        CompletableFuture<SendResult<String, byte[]>> future;
+        try {
+            future = template.send(record);
+        } catch (RuntimeException e) {
+            completed(topic);
+            throw e;
+        }
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                topic.acks.increment();
+                topic.ackNanos.add(nanoClock.getAsLong() - startNanos);
+            }
+            completed(topic);
+        });
+        return future;
+    }
+
+    private void completed(TopicTraffic topic) {
+        boolean drained;
+        synchronized (topic) {
+            drained = --topic.inFlight == 0 && topic.movingTo != null;
+        }
+        if (drained) {
+            // not on the Kafka I/O thread: handing over sends to the new producer may block
+            try {
+                if (evaluator != null) {
+                    evaluator.execute(() -> handOver(topic));
+                    return;
+                }
+            } catch (RejectedExecutionException closed) {
+                // closing: hand over here
+            }
+            handOver(topic);
+        }
+    }
+
+    /**
+     * Evaluate the topics whose window has ended.
+     */
+    void evaluate() {
+        long now = nanoClock.getAsLong();
+        for (TopicTraffic topic : traffic.values()) {
+            if (!topic.pinned && now - topic.windowStart >= windowNanos) {
+                evaluate(topic, now);
+            }
+        }
+    }
+
+    private void evaluateSafely() {
+        try {
+            evaluate();
+        } catch (RuntimeException e) {
+            log.warn("Producer class evaluation failed", e);
+        }
+    }
+
+    private void evaluate(TopicTraffic topic, long now) {
+        long elapsed = now - topic.windowStart;
+        topic.windowStart = now;
+        Window window = new Window(topic.records.sumThenReset(), topic.bytes.sumThenReset(),
+                topic.acks.sumThenReset(), topic.ackNanos.sumThenReset(), elapsed);
+        TopicClass target = classify(topic.topicClass, window);
+        if (target == topic.topicClass) {
+            return;
+        }
+        if (target == TopicClass.BULK) {
+            bulk(window);
+        }
+        synchronized (topic) {
+            if (topic.moving()) {
+                return;
+            }
+            topic.movingTo = target;
+        }
+        log.info("Producer class changing [topic={}, from={}, to={}, recordsPerSecond={}, avgRecordBytes={}, avgAckMs={}]",
+                topic.name, topic.topicClass, target, Math.round(window.recordsPerSecond()),
+                Math.round(window.avgRecordBytes()), window.avgAckNanos() / 1_000_000);
+        handOver(topic);
+    }
+
+    /**
+     * Once nothing of the topic is in flight on the producer it leaves, switch it and send what waited,
+     * in order; sends made meanwhile keep queueing behind them.
+     */
+    private void handOver(TopicTraffic topic) {
+        synchronized (topic) {
+            if (topic.movingTo == null || topic.inFlight > 0) {
+                return;
+            }
+            topic.topicClass = topic.movingTo;
+            topic.movingTo = null;
+            topic.handingOver = true;
+        }
+        sendWaiting(topic);
+    }
+
+    private void sendWaiting(TopicTraffic topic) {
+        while (true) {
+            Waiting waiting;
+            TopicClass topicClass;
+            synchronized (topic) {
+                waiting = topic.waiting.pollFirst();
+                if (waiting == null) {
+                    topic.handingOver = false;
+                    return;
+                }
+                topic.inFlight++;
+                topicClass = topic.topicClass;
+            }
+            CompletableFuture<SendResult<String, byte[]>> sent;
+            try {
+                sent = sendTracked(topic, template(topicClass), waiting.record);
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+            sent.whenComplete((result, error) -> {
+                if (error != null) {
+                    waiting.future.completeExceptionally(error);
+                } else {
+                    waiting.future.complete(result);
+                }
+            });
+        }
+    }
+
+    private TopicClass classify(TopicClass current, Window window) {
+        ProducerTuningProperties.Bulk thresholds = props.getBulk();
+        if (current == TopicClass.BULK) {
+            boolean quiet = window.recordsPerSecond() < thresholds.getMinRecordsPerSecond() / 2
+                    && window.avgRecordBytes() < thresholds.getMinRecordBytes() / 2.0;
+            return quiet ? TopicClass.STANDARD : TopicClass.BULK;
+        }
+        boolean heavy = window.recordsPerSecond() >= thresholds.getMinRecordsPerSecond()
+                || window.avgRecordBytes() >= thresholds.getMinRecordBytes();
+        return heavy ? TopicClass.BULK : TopicClass.STANDARD;
+    }
+
+    private KafkaTemplate<String, byte[]> template(TopicClass topicClass) {
+        return switch (topicClass) {
+            case STANDARD -> standard;
+            case LATENCY -> latency();
+            case BULK -> bulk != null ? bulk : bulk(null);
+        };
+    }
+
+    private KafkaTemplate<String, byte[]> latency() {
+        KafkaTemplate<String, byte[]> template = latency;
+        if (template == null) {
+            synchronized (this) {
+                if (latency == null) {
+                    latency = create(Map.of(
+                            ProducerConfig.LINGER_MS_CONFIG, 0,
+                            ProducerConfig.COMPRESSION_TYPE_CONFIG, "none"));
+                }
+                template = latency;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * The BULK template, created on first use from {@code window}:
+     * linger.ms is half the ack latency (a shorter wait barely fills a batch, a longer one adds
+     * to the latency the broker already costs), batch.size the bytes expected per linger,
+     * and batches expected to stay tiny are not compressed.
+     * Without a window (a topic pinned to BULK sent first) the lower bounds and the configured codec are used.
+     */
+    private synchronized KafkaTemplate<String, byte[]> bulk(@Nullable Window window) {
+        if (bulk != null) {
+            return bulk;
+        }
+        ProducerTuningProperties.Bulk bounds = props.getBulk();
+        if (window == null) {
+            return createBulk(bounds.getMinLinger().toMillis(), bounds.getMinBatchBytes(), bounds.getCompression());
+        }
+        long lingerMs = clamp(TimeUnit.NANOSECONDS.toMillis(window.avgAckNanos() / 2),
+                bounds.getMinLinger().toMillis(), bounds.getMaxLinger().toMillis());
+        long expectedBytes = (long) Math.max(window.avgRecordBytes(),
+                window.recordsPerSecond() * lingerMs / 1000.0 * window.avgRecordBytes());
+        int batchSize = (int) clamp(Long.highestOneBit(Math.max(1, expectedBytes - 1)) << 1,
+                bounds.getMinBatchBytes(), bounds.getMaxBatchBytes());
+        String compression = expectedBytes >= bounds.getMinCompressedBatchBytes() ? bounds.getCompression() : "none";
+        return createBulk(lingerMs, batchSize, compression);
+    }
+
+    private KafkaTemplate<String, byte[]> createBulk(long lingerMs, int batchSize, String compression) {
+        log.info("Creating bulk producer [linger.ms={}, batch.size={}, compression.type={}]",
+                lingerMs, batchSize, compression);
+        bulk = create(Map.of(
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, compression));
+        return bulk;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private synchronized KafkaTemplate<String, byte[]> create(Map<String, Object> overrides) {
+        KafkaTemplate<String, byte[]> template = templates.apply(overrides);
+        created.add(template);
+        return template;
+    }
+
+    /**
+     * Stops evaluating, sends what waits for a move without waiting further, and closes the producers created here.
+     */
+    @Override
+    public synchronized void close() {
+        if (evaluator != null) {
+            evaluator.shutdownNow();
+        }
+        for (TopicTraffic topic : traffic.values()) {
+            synchronized (topic) {
+                if (topic.movingTo == null) {
+                    continue;
+                }
+                topic.topicClass = topic.movingTo;
+                topic.movingTo = null;
+                topic.handingOver = true;
+            }
+            sendWaiting(topic);
+        }
+        for (KafkaTemplate<String, byte[]> template : created) {
+            try {
+                template.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to close producer", e);
+            }
+        }
+        created.clear();
+    }
+
+    /**
+     * One observation window of a topic.
+     */
+    private record Window(long records, long bytes, long acks, long ackNanos, long elapsedNanos) {
+        double recordsPerSecond() {
+            return records * 1e9 / elapsedNanos;
+        }
+
+        double avgRecordBytes() {
+            return records == 0 ? 0 : (double) bytes / records;
+        }
+
+        long avgAckNanos() {
+            return acks == 0 ? 0 : ackNanos / acks;
+        }
+    }
+
+    /**
+     * Class, running counters and move state of one topic; the move state is guarded by the instance.
+     */
+    private static final class TopicTraffic {
+        private final String name;
+        private final boolean pinned;
+        private final LongAdder records = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder acks = new LongAdder();
+        private final LongAdder ackNanos = new LongAdder();
+        private final ArrayDeque<Waiting> waiting = new ArrayDeque<>();
+        private volatile TopicClass topicClass;
+        private volatile long windowStart;
+        private int inFlight;
+        /** Class the topic moves to once {@link #inFlight} drains. */
+        private TopicClass movingTo;
+        /** Waiting sends are being handed to the new producer. */
+        private boolean handingOver;
+
+        private TopicTraffic(String name, TopicClass topicClass, boolean pinned, long windowStart) {
+            this.name = name;
+            this.topicClass = topicClass;
+            this.pinned = pinned;
+            this.windowStart = windowStart;
+        }
+
+        /** New sends must wait behind the ones already waiting. */
+        boolean moving() {
+            return movingTo != null || handingOver;
+        }
+    }
+
+    /**
+     * A send waiting for its topic to move.
+     */
+    private static final class Waiting {
+        private final ProducerRecord<String, byte[]> record;
+        private final CompletableFuture<SendResult<String, byte[]>> future = new CompletableFuture<>();
+
+        private Waiting(ProducerRecord<String, byte[]> record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.learning.messaging.replay;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/messagingreplay}) to start, watch and cancel DLQ replays.
+ * Expose it with management.endpoints.web.exposure.include.
+ * <p>
+ * - {@code GET /actuator/messagingreplay} — all replays since startup
+ * - {@code GET /actuator/messagingreplay/{id}} — one replay
+ * - {@code POST /actuator/messagingreplay} with a JSON body of {@link ReplayRequest} fields
+ *   ({@code from}/{@code to} as ISO-8601 instants) — start a replay
+ * - {@code DELETE /actuator/messagingreplay/{id}} — cancel a replay
+ */
+@Endpoint(id = "messagingreplay")
+public class DlqReplayEndpoint {
+
+    private final DlqReplayer replayer;
+
+    public DlqReplayEndpoint(DlqReplayer replayer) {
+        this.replayer = replayer;
+    }
+
+    @ReadOperation
+    public List<ReplayStatus> replays() {
+        return replayer.jobs().stream()
+                .map(ReplayJob::status)
+                .sorted(Comparator.comparing(ReplayStatus::startedAt, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    @ReadOperation
+    public ReplayStatus replay(@Selector String id) {
+        return replayer.job(id).map(ReplayJob::status).orElse(null);
+    }
+
+    @WriteOperation
+    public ReplayStatus start(String dlqTopic,
+                              @Nullable String name,
+                              @Nullable String targetTopic,
+                              @Nullable String from,
+                              @Nullable String to,
+                              @Nullable String key,
+                              @Nullable String errorClass,
+                              @Nullable Double ratePerSecond,
+                              @Nullable Long limit,
+                              @Nullable Boolean dryRun,
+                              @Nullable Boolean resume) {
+        ReplayRequest request = new ReplayRequest(name, dlqTopic, targetTopic,
+                from != null ? Instant.parse(from) : null,
+                to != null ? Instant.parse(to) : null,
+                key, errorClass, ratePerSecond,
+                limit != null ? limit : 0,
+                Boolean.TRUE.equals(dryRun),
+                !Boolean.FALSE.equals(resume));
+        return replayer.start(request).status();
+    }
+
+    @DeleteOperation
+    public ReplayStatus cancel(@Selector String id) {
+        return replayer.cancel(id).map(ReplayJob::status).orElse(null);
+    }
+}
@@ -0,0 +1,147 @@
+package com.learning.messaging.replay;
+
+import com.learning.messaging.config.ReplayProperties;
+import com.learning.messaging.producer.EventProducer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts and tracks DLQ replays (see {@link ReplayJob}); also exposed as
+ * {@code /actuator/messagingreplay} by {@link DlqReplayEndpoint}.
+ * <p>
+ * - Each replay gets its own thread and Kafka consumer; partitions are assigned manually
+ *   and no offsets are committed, progress lives in the named checkpoint instead
+ * - Only one replay per name runs at a time (they would share a checkpoint)
+ * - On shutdown running replays are cancelled; a later replay with the same name resumes them
+ */
+@Slf4j
+public class DlqReplayer implements SmartLifecycle {
+
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final Deserializer<Object> valueDeserializer;
+    private final EventProducer<Object> producer;
+    private final ReplayCheckpoints checkpoints;
+    private final ReplayProperties props;
+    private final Map<String, ReplayJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Thread> threads = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile boolean running;
+
+    public DlqReplayer(ConsumerFactory<?, ?> consumerFactory,
+                       Deserializer<Object> valueDeserializer,
+                       EventProducer<Object> producer,
+                       ReplayCheckpoints checkpoints,
+                       ReplayProperties props) {
+        this.consumerFactory = consumerFactory;
+        this.valueDeserializer = valueDeserializer;
+        this.producer = producer;
+        this.checkpoints = checkpoints;
+        this.props = props;
+    }
+
+    /**
+     * Start a replay in the background.
+     *
+     * @throws IllegalStateException if a replay with the same name is still running
+     */
+    public synchronized ReplayJob start(ReplayRequest request) {
+        if (!running) {
+            throw new IllegalStateException("DLQ replayer is not running");
+        }
+        for (ReplayJob job : jobs.values()) {
+            if (job.request().name().equals(request.name()) && isActive(job)) {
+                throw new IllegalStateException("Replay '" + request.name() + "' is already running as " + job.id());
+            }
+        }
+        String id = request.name() + "-" + sequence.incrementAndGet();
+        ReplayJob job = new ReplayJob(id, request, createConsumer(id), valueDeserializer, producer, checkpoints, props);
+        Thread thread = new Thread(job, "messaging-replay-" + id);
+        thread.setDaemon(true);
+        jobs.put(id, job);
+        threads.put(id, thread);
+        thread.start();
+        return job;
+    }
+
+    public Optional<ReplayJob> job(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public List<ReplayJob> jobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * Cancel a replay; it stops after the batch in flight.
+     *
+     * @return the replay, empty if unknown
+     */
+    public Optional<ReplayJob> cancel(String id) {
+        ReplayJob job = jobs.get(id);
+        if (job != null) {
+            job.cancel();
+        }
+        return Optional.ofNullable(job);
+    }
+
+    private static boolean isActive(ReplayJob job) {
+        return job.state() == ReplayJob.State.PENDING || job.state() == ReplayJob.State.RUNNING;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, byte[]> createConsumer(String id) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.max(1, props.getBatchSize()));
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        return (Consumer<String, byte[]>) consumerFactory.createConsumer(null, null, "-replay-" + id, overrides);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        jobs.values().forEach(ReplayJob::cancel);
+        long deadline = System.nanoTime() + props.getBatchTimeout().plus(props.getPollTimeout()).toNanos();
+        for (Thread thread : threads.values()) {
+            try {
+                thread.join(Math.max(1, (deadline - System.nanoTime()) / 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads.clear();
+        jobs.values().stream()
+                .filter(DlqReplayer::isActive)
+                .forEach(job -> log.warn("🔁 Replay still running at shutdown [id={}]", job.id()));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
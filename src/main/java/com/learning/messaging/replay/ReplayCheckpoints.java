@@ -0,0 +1,87 @@
+package com.learning.messaging.replay;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Per-replay checkpoint files: for each partition of the DLQ topic, the offset of the next
+ * record to replay.
+ * <p>
+ * Files are written to a temp file, forced and atomically moved into place, so a crash
+ * leaves either the previous or the new checkpoint, never a torn one.
+ */
+public class ReplayCheckpoints {
+
+    private static final String SUFFIX = ".checkpoint";
+    private static final String TOPIC = "topic";
+
+    private final Path directory;
+
+    public ReplayCheckpoints(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The saved offsets of a replay, empty when there is none (or it was for another topic).
+     */
+    public Map<TopicPartition, Long> load(String name, String topic) {
+        Path file = directory.resolve(name + SUFFIX);
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        if (!Files.exists(file)) {
+            return offsets;
+        }
+        Properties saved = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            saved.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read replay checkpoint " + file, e);
+        }
+        if (!topic.equals(saved.getProperty(TOPIC))) {
+            return offsets;
+        }
+        for (String property : saved.stringPropertyNames()) {
+            if (!TOPIC.equals(property)) {
+                offsets.put(new TopicPartition(topic, Integer.parseInt(property)),
+                        Long.parseLong(saved.getProperty(property)));
+            }
+        }
+        return offsets;
+    }
+
+    public void save(String name, String topic, Map<TopicPartition, Long> offsets) {
+        Properties properties = new Properties();
+        properties.setProperty(TOPIC, topic);
+        offsets.forEach((partition, offset) ->
+                properties.setProperty(Integer.toString(partition.partition()), Long.toString(offset)));
+
+        Path file = directory.resolve(name + SUFFIX);
+        Path tmp = directory.resolve(name + SUFFIX + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(tmp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+                properties.store(writer, null);
+                writer.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write replay checkpoint " + file, e);
+        }
+    }
+}
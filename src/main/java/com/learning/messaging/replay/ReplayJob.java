@@ -0,0 +1,316 @@
+package com.learning.messaging.replay;
+
+import com.learning.messaging.config.ReplayProperties;
+import com.learning.messaging.dto.BatchPublishResult;
+import com.learning.messaging.dto.Keyed;
+import com.learning.messaging.headers.MessagingHeaders;
+import com.learning.messaging.producer.EventProducer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One replay of a DLQ topic, run on its own thread.
+ * <p>
+ * - Reads every partition from the checkpoint (or {@code from}, or the beginning) up to the end
+ *   offsets seen when it started, so records that fail again and land back in the DLQ are not
+ *   picked up by the same replay
+ * - Filters are applied on the raw record (timestamp, key, headers); only matching records are
+ *   deserialized
+ * - Matching records of a poll are republished through {@link EventProducer#sendAll}, grouped by
+ *   original topic, after taking permits from the rate limiter, with their original message ids
+ * - The checkpoint moves only after a batch is acknowledged, so a crash re-sends at most one batch
+ */
+@Slf4j
+public class ReplayJob implements Runnable {
+
+    /**
+     * Lifecycle of a replay.
+     */
+    public enum State { PENDING, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    private final String id;
+    private final ReplayRequest request;
+    private final Consumer<String, byte[]> consumer;
+    private final Deserializer<Object> valueDeserializer;
+    private final EventProducer<Object> producer;
+    private final ReplayCheckpoints checkpoints;
+    private final ReplayProperties props;
+    private final TokenBucket rateLimiter;
+
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+
+    private volatile State state = State.PENDING;
+    private volatile boolean cancelled;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public ReplayJob(String id,
+                     ReplayRequest request,
+                     Consumer<String, byte[]> consumer,
+                     Deserializer<Object> valueDeserializer,
+                     EventProducer<Object> producer,
+                     ReplayCheckpoints checkpoints,
+                     ReplayProperties props) {
+        this.id = id;
+        this.request = request;
+        this.consumer = consumer;
+        this.valueDeserializer = valueDeserializer;
+        this.producer = producer;
+        this.checkpoints = checkpoints;
+        this.props = props;
+        this.rateLimiter = new TokenBucket(request.ratePerSecond() != null
+                ? request.ratePerSecond()
+                : props.getRatePerSecond());
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public ReplayRequest request() {
+        return request;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /**
+     * Ask the replay to stop after the batch in flight; the checkpoint keeps its progress.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public ReplayStatus status() {
+        return new ReplayStatus(id, request.name(), request.dlqTopic(), state, request.dryRun(),
+                scanned.get(), matched.get(), replayed.get(), failed.get(), skipped.get(),
+                startedAt, finishedAt, error);
+    }
+
+    @Override
+    public void run() {
+        state = State.RUNNING;
+        startedAt = Instant.now();
+        log.info("🔁 Replay started [id={}, name={}, dlqTopic={}, dryRun={}]",
+                id, request.name(), request.dlqTopic(), request.dryRun());
+        try (consumer) {
+            replay();
+            state = cancelled ? State.CANCELLED : State.COMPLETED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = State.CANCELLED;
+        } catch (Exception e) {
+            error = e.toString();
+            state = State.FAILED;
+            log.error("🔁 Replay failed [id={}, name={}, dlqTopic={}]", id, request.name(), request.dlqTopic(), e);
+        } finally {
+            finishedAt = Instant.now();
+        }
+        log.info("🔁 Replay finished [id={}, state={}, scanned={}, matched={}, replayed={}, failed={}, skipped={}]",
+                id, state, scanned.get(), matched.get(), replayed.get(), failed.get(), skipped.get());
+    }
+
+    private void replay() throws InterruptedException, ExecutionException, TimeoutException {
+        String topic = request.dlqTopic();
+        List<TopicPartition> partitions = new ArrayList<>();
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+        if (infos == null || infos.isEmpty()) {
+            throw new IllegalArgumentException("DLQ topic not found: " + topic);
+        }
+        for (PartitionInfo info : infos) {
+            partitions.add(new TopicPartition(topic, info.partition()));
+        }
+        consumer.assign(partitions);
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        seek(partitions);
+
+        Set<TopicPartition> remaining = new HashSet<>(partitions);
+        List<ConsumerRecord<String, byte[]>> batch = new ArrayList<>(Math.max(1, props.getBatchSize()));
+        while (!cancelled) {
+            remaining.removeIf(partition -> consumer.position(partition) >= endOffsets.get(partition));
+            if (remaining.isEmpty() || limitReached()) {
+                return;
+            }
+            ConsumerRecords<String, byte[]> records = consumer.poll(props.getPollTimeout());
+            for (TopicPartition partition : records.partitions()) {
+                long end = endOffsets.get(partition);
+                for (ConsumerRecord<String, byte[]> record : records.records(partition)) {
+                    if (record.offset() >= end || limitReached()) {
+                        break;
+                    }
+                    scanned.incrementAndGet();
+                    if (matches(record)) {
+                        matched.incrementAndGet();
+                        batch.add(record);
+                    }
+                    nextOffsets.put(partition, record.offset() + 1);
+                }
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void seek(List<TopicPartition> partitions) {
+        Map<TopicPartition, Long> saved = request.resume()
+                ? checkpoints.load(request.name(), request.dlqTopic())
+                : Map.of();
+        List<TopicPartition> fresh = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            Long offset = saved.get(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset);
+                nextOffsets.put(partition, offset);
+            } else {
+                fresh.add(partition);
+            }
+        }
+        if (!saved.isEmpty()) {
+            log.info("🔁 Replay resumed from checkpoint [id={}, name={}, offsets={}]", id, request.name(), saved);
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+        if (request.from() == null) {
+            consumer.seekToBeginning(fresh);
+            return;
+        }
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        fresh.forEach(partition -> timestamps.put(partition, request.from().toEpochMilli()));
+        Map<TopicPartition, OffsetAndTimestamp> offsets = consumer.offsetsForTimes(timestamps);
+        List<TopicPartition> nothingAfter = new ArrayList<>();
+        for (TopicPartition partition : fresh) {
+            OffsetAndTimestamp offset = offsets.get(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset.offset());
+            } else {
+                nothingAfter.add(partition);
+            }
+        }
+        consumer.seekToEnd(nothingAfter);
+    }
+
+    private boolean limitReached() {
+        return request.limit() > 0 && matched.get() >= request.limit();
+    }
+
+    boolean matches(ConsumerRecord<String, byte[]> record) {
+        if (request.from() != null && record.timestamp() < request.from().toEpochMilli()) {
+            return false;
+        }
+        if (request.to() != null && record.timestamp() > request.to().toEpochMilli()) {
+            return false;
+        }
+        if (request.key() != null && !request.key().equals(record.key())) {
+            return false;
+        }
+        if (request.errorClass() != null) {
+            String errorClass = header(record, MessagingHeaders.ERROR_CLASS);
+            return errorClass != null
+                    && (errorClass.equals(request.errorClass()) || errorClass.endsWith("." + request.errorClass()));
+        }
+        return true;
+    }
+
+    /**
+     * Republish a poll's matching records and move the checkpoint past them.
+     */
+    private void flush(List<ConsumerRecord<String, byte[]>> batch)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Map<String, List<Keyed<Object>>> byTopic = new LinkedHashMap<>();
+        int publishable = 0;
+        for (ConsumerRecord<String, byte[]> record : batch) {
+            String target = request.targetTopic() != null
+                    ? request.targetTopic()
+                    : header(record, MessagingHeaders.ORIGINAL_TOPIC);
+            if (target == null) {
+                skip(record, "no original topic");
+                continue;
+            }
+            if (record.value() == null) {
+                skip(record, "tombstone");
+                continue;
+            }
+            Object event = deserialize(record);
+            if (event == null) {
+                skip(record, "undeserializable value");
+                continue;
+            }
+            // keep the original message id, so consumers that already processed the record drop it
+            byTopic.computeIfAbsent(target, t -> new ArrayList<>())
+                    .add(Keyed.of(record.key(), event, header(record, MessagingHeaders.MESSAGE_ID)));
+            publishable++;
+        }
+        if (request.dryRun()) {
+            return;
+        }
+
+        rateLimiter.acquire(publishable);
+        List<CompletableFuture<BatchPublishResult>> results = new ArrayList<>(byTopic.size());
+        byTopic.forEach((target, keyed) -> results.add(producer.sendAll(target, keyed)));
+
+        long deadline = System.nanoTime() + props.getBatchTimeout().toNanos();
+        for (CompletableFuture<BatchPublishResult> future : results) {
+            BatchPublishResult result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            replayed.addAndGet(result.getSucceeded());
+            failed.addAndGet(result.getFailed());
+            if (!result.isAllSucceeded()) {
+                log.warn("🔁 Replay batch partially failed [id={}, topic={}, failed={}, of={}, traceId={}]",
+                        id, result.getTopic(), result.getFailed(), result.getResults().size(), result.getTraceId());
+            }
+        }
+        if (!nextOffsets.isEmpty()) {
+            checkpoints.save(request.name(), request.dlqTopic(), nextOffsets);
+        }
+    }
+
+    private Object deserialize(ConsumerRecord<String, byte[]> record) {
+        try {
+            return valueDeserializer.deserialize(record.topic(), record.headers(), record.value());
+        } catch (RuntimeException e) {
+            log.debug("Replay value deserialization failed [id={}, partition={}, offset={}]",
+                    id, record.partition(), record.offset(), e);
+            return null;
+        }
+    }
+
+    private void skip(ConsumerRecord<String, byte[]> record, String reason) {
+        skipped.incrementAndGet();
+        log.warn("🔁 Replay skipped record [id={}, partition={}, offset={}, key={}, reason={}]",
+                id, record.partition(), record.offset(), record.key(), reason);
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package com.learning.messaging.replay;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.regex.Pattern;
+
+/**
+ * What to replay and how.
+ *
+ * @param name          checkpoint name; a replay with the same name resumes where the last one stopped
+ *                      (defaults to the DLQ topic)
+ * @param dlqTopic      the DLQ topic to read
+ * @param targetTopic   topic to republish to; {@code null} uses each record's
+ *                      {@link com.learning.messaging.headers.MessagingHeaders#ORIGINAL_TOPIC} header
+ * @param from          only records written at or after this instant (also where reading starts)
+ * @param to            only records written at or before this instant
+ * @param key           only records with this key
+ * @param errorClass    only records that failed with this error (fully qualified or simple class name)
+ * @param ratePerSecond maximum records republished per second; {@code null} uses the configured default,
+ *                      0 = unlimited
+ * @param limit         stop after this many matching records (0 = no limit)
+ * @param dryRun        scan and count matching records without republishing or moving the checkpoint
+ * @param resume        start from the named checkpoint when there is one
+ */
+public record ReplayRequest(String name,
+                            String dlqTopic,
+                            @Nullable String targetTopic,
+                            @Nullable Instant from,
+                            @Nullable Instant to,
+                            @Nullable String key,
+                            @Nullable String errorClass,
+                            @Nullable Double ratePerSecond,
+                            long limit,
+                            boolean dryRun,
+                            boolean resume) {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+    public ReplayRequest {
+        if (dlqTopic == null || dlqTopic.isBlank()) {
+            throw new IllegalArgumentException("dlqTopic is required");
+        }
+        if (name == null || name.isBlank()) {
+            name = dlqTopic;
+        }
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Replay name may only contain letters, digits, '.', '_' and '-': " + name);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from (" + from + ") is after to (" + to + ")");
+        }
+        if (ratePerSecond != null && ratePerSecond < 0) {
+            throw new IllegalArgumentException("ratePerSecond must not be negative");
+        }
+    }
+
+    /**
+     * Replay every record of a DLQ topic to its original topic, at the configured rate.
+     */
+    public static ReplayRequest of(String dlqTopic) {
+        return new ReplayRequest(null, dlqTopic, null, null, null, null, null, null, 0, false, true);
+    }
+}
@@ -0,0 +1,28 @@
+package com.learning.messaging.replay;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of a replay's progress.
+ *
+ * @param scanned  DLQ records read
+ * @param matched  records that passed the filters
+ * @param replayed records republished successfully
+ * @param failed   records whose republish failed (they go back to the DLQ through the exhausted handlers)
+ * @param skipped  matching records that could not be republished (no original topic, tombstone,
+ *                 undeserializable value)
+ */
+public record ReplayStatus(String id,
+                           String name,
+                           String dlqTopic,
+                           ReplayJob.State state,
+                           boolean dryRun,
+                           long scanned,
+                           long matched,
+                           long replayed,
+                           long failed,
+                           long skipped,
+                           Instant startedAt,
+                           Instant finishedAt,
+                           String error) {
+}
@@ -0,0 +1,48 @@
+package com.learning.messaging.replay;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking token-bucket rate limiter.
+ * <p>
+ * Holds up to one second of permits, so a replay may burst briefly after an idle period
+ * but never exceeds the rate over any longer window. A request larger than the available
+ * permits is granted after sleeping off the debt, so batches larger than the bucket still work.
+ */
+final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * @param permitsPerSecond sustained rate; 0 or less means unlimited
+     */
+    TokenBucket(double permitsPerSecond) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, permitsPerSecond);
+        this.tokens = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Take {@code permits}, sleeping until the bucket can pay for them.
+     */
+    void acquire(int permits) throws InterruptedException {
+        if (permitsPerNano <= 0 || permits <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+            tokens -= permits;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / permitsPerNano);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.learning.messaging.retry;
+
+import com.learning.messaging.config.RetryProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker for one topic.
+ * <p>
+ * - CLOSED: every attempt is permitted; outcomes are counted over tumbling windows of
+ *   {@code windowSize} attempts, and a window at or above the failure-rate threshold opens the circuit
+ * - OPEN: attempts are rejected for {@code openDuration}
+ * - HALF_OPEN: up to {@code halfOpenProbes} attempts are let through; if they all succeed the
+ *   circuit closes, the first failure re-opens it
+ * <p>
+ * The permitted path is lock-free; only state transitions synchronize.
+ */
+@Slf4j
+public final class CircuitBreaker {
+
+    /**
+     * Breaker state; the ordinal is the value of the state gauge.
+     */
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final String topic;
+    private final double failureRateThreshold;
+    private final int windowSize;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger probesIssued = new AtomicInteger();
+    private final AtomicInteger probesSucceeded = new AtomicInteger();
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    public CircuitBreaker(String topic, RetryProperties.Breaker props) {
+        this.topic = topic;
+        this.failureRateThreshold = props.getFailureRateThreshold();
+        this.windowSize = Math.max(1, props.getWindowSize());
+        this.openNanos = props.getOpenDuration().toNanos();
+        this.halfOpenProbes = Math.max(1, props.getHalfOpenProbes());
+    }
+
+    /**
+     * Whether an attempt may be made now. Must be followed by {@link #onSuccess()} or
+     * {@link #onFailure()} when it returns {@code true}.
+     */
+    public boolean tryAcquire() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            halfOpen();
+        }
+        State now = state;
+        if (now == State.CLOSED) {
+            return true;
+        }
+        return now == State.HALF_OPEN && probesIssued.incrementAndGet() <= halfOpenProbes;
+    }
+
+    public void onSuccess() {
+        State current = state;
+        if (current == State.CLOSED) {
+            record(false);
+        } else if (current == State.HALF_OPEN && probesSucceeded.incrementAndGet() >= halfOpenProbes) {
+            close();
+        }
+    }
+
+    public void onFailure() {
+        State current = state;
+        if (current == State.CLOSED) {
+            record(true);
+        } else if (current == State.HALF_OPEN && state == State.HALF_OPEN) {
+            log.warn("🔌 Circuit re-opened after failed probe [topic={}]", topic);
+            open();
+        }
+    }
+
+    public State state() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (failed) {
+            failures.incrementAndGet();
+        }
+        if (calls.incrementAndGet() < windowSize) {
+            return;
+        }
+        synchronized (this) {
+            int windowCalls = calls.get();
+            if (windowCalls < windowSize || state != State.CLOSED) {
+                return;
+            }
+            double failureRate = (double) failures.get() / windowCalls;
+            calls.set(0);
+            failures.set(0);
+            if (failureRate >= failureRateThreshold) {
+                log.warn("🔌 Circuit opened [topic={}, failureRate={}, window={}, openMs={}]",
+                        topic, failureRate, windowCalls, openNanos / 1_000_000);
+                open();
+            }
+        }
+    }
+
+    private synchronized void open() {
+        openedAt = System.nanoTime();
+        state = State.OPEN;
+    }
+
+    private synchronized void halfOpen() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            probesIssued.set(0);
+            probesSucceeded.set(0);
+            state = State.HALF_OPEN;
+        }
+    }
+
+    private synchronized void close() {
+        if (state == State.HALF_OPEN) {
+            calls.set(0);
+            failures.set(0);
+            state = State.CLOSED;
+            log.info("🔌 Circuit closed [topic={}]", topic);
+        }
+    }
+}
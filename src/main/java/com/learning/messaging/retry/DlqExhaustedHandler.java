@@ -2,34 +2,289 @@ package com.learning.messaging.retry;
 
 import com.learning.messaging.config.RetryProperties;
 import com.learning.messaging.exceptions.RetryableSendException;
-import com.learning.messaging.producer.EventProducer;
-import lombok.RequiredArgsConstructor;
+import com.learning.messaging.headers.MessagingHeaders;
+import com.learning.messaging.serialization.EncodedEvent;
+import com.learning.messaging.serialization.EventCodecs;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Sends exhausted events to DLQ topic.
+ * <p>
+ * - {@link #onExhausted} only enqueues (bounded, never blocks), so producer I/O threads are never held up;
+ *   when the queue is full the record is dropped and counted
+ * - A dedicated flusher thread sends queued records in batches through its own {@link KafkaTemplate},
+ *   not through {@link com.learning.messaging.producer.EventProducer}: DLQ sends never re-enter
+ *   {@link RetryExecutor} and can't loop when the DLQ itself is failing
+ * - Failed DLQ sends get a few attempts of their own (messaging.producer.dlq.*), then are logged as lost
+ * - Each DLQ record carries the original topic, error, attempt count and traceId as {@link MessagingHeaders}
+ * - The value is the event exactly as the producer encoded it ({@link RetryableSendException#getEncoded()}),
+ *   with its content-type and type headers; it is only encoded here when the producer never did
+ * - Metrics: {@code messaging.dlq.sent}, {@code .dropped}, {@code .failed} counters and a {@code .queue.size} gauge
+ * <p>
+ * Disabled while the durable spool is enabled (messaging.spool.enabled=true):
+ * exhausted events then go to disk instead.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class DlqExhaustedHandler implements RetryExhaustedHandler {
+@ConditionalOnProperty(prefix = "messaging.spool", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class DlqExhaustedHandler implements RetryExhaustedHandler, SmartLifecycle {
+
+    private static final String METRIC_SENT = "messaging.dlq.sent";
+    private static final String METRIC_DROPPED = "messaging.dlq.dropped";
+    private static final String METRIC_FAILED = "messaging.dlq.failed";
+    private static final String METRIC_QUEUE_SIZE = "messaging.dlq.queue.size";
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
 
-    private final EventProducer<Object> producer;  // generic producer
     private final RetryProperties props;
+    private final KafkaTemplate<String, byte[]> template;
+    /** Whether the template was created here (and is closed on stop). */
+    private final boolean ownsTemplate;
+    private final EventCodecs codecs;
+    private final BlockingQueue<RetryableSendException> queue;
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public DlqExhaustedHandler(RetryProperties props,
+                               ProducerFactory<?, ?> producerFactory,
+                               EventCodecs codecs,
+                               MeterRegistry meterRegistry) {
+        this(props,
+                new KafkaTemplate<>((ProducerFactory<String, byte[]>) producerFactory,
+                        Map.of(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class)),
+                true,
+                codecs,
+                meterRegistry);
+    }
+
+    /**
+     * @param template sends the DLQ records; not closed by {@link #stop()}
+     */
+    public DlqExhaustedHandler(RetryProperties props,
+                               KafkaTemplate<String, byte[]> template,
+                               EventCodecs codecs,
+                               MeterRegistry meterRegistry) {
+        this(props, template, false, codecs, meterRegistry);
+    }
+
+    private DlqExhaustedHandler(RetryProperties props,
+                                KafkaTemplate<String, byte[]> template,
+                                boolean ownsTemplate,
+                                EventCodecs codecs,
+                                MeterRegistry meterRegistry) {
+        this.props = props;
+        this.template = template;
+        this.ownsTemplate = ownsTemplate;
+        this.codecs = codecs;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, props.getDlq().getQueueCapacity()));
+        this.sent = meterRegistry.counter(METRIC_SENT);
+        this.dropped = meterRegistry.counter(METRIC_DROPPED);
+        this.failed = meterRegistry.counter(METRIC_FAILED);
+        Gauge.builder(METRIC_QUEUE_SIZE, queue, BlockingQueue::size)
+                .description("Exhausted records waiting to be forwarded to the DLQ")
+                .register(meterRegistry);
+    }
 
     @Override
     public void onExhausted(RetryableSendException error) {
-        String dlqTopic = props.resolveDlqTopic(error.getTopic());
+        if (!queue.offer(error)) {
+            dropped.increment();
+            log.error("🚨 DLQ queue full, record dropped [originalTopic={}, key={}, traceId={}, queueCapacity={}]",
+                    error.getTopic(), error.getKey(), error.getTraceId(), props.getDlq().getQueueCapacity());
+        }
+    }
 
-        log.warn("🚨 Sending to DLQ [dlqTopic={}, originalTopic={}, key={}, traceId={}, timestamp={}]",
-                dlqTopic,
-                error.getTopic(),
-                error.getKey(),
-                error.getTraceId(),
-                error.getTimestamp());
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::run, "messaging-dlq-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
 
-        producer.send(dlqTopic, error.getKey(), error.getEvent());
+    /**
+     * Stops accepting new batches after the queue is drained (best effort, bounded by the send timeout),
+     * then closes the producer created here.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(props.getDlq().getSendTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("🚨 DLQ flusher stopped with records still queued [records={}]", queue.size());
+        }
+        if (ownsTemplate) {
+            try {
+                template.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to close DLQ producer", e);
+            }
+        }
     }
 
-}
\ No newline at end of file
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        int batchSize = Math.max(1, props.getDlq().getBatchSize());
+        List<RetryableSendException> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                RetryableSendException first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                forward(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("🚨 DLQ batch failed unexpectedly [records={}]", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Send a batch, re-sending only the records that failed, up to dlq.maxAttempts times.
+     */
+    void forward(List<RetryableSendException> batch) throws InterruptedException {
+        RetryProperties.Dlq dlq = props.getDlq();
+        List<RetryableSendException> pending = batch;
+        for (int attempt = 1; ; attempt++) {
+            List<RetryableSendException> failures = sendAndAwait(pending);
+            sent.increment(pending.size() - failures.size());
+            if (failures.isEmpty()) {
+                log.info("🚨 Forwarded to DLQ [records={}, attempt={}]", pending.size(), attempt);
+                return;
+            }
+            if (attempt >= dlq.getMaxAttempts()) {
+                failed.increment(failures.size());
+                for (RetryableSendException error : failures) {
+                    log.error("🚨 DLQ forwarding failed, record lost [dlqTopic={}, originalTopic={}, key={}, traceId={}, attempts={}]",
+                            props.resolveDlqTopic(error.getTopic()), error.getTopic(), error.getKey(),
+                            error.getTraceId(), attempt);
+                }
+                return;
+            }
+            log.warn("🚨 DLQ send partially failed → retrying [failed={}, of={}, attempt={}, backoffMs={}]",
+                    failures.size(), pending.size(), attempt, dlq.getBackoff().toMillis());
+            Thread.sleep(dlq.getBackoff().toMillis());
+            pending = failures;
+        }
+    }
+
+    private List<RetryableSendException> sendAndAwait(List<RetryableSendException> records) throws InterruptedException {
+        List<CompletableFuture<?>> futures = new ArrayList<>(records.size());
+        for (RetryableSendException error : records) {
+            CompletableFuture<?> future;
+            try {
+                future = template.send(toDlqRecord(error));
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.add(future);
+        }
+
+        long deadline = System.nanoTime() + props.getDlq().getSendTimeout().toNanos();
+        List<RetryableSendException> failures = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                failures.add(records.get(i));
+            }
+        }
+        return failures;
+    }
+
+    ProducerRecord<String, byte[]> toDlqRecord(RetryableSendException error) {
+        EncodedEvent encoded = error.getEncoded() != null ? error.getEncoded() : codecs.encode(error.getEvent());
+        Headers headers = encoded.headers();
+        header(headers, MessagingHeaders.ORIGINAL_TOPIC, error.getTopic());
+        header(headers, MessagingHeaders.TRACE_ID, error.getTraceId());
+        header(headers, MessagingHeaders.ATTEMPTS, Integer.toString(error.getAttempts()));
+        header(headers, MessagingHeaders.FAILED_AT, Long.toString(error.getTimestamp().toEpochMilli()));
+
+        Throwable cause = rootCause(error);
+        header(headers, MessagingHeaders.ERROR_CLASS, cause.getClass().getName());
+        String message = cause.getMessage();
+        if (message != null && message.length() > MAX_ERROR_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+        }
+        header(headers, MessagingHeaders.ERROR_MESSAGE, message);
+
+        return new ProducerRecord<>(props.resolveDlqTopic(error.getTopic()), null,
+                error.getKey(), encoded.payload(), headers);
+    }
+
+    private static void header(Headers headers, String name, String value) {
+        if (value != null) {
+            headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * The error that actually failed the send, below our own and Spring's wrappers.
+     */
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null
+                && (cause instanceof RetryableSendException
+                || cause instanceof CompletionException
+                || cause instanceof ExecutionException
+                || cause instanceof KafkaProducerException)) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -0,0 +1,39 @@
+package com.learning.messaging.retry;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RetryScheduler} backed by a {@link ScheduledThreadPoolExecutor}.
+ * <p>
+ * Every schedule is an O(log n) insertion into the executor's delay heap, which is fine
+ * for moderate retry volumes. Prefer {@link HashedWheelRetryScheduler} when a broker
+ * outage can leave a very large number of retries pending at once.
+ */
+public class ExecutorRetryScheduler implements RetryScheduler {
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final Executor workers;
+
+    public ExecutorRetryScheduler(ScheduledThreadPoolExecutor timer, Executor workers) {
+        this.timer = timer;
+        this.workers = workers;
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public void schedule(Runnable task, long delayMs) {
+        timer.schedule(() -> workers.execute(task), Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int pendingCount() {
+        return timer.getQueue().size();
+    }
+
+    @Override
+    public void shutdown() {
+        timer.shutdown();
+    }
+}
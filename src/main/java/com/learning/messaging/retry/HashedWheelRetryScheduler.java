@@ -0,0 +1,172 @@
+package com.learning.messaging.retry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link RetryScheduler} based on a hashed timing wheel.
+ * <p>
+ * - Scheduling is O(1): callers only append to a lock-free queue
+ * - A single timer thread moves new entries into wheel buckets and expires one bucket per tick
+ * - Expired retries are handed off to the worker pool, never run on the timer thread
+ * - Delays are rounded up to the tick duration (retries fire up to one tick late)
+ */
+@Slf4j
+public class HashedWheelRetryScheduler implements RetryScheduler {
+
+    /** Upper bound of new entries moved into the wheel per tick, so one burst cannot stall expiry. */
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final ArrayDeque<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Executor workers;
+    private final Thread timerThread;
+    private final long startNanos;
+
+    private volatile boolean running = true;
+
+    /** Only accessed by the timer thread. */
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedWheelRetryScheduler(long tickMs, int wheelSize, Executor workers, String threadName) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be > 0");
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize must be in (0, 2^30]");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        size = Math.max(1, size);
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.wheel = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+        this.workers = workers;
+        this.startNanos = System.nanoTime();
+
+        this.timerThread = new Thread(this::run, threadName);
+        this.timerThread.setDaemon(true);
+        this.timerThread.start();
+    }
+
+    @Override
+    public void schedule(Runnable task, long delayMs) {
+        if (!running) {
+            throw new RejectedExecutionException("retry scheduler has been shut down");
+        }
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+        pending.incrementAndGet();
+        incoming.add(new Timeout(task, deadline));
+    }
+
+    @Override
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        timerThread.interrupt();
+        try {
+            timerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int dropped = pending.getAndSet(0);
+        if (dropped > 0) {
+            log.warn("Retry scheduler shut down with pending retries [dropped={}]", dropped);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long now = waitForNextTick();
+            if (now < 0) {
+                break;
+            }
+            transferIncoming();
+            expire(wheel[(int) (tick & mask)], now);
+            tick++;
+        }
+    }
+
+    /**
+     * Sleep until the start of the next tick.
+     *
+     * @return elapsed nanos since start, or -1 if the scheduler was shut down
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startNanos;
+            long sleepMs = (deadline - now + 999_999) / 1_000_000;
+            if (sleepMs <= 0) {
+                return now;
+            }
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void transferIncoming() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = incoming.poll();
+            if (timeout == null) {
+                return;
+            }
+            long expiryTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            // deadlines already in the past go into the current bucket and fire right away
+            long targetTick = Math.max(expiryTick, tick);
+            wheel[(int) (targetTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(ArrayDeque<Timeout> bucket, long now) {
+        for (int i = bucket.size(); i > 0; i--) {
+            Timeout timeout = bucket.poll();
+            if (timeout.remainingRounds > 0 || timeout.deadline > now) {
+                timeout.remainingRounds--;
+                bucket.add(timeout);
+                continue;
+            }
+            pending.decrementAndGet();
+            try {
+                workers.execute(timeout.task);
+            } catch (RejectedExecutionException e) {
+                log.warn("Retry worker pool rejected a fired retry → dropping it", e);
+            }
+        }
+    }
+
+    private static final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
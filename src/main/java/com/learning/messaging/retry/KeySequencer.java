@@ -0,0 +1,168 @@
+package com.learning.messaging.retry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps records with the same key behind a pending retry.
+ * <p>
+ * Only single sends go through it; batch records (sendAll) are retried per round and not sequenced.
+ * <p>
+ * Every keyed send is registered when it is submitted: per key, the sequencer keeps a "tail" future
+ * that completes once all records submitted so far have reached their final outcome.
+ * <ul>
+ *   <li>{@link #submit} runs the send immediately when no record of the key is being retried (the common case,
+ *       so same-key sends stay pipelined), otherwise chains it after the tail</li>
+ *   <li>Each send is handed the tail as it was before it, so a retry can wait for the records ahead of it:
+ *       same-key records that failed while in flight together are retried in submission order</li>
+ *   <li>{@link #hold} queues later records of a key until a record being retried completes</li>
+ *   <li>Keys are removed as soon as their tail completes, so only keys with sends in flight cost memory</li>
+ * </ul>
+ * Keys are spread over lock-striped shards by hash, so unrelated keys never contend on a lock
+ * and never wait for each other. Queued sends are started on {@code executor}, not on the thread
+ * that completed the previous record (typically the Kafka I/O thread).
+ */
+public final class KeySequencer {
+
+    private static final CompletableFuture<Void> SETTLED = CompletableFuture.completedFuture(null);
+
+    private final Shard[] shards;
+    private final int mask;
+    private final Executor executor;
+
+    /**
+     * @param shards number of lock stripes, rounded up to a power of two
+     */
+    public KeySequencer(int shards, Executor executor) {
+        int size = Integer.highestOneBit(Math.max(1, shards - 1)) << 1;
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            this.shards[i] = new Shard();
+        }
+        this.mask = size - 1;
+        this.executor = executor;
+    }
+
+    /**
+     * Start {@code send} now, or after the records of the same key that are ahead of it.
+     */
+    public <R> CompletableFuture<R> submit(Object key, Supplier<CompletableFuture<R>> send) {
+        return submit(key, ahead -> send.get());
+    }
+
+    /**
+     * Start {@code send} now, or after the records of the same key that are ahead of it.
+     *
+     * @param send gets a future that completes once every record of the key submitted before this one
+     *             has reached its final outcome; retries of this record must wait for it
+     */
+    public <R> CompletableFuture<R> submit(Object key, Function<CompletableFuture<Void>, CompletableFuture<R>> send) {
+        Shard shard = shard(key);
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Chain chain;
+        CompletableFuture<Void> ahead;
+        CompletableFuture<Void> tail;
+        boolean queued;
+        synchronized (shard) {
+            chain = shard.chains.computeIfAbsent(key, k -> new Chain());
+            ahead = chain.tail;
+            queued = chain.held();
+            tail = ahead.isDone() ? settled(result) : CompletableFuture.allOf(ahead, settled(result));
+            chain.tail = tail;
+        }
+        tail.whenComplete((ignored, error) -> release(shard, key, chain, tail));
+        CompletableFuture<R> sent = queued
+                ? ahead.thenComposeAsync(ignored -> send.apply(ahead), executor)
+                : start(send, ahead);
+        sent.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    private static <R> CompletableFuture<R> start(Function<CompletableFuture<Void>, CompletableFuture<R>> send,
+                                                  CompletableFuture<Void> ahead) {
+        try {
+            return send.apply(ahead);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Hold later records of {@code key} until {@code until} completes (normally or not).
+     */
+    public void hold(Object key, CompletableFuture<?> until) {
+        Shard shard = shard(key);
+        Chain chain;
+        CompletableFuture<Void> tail;
+        synchronized (shard) {
+            chain = shard.chains.computeIfAbsent(key, k -> new Chain());
+            chain.heldUntil = chain.held() ? CompletableFuture.allOf(chain.heldUntil, settled(until)) : settled(until);
+            tail = CompletableFuture.allOf(chain.tail, settled(until));
+            chain.tail = tail;
+        }
+        tail.whenComplete((ignored, error) -> release(shard, key, chain, tail));
+    }
+
+    /**
+     * Number of keys currently holding records back.
+     */
+    public int heldKeys() {
+        int held = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (Chain chain : shard.chains.values()) {
+                    if (chain.held()) {
+                        held++;
+                    }
+                }
+            }
+        }
+        return held;
+    }
+
+    private void release(Shard shard, Object key, Chain chain, CompletableFuture<Void> tail) {
+        synchronized (shard) {
+            if (chain.tail == tail) {
+                shard.chains.remove(key, chain);
+            }
+        }
+    }
+
+    private Shard shard(Object key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & mask];
+    }
+
+    /** Completes normally once {@code future} completes either way, so one failure doesn't poison the chain. */
+    private static CompletableFuture<Void> settled(CompletableFuture<?> future) {
+        return future.handle((result, error) -> null);
+    }
+
+    /**
+     * Registered records of one key; guarded by its shard.
+     */
+    private static final class Chain {
+        /** Completes once every record registered so far has settled. */
+        private CompletableFuture<Void> tail = SETTLED;
+        /** Completes once the records being retried have settled; {@code null} if none ever was. */
+        private CompletableFuture<Void> heldUntil;
+
+        boolean held() {
+            return heldUntil != null && !heldUntil.isDone();
+        }
+    }
+
+    private static final class Shard {
+        private final Map<Object, Chain> chains = new HashMap<>();
+    }
+}
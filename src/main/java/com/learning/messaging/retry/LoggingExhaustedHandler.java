@@ -1,25 +1,26 @@
 package com.learning.messaging.retry;
 
 import com.learning.messaging.exceptions.RetryableSendException;
-import lombok.extern.slf4j.Slf4j;
+import com.learning.messaging.logging.MessagingLog;
 import org.springframework.stereotype.Component;
 
 /**
  * Logs exhausted retries for visibility.
+ * <p>
+ * Full detail (stack trace, truncated payload) through {@link MessagingLog}, rate-limited per topic
+ * so an outage that exhausts every record doesn't flood the appenders.
  */
-@Slf4j
 @Component
 public class LoggingExhaustedHandler implements RetryExhaustedHandler {
 
+    private final MessagingLog messagingLog;
+
+    public LoggingExhaustedHandler(MessagingLog messagingLog) {
+        this.messagingLog = messagingLog;
+    }
+
     @Override
     public void onExhausted(RetryableSendException error) {
-        log.error(" Exhausted retries [topic={}, key={}, traceId={}, timestamp={}, event={}, error={}]",
-                error.getTopic(),
-                error.getKey(),
-                error.getTraceId(),
-                error.getTimestamp(),
-                error.getEvent(),
-                error.getCause().toString(),
-                error.getCause());
+        messagingLog.exhausted(error);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.learning.messaging.retry;
+
+import com.learning.messaging.config.RetryProperties;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket retry budget for one topic.
+ * <p>
+ * Every first attempt deposits {@code ratio} tokens and every retry withdraws one, so retries
+ * stay at roughly {@code ratio} of first attempts even when everything is failing. The bucket
+ * also refills at {@code minRetriesPerSecond} so low-traffic topics can still retry, and holds
+ * at most {@code maxTokens}. Tokens are kept in thousandths, in a single CAS-updated long.
+ */
+public final class RetryBudget {
+
+    private static final long SCALE = 1000;
+    private static final long MIN_REFILL_NANOS = 10_000_000L;
+
+    private final long depositPerAttempt;
+    private final long refillPerSecond;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefill = new AtomicLong(System.nanoTime());
+
+    public RetryBudget(RetryProperties.Budget props) {
+        this.depositPerAttempt = (long) (props.getRatio() * SCALE);
+        this.refillPerSecond = (long) (props.getMinRetriesPerSecond() * SCALE);
+        this.maxBalance = (long) (Math.max(1, props.getMaxTokens()) * SCALE);
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    /**
+     * Credit the budget for first attempts.
+     */
+    public void deposit(int attempts) {
+        add(depositPerAttempt * attempts);
+    }
+
+    /**
+     * Withdraw up to {@code retries} tokens.
+     *
+     * @return number of retries granted, between 0 and {@code retries}
+     */
+    public int tryWithdraw(int retries) {
+        refill();
+        while (true) {
+            long current = balance.get();
+            int granted = (int) Math.min(retries, current / SCALE);
+            if (granted == 0) {
+                return 0;
+            }
+            if (balance.compareAndSet(current, current - granted * SCALE)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Retries currently available.
+     */
+    public double available() {
+        refill();
+        return (double) balance.get() / SCALE;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long last = lastRefill.get();
+        long elapsed = now - last;
+        if (elapsed < MIN_REFILL_NANOS || !lastRefill.compareAndSet(last, now)) {
+            return;
+        }
+        add(refillPerSecond * elapsed / 1_000_000_000L);
+    }
+
+    private void add(long tokens) {
+        if (tokens > 0) {
+            balance.accumulateAndGet(tokens, (current, delta) -> Math.min(maxBalance, current + delta));
+        }
+    }
+}
@@ -1,20 +1,42 @@
 package com.learning.messaging.retry;
 
+import com.learning.messaging.config.MetricsProperties;
 import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.dto.BatchPublishResult;
+import com.learning.messaging.dto.Keyed;
+import com.learning.messaging.dto.PublishResult;
+import com.learning.messaging.exceptions.RetryRejectedException;
 import com.learning.messaging.exceptions.RetryableSendException;
+import com.learning.messaging.logging.MessagingLog;
+import com.learning.messaging.metrics.LatencyMeterFactory;
+import com.learning.messaging.metrics.TopicMeterCache;
+import com.learning.messaging.serialization.EncodedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
+/**
+ * Runs send attempts and retries them according to the topic's {@link RetryPolicy}.
+ * <p>
+ * Per-attempt outcomes are logged through {@link MessagingLog} (sampled, rate-limited, summarized);
+ * the final failure of a record is logged by the exhausted handlers.
+ */
 @Slf4j
 @Component
 public class RetryExecutor<T> {
@@ -22,70 +44,207 @@ public class RetryExecutor<T> {
     private static final String METRIC_SCHEDULED = "messaging.retry.scheduled";
     private static final String METRIC_SUCCESS = "messaging.retry.success";
     private static final String METRIC_EXHAUSTED = "messaging.retry.exhausted";
+    private static final String METRIC_ATTEMPT_LATENCY = "messaging.producer.attempt.latency";
+    private static final String METRIC_BACKOFF_WAIT = "messaging.retry.backoff.wait";
+    private static final String METRIC_ATTEMPTS = "messaging.retry.attempts";
 
     private final RetryProperties props;
     private final MeterRegistry meterRegistry;
     private final List<RetryExhaustedHandler> exhaustedHandlers;
-    private final ScheduledExecutorService scheduler;
+    private final RetryScheduler scheduler;
+    private final RetryGuards guards;
+    private final RetryPolicyRegistry policies;
+    private final KeySequencer sequencer;
+    private final LatencyMeterFactory latencyMeters;
+    private final MessagingLog messagingLog;
+    private final TopicMeterCache<TopicMeters> meters;
 
     @Autowired
     public RetryExecutor(RetryProperties props,
                          MeterRegistry meterRegistry,
                          List<RetryExhaustedHandler> exhaustedHandlers,
-                         @Qualifier("messagingRetryScheduler") ScheduledExecutorService scheduler) {
+                         @Qualifier("messagingRetryScheduler") RetryScheduler scheduler,
+                         RetryGuards guards,
+                         RetryPolicyRegistry policies,
+                         @Nullable KeySequencer sequencer,
+                         MetricsProperties metricsProps,
+                         LatencyMeterFactory latencyMeters,
+                         MessagingLog messagingLog) {
         this.props = props;
         this.meterRegistry = meterRegistry;
         this.exhaustedHandlers = exhaustedHandlers;
         this.scheduler = scheduler;
+        this.guards = guards;
+        this.policies = policies;
+        this.sequencer = sequencer;
+        this.latencyMeters = latencyMeters;
+        this.messagingLog = messagingLog;
+        this.meters = new TopicMeterCache<>(this::createMeters, this::removeMeters, metricsProps);
     }
 
-    private void count(String metricName, String topic) {
-        meterRegistry.counter(metricName, "topic", topic).increment();
+    private TopicMeters createMeters(String topic) {
+        return new TopicMeters(
+                meterRegistry.counter(METRIC_SCHEDULED, "topic", topic),
+                meterRegistry.counter(METRIC_SUCCESS, "topic", topic),
+                meterRegistry.counter(METRIC_EXHAUSTED, "topic", topic),
+                latencyMeters.timer(METRIC_ATTEMPT_LATENCY, topic, "attempt", "first"),
+                latencyMeters.timer(METRIC_ATTEMPT_LATENCY, topic, "attempt", "retry"),
+                latencyMeters.timer(METRIC_BACKOFF_WAIT, topic),
+                latencyMeters.summary(METRIC_ATTEMPTS, topic));
     }
 
+    private void removeMeters(TopicMeters topicMeters) {
+        meterRegistry.remove(topicMeters.scheduled);
+        meterRegistry.remove(topicMeters.success);
+        meterRegistry.remove(topicMeters.exhausted);
+        latencyMeters.remove(topicMeters.firstAttempt);
+        latencyMeters.remove(topicMeters.retryAttempt);
+        latencyMeters.remove(topicMeters.backoffWait);
+        latencyMeters.remove(topicMeters.attempts);
+    }
+
+    private void recordAttempts(TopicMeters topicMeters, int attempts, int records) {
+        if (topicMeters.attempts != null) {
+            for (int i = 0; i < records; i++) {
+                topicMeters.attempts.record(attempts);
+            }
+        }
+    }
+
+    private void count(Counter counter) {
+        counter.increment();
+    }
+
+    private void count(Counter counter, int amount) {
+        if (amount > 0) {
+            counter.increment(amount);
+        }
+    }
+
+    /**
+     * Run {@code taskSupplier} and retry it according to the topic's {@link RetryPolicy}.
+     * <p>
+     * With ordered retries enabled, a keyed record that is waiting for a retry holds back
+     * later records with the same topic and key until it reaches its final outcome, and its own retries
+     * wait for the records with that topic and key submitted before it.
+     */
     public <R> CompletableFuture<R> executeWithRetry(String topic, String key, T event, Supplier<CompletableFuture<R>> taskSupplier) {
+        return executeWithRetry(topic, key, event, null, taskSupplier);
+    }
+
+    /**
+     * @param encoded the event as sent by {@code taskSupplier}, handed to the exhausted handlers (nullable)
+     */
+    public <R> CompletableFuture<R> executeWithRetry(String topic, String key, T event, @Nullable EncodedEvent encoded,
+                                                     Supplier<CompletableFuture<R>> taskSupplier) {
+        if (sequencer != null && key != null) {
+            String traceId = MDC.get("traceId");
+            return sequencer.submit(new TopicKey(topic, key), ahead -> {
+                CompletableFuture<R> resultFuture = new CompletableFuture<>();
+                withTraceId(traceId, () -> attempt(topic, key, event, encoded, taskSupplier, resultFuture,
+                        policies.policyFor(topic), System.nanoTime(), 1, 0, ahead));
+                return resultFuture;
+            });
+        }
         CompletableFuture<R> resultFuture = new CompletableFuture<>();
-        attempt(topic, key, event, taskSupplier, resultFuture, 1);
+        attempt(topic, key, event, encoded, taskSupplier, resultFuture, policies.policyFor(topic), System.nanoTime(), 1, 0,
+                null);
         return resultFuture;
     }
 
-    private <R> void attempt(String topic, String key, T event, Supplier<CompletableFuture<R>> taskSupplier,
-                             CompletableFuture<R> outer, int attemptNo) {
+    /** Queued sends start on a retry worker: restore the caller's traceId for the first attempt. */
+    private static void withTraceId(String traceId, Runnable task) {
+        if (traceId != null && MDC.get("traceId") == null) {
+            MDC.put("traceId", traceId);
+        }
+        task.run();
+    }
+
+    /**
+     * @param ahead completes once the same-key records submitted before this one have settled
+     *              (ordered retries only, otherwise {@code null}); retries are not scheduled before that
+     */
+    private <R> void attempt(String topic, String key, T event, EncodedEvent encoded, Supplier<CompletableFuture<R>> taskSupplier,
+                             CompletableFuture<R> outer, RetryPolicy policy, long startNanos,
+                             int attemptNo, long previousDelayMs, @Nullable CompletableFuture<Void> ahead) {
         String traceId = MDC.get("traceId");
         log.debug("Attempt start [topic={}, key={}, attempt={}, traceId={}]", topic, key, attemptNo, traceId);
+        TopicMeters topicMeters = meters.get(topic);
+        RetryGuards.Guard guard = guards.get(topic);
+        long attemptStart = System.nanoTime();
         try {
-            CompletableFuture<R> attemptFuture = taskSupplier.get();
+            if (attemptNo == 1) {
+                guard.onFirstAttempts(1);
+            }
+            if (!guard.tryAcquire()) {
+                rejectOpenCircuit(topic, key, event, encoded, traceId, outer, attemptNo);
+                return;
+            }
+            CompletableFuture<R> attemptFuture;
+            try {
+                attemptFuture = taskSupplier.get();
+            } catch (Exception exception) {
+                guard.onFailure();
+                throw exception;
+            }
             attemptFuture.whenComplete((result, exception) -> {
+                LatencyMeterFactory.recordSince(attemptNo == 1 ? topicMeters.firstAttempt : topicMeters.retryAttempt, attemptStart);
                 if (exception == null) {
-                    log.info("Retry attempt success [topic={}, key={}, attempt={}, traceId={}]", topic, key, attemptNo, traceId);
-                    count(METRIC_SUCCESS, topic);
+                    guard.onSuccess();
+                    if (attemptNo > 1) {
+                        messagingLog.recovered(topic, key, attemptNo, traceId);
+                    }
+                    count(topicMeters.success);
+                    recordAttempts(topicMeters, attemptNo, 1);
                     outer.complete(result);
                 } else {
-                    long delayMs = props.backoffForAttempt(attemptNo);
+                    guard.onFailure();
+                    long delayMs = policy.nextDelayMs(attemptNo, previousDelayMs);
+                    boolean retryAllowed = policy.shouldRetry(attemptNo, startNanos, delayMs);
 
-                    if (attemptNo < props.getMaxAttempts()) {
-                        log.warn("Retry attempt failed → scheduling retry [topic={}, key={}, attempt={}, nextAttempt={}, delayMs={}, traceId={}, error={}]",
-                                topic, key, attemptNo, attemptNo + 1, delayMs, traceId, exception.toString());
+                    if (retryAllowed && guard.grantRetries(1) == 1) {
+                        messagingLog.retryScheduled(topic, key, attemptNo, delayMs, traceId, exception);
 
-                        count(METRIC_SCHEDULED, topic);
+                        count(topicMeters.scheduled);
+                        if (sequencer != null && key != null && attemptNo == 1) {
+                            sequencer.hold(new TopicKey(topic, key), outer);
+                        }
 
-                        this.scheduler.schedule(() ->
-                                        attempt(topic, key, event, taskSupplier, outer, attemptNo + 1),
-                                delayMs,
-                                TimeUnit.MILLISECONDS
-                        );
+                        long scheduledAt = System.nanoTime();
+                        Runnable schedule = () -> {
+                            try {
+                                this.scheduler.schedule(() -> {
+                                            LatencyMeterFactory.recordSince(topicMeters.backoffWait, scheduledAt);
+                                            attempt(topic, key, event, encoded, taskSupplier, outer, policy, startNanos,
+                                                    attemptNo + 1, delayMs, ahead);
+                                        },
+                                        delayMs
+                                );
+                            } catch (RejectedExecutionException rejected) {
+                                log.warn("Retry could not be scheduled, giving up [topic={}, key={}, attempts={}, traceId={}, error={}]",
+                                        topic, key, attemptNo, traceId, rejected.toString());
+                                exhaust(topic, key, event, encoded, traceId, attemptNo,
+                                        withSuppressed(exception, rejected), outer, topicMeters);
+                            }
+                        };
+                        if (ahead == null || ahead.isDone()) {
+                            schedule.run();
+                        } else {
+                            // an earlier same-key record is still in flight or retrying: retry after it
+                            ahead.whenComplete((ignored, error) -> schedule.run());
+                        }
                     } else {
-                        log.error("Retry exhausted [topic={}, key={}, attempts={}, traceId={}, error={}]",
-                                topic, key, props.getMaxAttempts(), traceId, exception.toString());
-
-                        count(METRIC_EXHAUSTED, topic);
-
-                        RetryableSendException rse =
-                                new RetryableSendException(topic, key, event, traceId, exception);
-                        exhaustedHandlers.forEach(h -> h.onExhausted(rse));
-
-                        outer.completeExceptionally(rse);
+                        Throwable cause = exception;
+                        if (retryAllowed) {
+                            cause = budgetExhausted(topic, exception);
+                            log.debug("Retry budget exhausted, giving up [topic={}, key={}, attempts={}, traceId={}, error={}]",
+                                    topic, key, attemptNo, traceId, exception.toString());
+                        } else {
+                            log.debug("Retry exhausted [topic={}, key={}, attempts={}, traceId={}, error={}]",
+                                    topic, key, attemptNo, traceId, exception.toString());
+                        }
 
+                        exhaust(topic, key, event, encoded, traceId, attemptNo, cause, outer, topicMeters);
                     }
                 }
             });
@@ -98,5 +257,294 @@ public class RetryExecutor<T> {
 
     }
 
-}
+    /**
+     * No more attempts: hand the record to the exhausted handlers and fail {@code outer}.
+     */
+    private void exhaust(String topic, String key, T event, EncodedEvent encoded, String traceId, int attempts,
+                         Throwable cause, CompletableFuture<?> outer, TopicMeters topicMeters) {
+        count(topicMeters.exhausted);
+
+        RetryableSendException rse =
+                new RetryableSendException(topic, key, event, encoded, traceId, attempts, cause);
+        exhaustedHandlers.forEach(h -> h.onExhausted(rse));
+
+        outer.completeExceptionally(rse);
+    }
+
+    /**
+     * {@code error} with the scheduler's rejection attached, as the reason no retry followed.
+     */
+    private static Throwable withSuppressed(Throwable error, RejectedExecutionException rejected) {
+        // batch records may share one error instance
+        if (!Arrays.asList(error.getSuppressed()).contains(rejected)) {
+            error.addSuppressed(rejected);
+        }
+        return error;
+    }
+
+    /**
+     * The topic's circuit is open: fail fast, or divert to the exhausted handlers.
+     */
+    private void rejectOpenCircuit(String topic, String key, T event, EncodedEvent encoded, String traceId,
+                                   CompletableFuture<?> outer, int attemptNo) {
+        RetryRejectedException rejected = new RetryRejectedException(topic, RetryRejectedException.Reason.CIRCUIT_OPEN);
+        log.debug("Attempt rejected, circuit open [topic={}, key={}, attempt={}, traceId={}]",
+                topic, key, attemptNo, traceId);
+
+        if (props.getCircuitBreaker().getOpenAction() == RetryProperties.OpenAction.DIVERT) {
+            RetryableSendException rse = new RetryableSendException(topic, key, event, encoded, traceId, attemptNo - 1, rejected);
+            exhaustedHandlers.forEach(h -> h.onExhausted(rse));
+            outer.completeExceptionally(rse);
+        } else {
+            outer.completeExceptionally(rejected);
+        }
+    }
+
+    private static RetryRejectedException budgetExhausted(String topic, Throwable lastError) {
+        RetryRejectedException rejected = new RetryRejectedException(topic, RetryRejectedException.Reason.BUDGET_EXHAUSTED);
+        rejected.addSuppressed(lastError);
+        return rejected;
+    }
+
+    /**
+     * Batch variant of {@link #executeWithRetry}.
+     * <p>
+     * All records share one retry context: a round sends every pending record, and once
+     * the whole round has completed only the failed records are scheduled for the next round.
+     * Records that are still failing when the topic's {@link RetryPolicy} gives up are handed to the
+     * exhausted handlers and reported as {@link PublishResult.Status#FAILED}.
+     * The returned future always completes normally.
+     *
+     * @param recordAttempt sends the record at the given index and maps its outcome to a {@link PublishResult}
+     */
+    public CompletableFuture<BatchPublishResult> executeBatchWithRetry(String topic,
+                                                                       List<Keyed<T>> records,
+                                                                       String traceId,
+                                                                       IntFunction<CompletableFuture<PublishResult>> recordAttempt) {
+        return executeBatchWithRetry(topic, records, null, traceId, recordAttempt);
+    }
+
+    /**
+     * @param encoded the records as sent by {@code recordAttempt}, index-aligned with {@code records},
+     *                handed to the exhausted handlers (nullable)
+     */
+    public CompletableFuture<BatchPublishResult> executeBatchWithRetry(String topic,
+                                                                       List<Keyed<T>> records,
+                                                                       @Nullable List<EncodedEvent> encoded,
+                                                                       String traceId,
+                                                                       IntFunction<CompletableFuture<PublishResult>> recordAttempt) {
+        BatchState<T> state = new BatchState<>(topic, records, encoded, traceId, recordAttempt, policies.policyFor(topic));
+        int[] all = new int[records.size()];
+        Arrays.setAll(all, i -> i);
+        attemptBatch(state, all, 1);
+        return state.outer;
+    }
+
+    private void attemptBatch(BatchState<T> state, int[] pending, int attemptNo) {
+        log.debug("Batch attempt start [topic={}, records={}, attempt={}, traceId={}]",
+                state.topic, pending.length, attemptNo, state.traceId);
+
+        AtomicInteger remaining = new AtomicInteger(pending.length);
+        TopicMeters topicMeters = meters.get(state.topic);
+        RetryGuards.Guard guard = guards.get(state.topic);
+        if (attemptNo == 1) {
+            guard.onFirstAttempts(pending.length);
+        }
+        Timer attemptTimer = attemptNo == 1 ? topicMeters.firstAttempt : topicMeters.retryAttempt;
+        for (int index : pending) {
+            long attemptStart = System.nanoTime();
+            CompletableFuture<PublishResult> attemptFuture;
+            if (!guard.tryAcquire()) {
+                attemptFuture = CompletableFuture.failedFuture(
+                        new RetryRejectedException(state.topic, RetryRejectedException.Reason.CIRCUIT_OPEN));
+            } else {
+                try {
+                    attemptFuture = state.recordAttempt.apply(index);
+                } catch (Exception exception) {
+                    attemptFuture = CompletableFuture.failedFuture(exception);
+                }
+                attemptFuture = attemptFuture.whenComplete((result, exception) -> {
+                    LatencyMeterFactory.recordSince(attemptTimer, attemptStart);
+                    if (exception == null) {
+                        guard.onSuccess();
+                    } else {
+                        guard.onFailure();
+                    }
+                });
+            }
+            attemptFuture.whenComplete((result, exception) -> {
+                if (exception == null) {
+                    state.results[index] = result;
+                } else {
+                    state.errors[index] = exception instanceof CompletionException && exception.getCause() != null
+                            ? exception.getCause()
+                            : exception;
+                }
+                // the last completion of the round decides what happens next
+                if (remaining.decrementAndGet() == 0) {
+                    onBatchRoundComplete(state, pending, attemptNo);
+                }
+            });
+        }
+    }
+
+    private void onBatchRoundComplete(BatchState<T> state, int[] pending, int attemptNo) {
+        int[] failed = Arrays.stream(pending).filter(i -> state.results[i] == null).toArray();
+        TopicMeters topicMeters = meters.get(state.topic);
+        count(topicMeters.success, pending.length - failed.length);
+        recordAttempts(topicMeters, attemptNo, pending.length - failed.length);
+
+        // records never attempted because the circuit is open are not retried
+        int[] retryable = Arrays.stream(failed).filter(i -> !isCircuitRejection(state.errors[i])).toArray();
+        if (retryable.length < failed.length) {
+            rejectOpenCircuit(state, Arrays.stream(failed).filter(i -> isCircuitRejection(state.errors[i])).toArray(), attemptNo);
+        }
+        if (retryable.length == 0) {
+            state.complete(attemptNo);
+            return;
+        }
+
+        Throwable firstError = state.errors[retryable[0]];
+        long delayMs = state.policy.nextDelayMs(attemptNo, state.lastDelayMs);
+        if (state.policy.shouldRetry(attemptNo, state.startNanos, delayMs)) {
+            int granted = guards.get(state.topic).grantRetries(retryable.length);
+            if (granted < retryable.length) {
+                int[] overBudget = Arrays.copyOfRange(retryable, granted, retryable.length);
+                log.debug("Batch retry budget exhausted, giving up [topic={}, failed={}, attempts={}, traceId={}, error={}]",
+                        state.topic, overBudget.length, attemptNo, state.traceId, firstError.toString());
+                exhaustBatch(state, overBudget, attemptNo, true);
+                retryable = Arrays.copyOf(retryable, granted);
+                if (granted == 0) {
+                    state.complete(attemptNo);
+                    return;
+                }
+            }
+
+            int[] retry = retryable;
+            state.lastDelayMs = delayMs;
+            messagingLog.batchRetryScheduled(state.topic, retry.length, pending.length, attemptNo, delayMs,
+                    state.traceId, firstError);
+
+            count(topicMeters.scheduled, retry.length);
+
+            long scheduledAt = System.nanoTime();
+            try {
+                this.scheduler.schedule(() -> {
+                            LatencyMeterFactory.recordSince(topicMeters.backoffWait, scheduledAt);
+                            attemptBatch(state, retry, attemptNo + 1);
+                        },
+                        delayMs
+                );
+            } catch (RejectedExecutionException rejected) {
+                log.warn("Batch retry could not be scheduled, giving up [topic={}, failed={}, attempts={}, traceId={}, error={}]",
+                        state.topic, retry.length, attemptNo, state.traceId, rejected.toString());
+                for (int index : retry) {
+                    state.errors[index] = withSuppressed(state.errors[index], rejected);
+                }
+                exhaustBatch(state, retry, attemptNo, false);
+                state.complete(attemptNo);
+            }
+            return;
+        }
+
+        log.debug("Batch retry exhausted [topic={}, failed={}, attempts={}, traceId={}, error={}]",
+                state.topic, retryable.length, attemptNo, state.traceId, firstError.toString());
+
+        exhaustBatch(state, retryable, attemptNo, false);
+        state.complete(attemptNo);
+    }
 
+    private void exhaustBatch(BatchState<T> state, int[] indexes, int attempts, boolean overBudget) {
+        count(meters.get(state.topic).exhausted, indexes.length);
+
+        for (int index : indexes) {
+            Keyed<T> record = state.records.get(index);
+            Throwable cause = overBudget ? budgetExhausted(state.topic, state.errors[index]) : state.errors[index];
+            RetryableSendException rse = new RetryableSendException(
+                    state.topic, record.getKey(), record.getEvent(), state.encoded(index), state.traceId, attempts, cause);
+            exhaustedHandlers.forEach(h -> h.onExhausted(rse));
+            state.results[index] = PublishResult.failed(state.topic, rse, state.traceId);
+        }
+    }
+
+    private void rejectOpenCircuit(BatchState<T> state, int[] indexes, int attemptNo) {
+        log.debug("Batch records rejected, circuit open [topic={}, records={}, traceId={}]",
+                state.topic, indexes.length, state.traceId);
+        boolean divert = props.getCircuitBreaker().getOpenAction() == RetryProperties.OpenAction.DIVERT;
+
+        for (int index : indexes) {
+            Throwable rejected = state.errors[index];
+            if (divert) {
+                Keyed<T> record = state.records.get(index);
+                RetryableSendException rse = new RetryableSendException(
+                        state.topic, record.getKey(), record.getEvent(), state.encoded(index), state.traceId, attemptNo - 1, rejected);
+                exhaustedHandlers.forEach(h -> h.onExhausted(rse));
+                rejected = rse;
+            }
+            state.results[index] = PublishResult.failed(state.topic, rejected, state.traceId);
+        }
+    }
+
+    private static boolean isCircuitRejection(Throwable error) {
+        return error instanceof RetryRejectedException rejected
+                && rejected.getReason() == RetryRejectedException.Reason.CIRCUIT_OPEN;
+    }
+
+    /**
+     * Bookkeeping shared by all rounds of one batch.
+     * <p>Slots are written by completion callbacks and read by the thread that completes the round.</p>
+     */
+    private static final class BatchState<T> {
+        private final String topic;
+        private final List<Keyed<T>> records;
+        private final List<EncodedEvent> encoded;
+        private final String traceId;
+        private final IntFunction<CompletableFuture<PublishResult>> recordAttempt;
+        private final RetryPolicy policy;
+        private final long startNanos = System.nanoTime();
+        private final PublishResult[] results;
+        private final Throwable[] errors;
+        private final CompletableFuture<BatchPublishResult> outer = new CompletableFuture<>();
+        /** Written before a round is scheduled, read when it completes. */
+        private volatile long lastDelayMs;
+
+        private BatchState(String topic, List<Keyed<T>> records, List<EncodedEvent> encoded, String traceId,
+                           IntFunction<CompletableFuture<PublishResult>> recordAttempt, RetryPolicy policy) {
+            this.topic = topic;
+            this.records = records;
+            this.encoded = encoded;
+            this.traceId = traceId;
+            this.recordAttempt = recordAttempt;
+            this.policy = policy;
+            this.results = new PublishResult[records.size()];
+            this.errors = new Throwable[records.size()];
+        }
+
+        private EncodedEvent encoded(int index) {
+            return encoded != null ? encoded.get(index) : null;
+        }
+
+        private void complete(int attempts) {
+            outer.complete(BatchPublishResult.of(topic, Arrays.asList(results), attempts, traceId));
+        }
+    }
+
+    /**
+     * Sequencing key of ordered retries: the same key on different topics is unrelated.
+     */
+    private record TopicKey(String topic, String key) {
+    }
+
+    /**
+     * Resolved meter handles for one topic.
+     * <p>Latency meters are {@code null} when latency recording is switched off for the topic.</p>
+     */
+    private record TopicMeters(Counter scheduled,
+                               Counter success,
+                               Counter exhausted,
+                               Timer firstAttempt,
+                               Timer retryAttempt,
+                               Timer backoffWait,
+                               DistributionSummary attempts) {
+    }
+}
@@ -0,0 +1,220 @@
+package com.learning.messaging.retry;
+
+import com.learning.messaging.config.MetricsProperties;
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.exceptions.RetryRejectedException;
+import com.learning.messaging.metrics.TopicMeterCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-topic {@link CircuitBreaker} and {@link RetryBudget} used by {@link RetryExecutor}.
+ * <p>
+ * Both are off by default (messaging.producer.circuit-breaker / retry-budget).
+ * Every topic keeps its own breaker and budget for the lifetime of the application; only their
+ * meters are subject to messaging.metrics.max-topics and topic-idle-timeout (past the limit, rejections
+ * are counted under the {@code _overflow} topic and the topic's gauges are not published).
+ * State is exported via Micrometer:
+ * <ul>
+ *   <li>{@code messaging.retry.circuit.state} gauge (0 = closed, 1 = half-open, 2 = open)</li>
+ *   <li>{@code messaging.retry.budget.available} gauge (retries currently allowed)</li>
+ *   <li>{@code messaging.retry.rejected} counter, tagged by topic and reason</li>
+ * </ul>
+ * and via the {@code messagingretry} actuator endpoint.
+ */
+@Component
+public class RetryGuards {
+
+    private static final String METRIC_CIRCUIT_STATE = "messaging.retry.circuit.state";
+    private static final String METRIC_BUDGET_AVAILABLE = "messaging.retry.budget.available";
+    private static final String METRIC_REJECTED = "messaging.retry.rejected";
+
+    private final RetryProperties props;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Guard disabled = new Guard(null, null, null);
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+    private final TopicMeterCache<GuardMeters> meters;
+
+    public RetryGuards(RetryProperties props, MeterRegistry meterRegistry, MetricsProperties metricsProps) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.enabled = props.getCircuitBreaker().isEnabled() || props.getRetryBudget().isEnabled();
+        this.meters = new TopicMeterCache<>(this::createMeters, this::removeMeters, metricsProps);
+    }
+
+    /**
+     * Guard for a topic; its breaker and budget are {@code null} when disabled.
+     */
+    public Guard get(String topic) {
+        if (!enabled) {
+            return disabled;
+        }
+        Guard guard = guards.get(topic);
+        if (guard == null) {
+            guard = guards.computeIfAbsent(topic, this::createGuard);
+        }
+        // keeps the topic's gauges registered while it is active
+        meters.get(topic);
+        return guard;
+    }
+
+    /**
+     * Visit the guard of every topic seen so far.
+     */
+    public void forEach(BiConsumer<String, Guard> action) {
+        if (enabled) {
+            guards.forEach(action);
+        }
+    }
+
+    private Guard createGuard(String topic) {
+        return new Guard(topic,
+                props.getCircuitBreaker().isEnabled() ? new CircuitBreaker(topic, props.getCircuitBreaker()) : null,
+                props.getRetryBudget().isEnabled() ? new RetryBudget(props.getRetryBudget()) : null);
+    }
+
+    /**
+     * Meters of a topic, or the shared rejection counters (and no gauges) for {@link TopicMeterCache#OVERFLOW_TOPIC}.
+     */
+    private GuardMeters createMeters(String topic) {
+        Guard guard = TopicMeterCache.OVERFLOW_TOPIC.equals(topic) ? null : guards.get(topic);
+        CircuitBreaker breaker = guard != null ? guard.breaker : null;
+        RetryBudget budget = guard != null ? guard.budget : null;
+
+        Gauge stateGauge = breaker == null ? null
+                : Gauge.builder(METRIC_CIRCUIT_STATE, breaker, b -> b.state().ordinal())
+                        .tag("topic", topic)
+                        .description("Circuit breaker state: 0 = closed, 1 = half-open, 2 = open")
+                        .register(meterRegistry);
+        Gauge budgetGauge = budget == null ? null
+                : Gauge.builder(METRIC_BUDGET_AVAILABLE, budget, RetryBudget::available)
+                        .tag("topic", topic)
+                        .description("Retries currently allowed by the retry budget")
+                        .register(meterRegistry);
+
+        return new GuardMeters(stateGauge, budgetGauge,
+                meterRegistry.counter(METRIC_REJECTED, "topic", topic,
+                        "reason", RetryRejectedException.Reason.CIRCUIT_OPEN.name()),
+                meterRegistry.counter(METRIC_REJECTED, "topic", topic,
+                        "reason", RetryRejectedException.Reason.BUDGET_EXHAUSTED.name()));
+    }
+
+    private void removeMeters(GuardMeters guardMeters) {
+        if (guardMeters.stateGauge != null) {
+            meterRegistry.remove(guardMeters.stateGauge);
+        }
+        if (guardMeters.budgetGauge != null) {
+            meterRegistry.remove(guardMeters.budgetGauge);
+        }
+        meterRegistry.remove(guardMeters.rejectedCircuit);
+        meterRegistry.remove(guardMeters.rejectedBudget);
+    }
+
+    /**
+     * Registered meters of one topic.
+     */
+    private record GuardMeters(@Nullable Gauge stateGauge,
+                               @Nullable Gauge budgetGauge,
+                               Counter rejectedCircuit,
+                               Counter rejectedBudget) {
+    }
+
+    /**
+     * Breaker, budget and rejection counts of one topic.
+     */
+    public final class Guard {
+
+        @Nullable
+        private final String topic;
+        @Nullable
+        private final CircuitBreaker breaker;
+        @Nullable
+        private final RetryBudget budget;
+        private final LongAdder rejectedCircuit = new LongAdder();
+        private final LongAdder rejectedBudget = new LongAdder();
+
+        private Guard(@Nullable String topic, @Nullable CircuitBreaker breaker, @Nullable RetryBudget budget) {
+            this.topic = topic;
+            this.breaker = breaker;
+            this.budget = budget;
+        }
+
+        @Nullable
+        public CircuitBreaker breaker() {
+            return breaker;
+        }
+
+        @Nullable
+        public RetryBudget budget() {
+            return budget;
+        }
+
+        /**
+         * Attempts rejected by the open circuit since startup.
+         */
+        public long rejectedCircuit() {
+            return rejectedCircuit.sum();
+        }
+
+        /**
+         * Retries rejected by the exhausted budget since startup.
+         */
+        public long rejectedBudget() {
+            return rejectedBudget.sum();
+        }
+
+        /**
+         * Whether an attempt may be made; counts the rejection otherwise.
+         */
+        public boolean tryAcquire() {
+            if (breaker == null || breaker.tryAcquire()) {
+                return true;
+            }
+            rejectedCircuit.increment();
+            meters.get(topic).rejectedCircuit().increment();
+            return false;
+        }
+
+        public void onSuccess() {
+            if (breaker != null) {
+                breaker.onSuccess();
+            }
+        }
+
+        public void onFailure() {
+            if (breaker != null) {
+                breaker.onFailure();
+            }
+        }
+
+        public void onFirstAttempts(int attempts) {
+            if (budget != null) {
+                budget.deposit(attempts);
+            }
+        }
+
+        /**
+         * Number of the {@code retries} that may be scheduled; counts the rest as rejected.
+         */
+        public int grantRetries(int retries) {
+            if (budget == null) {
+                return retries;
+            }
+            int granted = budget.tryWithdraw(retries);
+            if (granted < retries) {
+                rejectedBudget.add(retries - granted);
+                meters.get(topic).rejectedBudget().increment(retries - granted);
+            }
+            return granted;
+        }
+    }
+}
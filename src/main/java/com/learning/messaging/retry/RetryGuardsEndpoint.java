@@ -0,0 +1,43 @@
+package com.learning.messaging.retry;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint ({@code /actuator/messagingretry}) listing circuit-breaker state and
+ * retry-budget usage per topic. Expose it with management.endpoints.web.exposure.include.
+ */
+@Component
+@Endpoint(id = "messagingretry")
+public class RetryGuardsEndpoint {
+
+    private final RetryGuards guards;
+
+    public RetryGuardsEndpoint(RetryGuards guards) {
+        this.guards = guards;
+    }
+
+    @ReadOperation
+    public Map<String, TopicStatus> topics() {
+        Map<String, TopicStatus> topics = new TreeMap<>();
+        guards.forEach((topic, guard) -> topics.put(topic, new TopicStatus(
+                guard.breaker() != null ? guard.breaker().state().name() : null,
+                guard.budget() != null ? guard.budget().available() : null,
+                guard.rejectedCircuit(),
+                guard.rejectedBudget())));
+        return topics;
+    }
+
+    /**
+     * Status of one topic; {@code circuit} / {@code budgetAvailable} are null when that guard is disabled.
+     */
+    public record TopicStatus(String circuit,
+                              Double budgetAvailable,
+                              double rejectedCircuitOpen,
+                              double rejectedBudgetExhausted) {
+    }
+}
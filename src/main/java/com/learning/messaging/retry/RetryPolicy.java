@@ -0,0 +1,104 @@
+package com.learning.messaging.retry;
+
+import com.learning.messaging.config.RetryProperties.BackoffStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable retry policy for one or more topics: how many attempts, and how long to wait between them.
+ * <p>
+ * The exponential base delays ({@code initialBackoff * multiplier^(n-1)}, capped at {@code maxBackoff})
+ * are precomputed once into a table, so the hot path is an array lookup plus, for the jittered
+ * strategies, one {@link ThreadLocalRandom} call.
+ */
+public final class RetryPolicy {
+
+    /** Base delays beyond this many attempts reuse the last entry. */
+    private static final int MAX_TABLE_SIZE = 64;
+
+    private final BackoffStrategy strategy;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long deadlineNanos;
+    private final long[] baseDelays;
+
+    /**
+     * @param maxAttempts attempts including the first one (ignored by {@link BackoffStrategy#DEADLINE})
+     * @param deadlineMs  give up once a retry would start later than this after the first attempt; 0 = no deadline
+     */
+    public RetryPolicy(BackoffStrategy strategy, int maxAttempts, long initialBackoffMs, double multiplier,
+                       long maxBackoffMs, long deadlineMs) {
+        if (strategy == BackoffStrategy.DEADLINE && deadlineMs <= 0) {
+            throw new IllegalArgumentException("DEADLINE retry policy requires a deadline");
+        }
+        this.strategy = strategy;
+        this.maxAttempts = strategy == BackoffStrategy.DEADLINE ? Integer.MAX_VALUE : Math.max(1, maxAttempts);
+        this.initialBackoffMs = Math.max(0, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+        this.deadlineNanos = deadlineMs * 1_000_000L;
+        this.baseDelays = baseDelays(this.initialBackoffMs, multiplier, this.maxBackoffMs,
+                Math.min(this.maxAttempts, MAX_TABLE_SIZE));
+    }
+
+    private static long[] baseDelays(long initialMs, double multiplier, long maxMs, int attempts) {
+        List<Long> delays = new ArrayList<>();
+        double delay = initialMs;
+        for (int i = 0; i < attempts; i++) {
+            long capped = (long) Math.min(maxMs, delay);
+            delays.add(capped);
+            if (capped >= maxMs) {
+                break;
+            }
+            delay *= multiplier;
+        }
+        return delays.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Delay before the retry that follows failed attempt {@code attemptNo} (1-based).
+     *
+     * @param previousDelayMs delay returned for the previous retry, 0 before the first retry
+     */
+    public long nextDelayMs(int attemptNo, long previousDelayMs) {
+        long base = baseDelays[Math.min(Math.max(0, attemptNo - 1), baseDelays.length - 1)];
+        return switch (strategy) {
+            case EXPONENTIAL -> base;
+            case FIXED -> initialBackoffMs;
+            case FULL_JITTER, DEADLINE -> ThreadLocalRandom.current().nextLong(base + 1);
+            case DECORRELATED_JITTER -> {
+                long upper = Math.max(initialBackoffMs, previousDelayMs * 3);
+                yield Math.min(maxBackoffMs, ThreadLocalRandom.current().nextLong(initialBackoffMs, upper + 1));
+            }
+        };
+    }
+
+    /**
+     * Whether failed attempt {@code attemptNo} may be retried after {@code delayMs}.
+     *
+     * @param startNanos {@link System#nanoTime()} of the first attempt
+     */
+    public boolean shouldRetry(int attemptNo, long startNanos, long delayMs) {
+        if (attemptNo >= maxAttempts) {
+            return false;
+        }
+        return deadlineNanos <= 0 || System.nanoTime() - startNanos + delayMs * 1_000_000L <= deadlineNanos;
+    }
+
+    public BackoffStrategy strategy() {
+        return strategy;
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy[strategy=" + strategy + ", maxAttempts=" + maxAttempts
+                + ", initialBackoffMs=" + initialBackoffMs + ", maxBackoffMs=" + maxBackoffMs
+                + ", deadlineMs=" + deadlineNanos / 1_000_000L + "]";
+    }
+}
@@ -0,0 +1,80 @@
+package com.learning.messaging.retry;
+
+import com.learning.messaging.config.RetryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.PatternMatchUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link RetryPolicy} of a topic from messaging.producer.policies.
+ * <p>
+ * - An entry keyed by the exact topic name wins
+ * - Otherwise the first pattern entry ("orders.*", "*.events") that matches, in declaration order
+ * - Otherwise the default policy built from the global messaging.producer.* values
+ * <p>
+ * Policies are built once at startup and the resolution is cached per topic,
+ * so a lookup on the hot path is a single map hit.
+ */
+@Slf4j
+@Component
+public class RetryPolicyRegistry {
+
+    private final RetryPolicy defaultPolicy;
+    private final Map<String, RetryPolicy> exact = new LinkedHashMap<>();
+    private final Map<String, RetryPolicy> patterns = new LinkedHashMap<>();
+    private final Map<String, RetryPolicy> resolved = new ConcurrentHashMap<>();
+
+    public RetryPolicyRegistry(RetryProperties props) {
+        this.defaultPolicy = new RetryPolicy(props.getBackoffStrategy(), props.getMaxAttempts(),
+                props.getInitialBackoffMs(), props.getMultiplier(), props.getMaxBackoffMs(),
+                props.getDeadline().toMillis());
+
+        props.getPolicies().forEach((key, override) -> {
+            RetryPolicy policy = new RetryPolicy(
+                    Objects.requireNonNullElse(override.getBackoffStrategy(), props.getBackoffStrategy()),
+                    Objects.requireNonNullElse(override.getMaxAttempts(), props.getMaxAttempts()),
+                    Objects.requireNonNullElse(override.getInitialBackoffMs(), props.getInitialBackoffMs()),
+                    Objects.requireNonNullElse(override.getMultiplier(), props.getMultiplier()),
+                    Objects.requireNonNullElse(override.getMaxBackoffMs(), props.getMaxBackoffMs()),
+                    Objects.requireNonNullElse(override.getDeadline(), props.getDeadline()).toMillis());
+            (key.contains("*") ? patterns : exact).put(key, policy);
+            log.info("Retry policy registered [topics={}, policy={}]", key, policy);
+        });
+    }
+
+    /**
+     * Policy for a topic.
+     */
+    public RetryPolicy policyFor(String topic) {
+        RetryPolicy policy = resolved.get(topic);
+        if (policy == null) {
+            policy = resolved.computeIfAbsent(topic, this::resolve);
+        }
+        return policy;
+    }
+
+    private RetryPolicy resolve(String topic) {
+        RetryPolicy policy = exact.get(topic);
+        if (policy != null) {
+            return policy;
+        }
+        for (Map.Entry<String, RetryPolicy> entry : patterns.entrySet()) {
+            if (PatternMatchUtils.simpleMatch(entry.getKey(), topic)) {
+                return entry.getValue();
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * The policy used for topics without a matching entry.
+     */
+    public RetryPolicy defaultPolicy() {
+        return defaultPolicy;
+    }
+}
@@ -0,0 +1,29 @@
+package com.learning.messaging.retry;
+
+/**
+ * Schedules delayed retry attempts.
+ * <p>
+ * Implementations only keep track of the delay; the retry itself is handed off to
+ * a separate worker pool, so the timing thread never runs Kafka sends.
+ */
+public interface RetryScheduler {
+
+    /**
+     * Run the task on the retry worker pool once the delay has elapsed.
+     *
+     * @param task    the retry attempt to run
+     * @param delayMs delay in milliseconds (values &lt;= 0 run on the next tick)
+     * @throws java.util.concurrent.RejectedExecutionException if the scheduler has been shut down
+     */
+    void schedule(Runnable task, long delayMs);
+
+    /**
+     * Number of retries that are waiting for their delay to elapse.
+     */
+    int pendingCount();
+
+    /**
+     * Stop the scheduler. Retries that have not fired yet are dropped.
+     */
+    void shutdown();
+}
@@ -0,0 +1,73 @@
+package com.learning.messaging.serialization;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable, per-thread output buffer for codecs.
+ * <p>
+ * Encoding into a reused buffer and copying out the exact bytes once replaces the
+ * repeated grow-and-copy of a fresh {@link java.io.ByteArrayOutputStream} per record.
+ * Buffers that grew past {@link #MAX_RETAINED_BYTES} for a large event are not kept,
+ * so one outlier doesn't pin memory on every thread.
+ */
+public final class EncodeBuffer extends OutputStream {
+
+    static final int INITIAL_BYTES = 1024;
+    static final int MAX_RETAINED_BYTES = 1024 * 1024;
+
+    private static final ThreadLocal<EncodeBuffer> LOCAL = ThreadLocal.withInitial(EncodeBuffer::new);
+
+    private byte[] bytes = new byte[INITIAL_BYTES];
+    private int size;
+
+    private EncodeBuffer() {
+    }
+
+    /**
+     * This thread's buffer, emptied. Not reentrant: finish with it (via {@link #toByteArray()})
+     * before encoding anything else on the same thread.
+     */
+    public static EncodeBuffer local() {
+        EncodeBuffer buffer = LOCAL.get();
+        buffer.reset();
+        return buffer;
+    }
+
+    public void reset() {
+        if (bytes.length > MAX_RETAINED_BYTES) {
+            bytes = new byte[INITIAL_BYTES];
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        bytes[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(size + len);
+        System.arraycopy(b, off, bytes, size, len);
+        size += len;
+    }
+
+    /**
+     * Copy of the bytes written since {@link #local()}.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length << 1));
+        }
+    }
+}
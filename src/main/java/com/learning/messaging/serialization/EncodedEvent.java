@@ -0,0 +1,40 @@
+package com.learning.messaging.serialization;
+
+import com.learning.messaging.headers.MessagingHeaders;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.lang.Nullable;
+
+/**
+ * An event encoded once by {@link EventCodecs}, reused by every send attempt and by the
+ * exhausted handlers (DLQ, spool).
+ *
+ * @param payload     the record value
+ * @param contentType UTF-8 content type of the codec that encoded it
+ * @param typeId      UTF-8 class name of the event
+ * @param messageId   UTF-8 id sent as {@link MessagingHeaders#MESSAGE_ID}, {@code null} for none
+ */
+public record EncodedEvent(byte[] payload, byte[] contentType, byte[] typeId, @Nullable byte[] messageId) {
+
+    public EncodedEvent(byte[] payload, byte[] contentType, byte[] typeId) {
+        this(payload, contentType, typeId, null);
+    }
+
+    /**
+     * Fresh headers describing the payload; Kafka makes headers read-only once sent,
+     * so every attempt needs its own.
+     */
+    public Headers headers() {
+        if (messageId == null) {
+            return new RecordHeaders(new Header[]{
+                    new RecordHeader(MessagingHeaders.CONTENT_TYPE, contentType),
+                    new RecordHeader(MessagingHeaders.TYPE_ID, typeId)});
+        }
+        return new RecordHeaders(new Header[]{
+                new RecordHeader(MessagingHeaders.CONTENT_TYPE, contentType),
+                new RecordHeader(MessagingHeaders.TYPE_ID, typeId),
+                new RecordHeader(MessagingHeaders.MESSAGE_ID, messageId)});
+    }
+}
@@ -0,0 +1,33 @@
+package com.learning.messaging.serialization;
+
+/**
+ * Encodes events to record values and back.
+ * <p>
+ * Codecs are looked up by {@link #name()} (configuration) and by {@link #contentType()}
+ * (the {@link com.learning.messaging.headers.MessagingHeaders#CONTENT_TYPE} header of a record).
+ * Register a codec as a bean to make it available to {@link EventCodecs}.
+ * Implementations must be thread-safe.
+ */
+public interface EventCodec {
+
+    /**
+     * Short name used in configuration (messaging.serialization.*), e.g. {@code json}.
+     */
+    String name();
+
+    /**
+     * MIME type written to the content-type header, e.g. {@code application/json}.
+     */
+    String contentType();
+
+    /**
+     * @return the encoded event; the array is owned by the caller
+     * @throws org.apache.kafka.common.errors.SerializationException if the event can't be encoded
+     */
+    byte[] encode(Object event);
+
+    /**
+     * @throws org.apache.kafka.common.errors.SerializationException if the data can't be decoded
+     */
+    <T> T decode(byte[] data, Class<T> type);
+}
@@ -0,0 +1,101 @@
+package com.learning.messaging.serialization;
+
+import com.learning.messaging.headers.MessagingHeaders;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.ClassUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kafka {@link Deserializer} for records written by {@link EventCodecs}: the codec comes from the
+ * {@link MessagingHeaders#CONTENT_TYPE} header (JSON when absent) and the target class from
+ * {@link MessagingHeaders#TYPE_ID}.
+ * <p>
+ * Like Spring's {@code JsonDeserializer}, only classes from trusted packages are instantiated;
+ * set them with {@code spring.json.trusted.packages} (comma-separated, {@code *} for all).
+ * Records without a type header are decoded to maps and lists.
+ * <p>
+ * Use it as spring.kafka.consumer.value-deserializer.
+ */
+public class EventCodecDeserializer implements Deserializer<Object> {
+
+    private static final List<String> DEFAULT_TRUSTED_PACKAGES = List.of("java.util", "java.lang");
+
+    private final EventCodecs codecs;
+    private final Map<String, Class<?>> types = new ConcurrentHashMap<>();
+    private List<String> trustedPackages = DEFAULT_TRUSTED_PACKAGES;
+
+    public EventCodecDeserializer() {
+        this(EventCodecs.defaults());
+    }
+
+    public EventCodecDeserializer(EventCodecs codecs) {
+        this.codecs = codecs;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object trusted = configs.get(JsonDeserializer.TRUSTED_PACKAGES);
+        if (trusted != null) {
+            trustedPackages = Arrays.stream(trusted.toString().split(","))
+                    .map(String::trim)
+                    .filter(p -> !p.isEmpty())
+                    .toList();
+        }
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return data == null ? null : codecs.defaultCodec().decode(data, Object.class);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        String contentType = header(headers, MessagingHeaders.CONTENT_TYPE);
+        EventCodec codec = contentType != null ? codecs.forContentType(contentType) : codecs.defaultCodec();
+        if (codec == null) {
+            throw new SerializationException("No event codec for content type " + contentType + " [topic=" + topic + "]");
+        }
+        String typeId = header(headers, MessagingHeaders.TYPE_ID);
+        Class<?> type = typeId != null ? types.computeIfAbsent(typeId, this::resolve) : Object.class;
+        return codec.decode(data, type);
+    }
+
+    private Class<?> resolve(String typeId) {
+        if (!isTrusted(ClassUtils.getPackageName(typeId))) {
+            throw new SerializationException("Type " + typeId + " is not in the trusted packages " + trustedPackages
+                    + " (spring.json.trusted.packages)");
+        }
+        try {
+            return ClassUtils.forName(typeId, ClassUtils.getDefaultClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new SerializationException("Unknown event type " + typeId, e);
+        }
+    }
+
+    private boolean isTrusted(String packageName) {
+        for (String trusted : trustedPackages) {
+            if (trusted.equals("*") || trusted.equals(packageName)
+                    || (trusted.endsWith(".*") && packageName.startsWith(trusted.substring(0, trusted.length() - 1)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers != null ? headers.lastHeader(name) : null;
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+package com.learning.messaging.serialization;
+
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of {@link EventCodec}s: picks the codec for an event class and the codec
+ * that decodes a record's content type.
+ * <p>
+ * The codec of each event class (and its header bytes) is resolved once; events use the
+ * default codec unless their class is mapped to another (messaging.serialization.types).
+ */
+public class EventCodecs {
+
+    private final Map<String, EventCodec> byName = new HashMap<>();
+    private final Map<String, EventCodec> byContentType = new HashMap<>();
+    private final EventCodec defaultCodec;
+    private final Map<String, String> typeCodecs;
+
+    private final ClassValue<Binding> bindings = new ClassValue<>() {
+        @Override
+        protected Binding computeValue(Class<?> type) {
+            String name = typeCodecs.get(type.getName());
+            EventCodec codec = name != null ? byName.get(name) : defaultCodec;
+            return new Binding(codec,
+                    codec.contentType().getBytes(StandardCharsets.UTF_8),
+                    type.getName().getBytes(StandardCharsets.UTF_8));
+        }
+    };
+
+    /**
+     * @param codecs       available codecs
+     * @param defaultCodec name of the codec used for events without a mapping
+     * @param typeCodecs   event class name → codec name
+     */
+    public EventCodecs(List<? extends EventCodec> codecs, String defaultCodec, Map<String, String> typeCodecs) {
+        for (EventCodec codec : codecs) {
+            if (byName.putIfAbsent(codec.name(), codec) != null) {
+                throw new IllegalArgumentException("Duplicate event codec name: " + codec.name());
+            }
+            byContentType.putIfAbsent(codec.contentType(), codec);
+        }
+        this.defaultCodec = requireCodec(defaultCodec);
+        typeCodecs.forEach((type, name) -> requireCodec(name));
+        this.typeCodecs = Map.copyOf(typeCodecs);
+    }
+
+    /**
+     * JSON by default, CBOR available; both on default mappers.
+     */
+    public static EventCodecs defaults() {
+        return new EventCodecs(List.of(JacksonEventCodec.json(), JacksonEventCodec.cbor()), "json", Map.of());
+    }
+
+    private EventCodec requireCodec(String name) {
+        EventCodec codec = byName.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown event codec '" + name + "', available: " + byName.keySet());
+        }
+        return codec;
+    }
+
+    /**
+     * Encode an event with its class's codec.
+     *
+     * @throws org.apache.kafka.common.errors.SerializationException if the event can't be encoded
+     */
+    public EncodedEvent encode(Object event) {
+        return encode(event, null);
+    }
+
+    /**
+     * Encode an event with its class's codec, stamping {@code messageId} on every record sent from it.
+     *
+     * @throws org.apache.kafka.common.errors.SerializationException if the event can't be encoded
+     */
+    public EncodedEvent encode(Object event, @Nullable byte[] messageId) {
+        Binding binding = bindings.get(event.getClass());
+        return new EncodedEvent(binding.codec.encode(event), binding.contentType, binding.typeId, messageId);
+    }
+
+    public EventCodec codecFor(Class<?> type) {
+        return bindings.get(type).codec;
+    }
+
+    /**
+     * The codec for a content-type header, {@code null} if none is registered for it.
+     */
+    @Nullable
+    public EventCodec forContentType(String contentType) {
+        return byContentType.get(contentType);
+    }
+
+    public EventCodec defaultCodec() {
+        return defaultCodec;
+    }
+
+    private record Binding(EventCodec codec, byte[] contentType, byte[] typeId) {
+    }
+}
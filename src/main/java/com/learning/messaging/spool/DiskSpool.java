@@ -0,0 +1,349 @@
+package com.learning.messaging.spool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Durable, append-only spool of serialized records backed by memory-mapped segment files.
+ * <p>
+ * - Appends go to the active segment; a full segment is forced to disk and a new one is rolled
+ * - Appends are forced to disk every {@code fsyncEveryRecords} records, or via {@link #sync()}
+ *   (the drainer calls it on an interval)
+ * - Readers replay from a persisted cursor ({@code segmentId, position}); {@link #commit(Entry)}
+ *   moves the cursor and deletes fully drained segments
+ * - On open, segments are recovered up to the last valid frame, so a crash mid-write loses
+ *   at most the torn record
+ */
+@Slf4j
+public class DiskSpool implements Closeable {
+
+    private static final String CURSOR_FILE = "cursor";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int fsyncEveryRecords;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<Long, SpoolSegment> segments = new TreeMap<>();
+
+    private SpoolSegment active;
+    private int unsynced;
+    private long cursorSegment;
+    private int cursorPosition;
+
+    /**
+     * A record read from the spool together with the cursor position just after it.
+     */
+    public record Entry(SpoolRecord record, long segmentId, int nextPosition) {
+    }
+
+    public DiskSpool(Path directory, int segmentSize, int fsyncEveryRecords) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncEveryRecords = Math.max(1, fsyncEveryRecords);
+        try {
+            Files.createDirectories(directory);
+            loadCursor();
+            openSegments();
+            reconcileCursor();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open spool in " + directory, e);
+        }
+    }
+
+    private void openSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SpoolSegment.SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                long id = Long.parseLong(name.substring(0, name.length() - SpoolSegment.SUFFIX.length()));
+                segments.put(id, SpoolSegment.open(directory, id, segmentSize));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(cursorSegment, SpoolSegment.open(directory, cursorSegment, segmentSize));
+        }
+        active = segments.lastEntry().getValue();
+    }
+
+    private void loadCursor() throws IOException {
+        Path file = directory.resolve(CURSOR_FILE);
+        if (Files.exists(file)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            cursorSegment = buffer.getLong();
+            cursorPosition = buffer.getInt();
+        }
+    }
+
+    private void reconcileCursor() {
+        if (!segments.containsKey(cursorSegment)) {
+            // cursor points at a segment that no longer exists: resume at the oldest one left
+            Long next = segments.ceilingKey(cursorSegment);
+            cursorSegment = next != null ? next : segments.firstKey();
+            cursorPosition = 0;
+        }
+        // never resume past the recovered end of the segment
+        cursorPosition = Math.min(cursorPosition, segments.get(cursorSegment).writePosition());
+        deleteDrainedSegments();
+
+        log.info("📂 Spool opened [directory={}, segments={}, cursorSegment={}, cursorPosition={}]",
+                directory, segments.size(), cursorSegment, cursorPosition);
+    }
+
+    /**
+     * Append a record.
+     *
+     * @throws IllegalArgumentException if the record is larger than a segment
+     */
+    public void append(SpoolRecord record) {
+        byte[] payload = encode(record);
+        lock.lock();
+        try {
+            if (!active.append(payload)) {
+                roll();
+                if (!active.append(payload)) {
+                    throw new IllegalArgumentException("Record of " + payload.length
+                            + " bytes exceeds spool segment size " + segmentSize);
+                }
+            }
+            if (++unsynced >= fsyncEveryRecords) {
+                active.force();
+                unsynced = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void roll() {
+        active.force();
+        unsynced = 0;
+        long id = active.id() + 1;
+        try {
+            active = SpoolSegment.open(directory, id, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create spool segment " + id, e);
+        }
+        segments.put(id, active);
+    }
+
+    /**
+     * Force appended but not yet synced records to disk.
+     */
+    public void sync() {
+        lock.lock();
+        try {
+            if (unsynced > 0) {
+                active.force();
+                unsynced = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read up to {@code max} records starting at the committed cursor.
+     * Does not move the cursor; call {@link #commit(Entry)} once they are delivered.
+     */
+    public List<Entry> read(int max) {
+        List<Entry> entries = new ArrayList<>(Math.min(max, 1024));
+        lock.lock();
+        try {
+            long segmentId = cursorSegment;
+            int position = cursorPosition;
+            SpoolSegment segment = segments.get(segmentId);
+
+            while (segment != null && entries.size() < max) {
+                byte[] payload = segment.read(position);
+                if (payload == null) {
+                    Map.Entry<Long, SpoolSegment> next = segments.higherEntry(segmentId);
+                    if (next == null) {
+                        break;
+                    }
+                    segment = next.getValue();
+                    segmentId = next.getKey();
+                    position = 0;
+                    continue;
+                }
+                position += SpoolSegment.FRAME_HEADER + payload.length;
+                entries.add(new Entry(decode(payload), segmentId, position));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return entries;
+    }
+
+    /**
+     * Move the cursor past {@code entry} and drop segments that are fully drained.
+     */
+    public void commit(Entry entry) {
+        lock.lock();
+        try {
+            // the cursor must never be more durable than the records it points past
+            if (unsynced > 0) {
+                active.force();
+                unsynced = 0;
+            }
+            cursorSegment = entry.segmentId();
+            cursorPosition = entry.nextPosition();
+            writeCursor();
+            deleteDrainedSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeCursor() {
+        Path file = directory.resolve(CURSOR_FILE);
+        Path tmp = directory.resolve(CURSOR_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                .putLong(cursorSegment)
+                .putInt(cursorPosition)
+                .flip();
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write spool cursor", e);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write spool cursor", e);
+        }
+    }
+
+    private void deleteDrainedSegments() {
+        while (segments.firstKey() < cursorSegment) {
+            SpoolSegment drained = segments.pollFirstEntry().getValue();
+            try {
+                drained.delete();
+            } catch (IOException e) {
+                log.warn("⚠️ Could not delete drained spool segment [segment={}]", drained.id(), e);
+            }
+        }
+    }
+
+    /**
+     * Bytes appended but not yet drained (approximate).
+     */
+    public long pendingBytes() {
+        lock.lock();
+        try {
+            long pending = 0;
+            for (SpoolSegment segment : segments.values()) {
+                if (segment.id() >= cursorSegment) {
+                    pending += segment.writePosition();
+                }
+            }
+            return Math.max(0, pending - cursorPosition);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            for (SpoolSegment segment : segments.values()) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    log.warn("⚠️ Could not close spool segment [segment={}]", segment.id(), e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Payload: [long timestamp][topic][key][traceId][int valueLength][value][contentType][typeId][messageId]
+    // Strings: [int length][utf-8], length -1 for null
+    // contentType, typeId and messageId were added later: frames that end before them decode them as null
+    static byte[] encode(SpoolRecord record) {
+        byte[] topic = record.topic().getBytes(StandardCharsets.UTF_8);
+        byte[] key = utf8(record.key());
+        byte[] traceId = utf8(record.traceId());
+        byte[] contentType = utf8(record.contentType());
+        byte[] typeId = utf8(record.typeId());
+        byte[] messageId = utf8(record.messageId());
+        int size = Long.BYTES + 7 * Integer.BYTES + topic.length
+                + (key == null ? 0 : key.length)
+                + (traceId == null ? 0 : traceId.length)
+                + (record.value() == null ? 0 : record.value().length)
+                + (contentType == null ? 0 : contentType.length)
+                + (typeId == null ? 0 : typeId.length)
+                + (messageId == null ? 0 : messageId.length);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(record.timestamp());
+        putBytes(buffer, topic);
+        putBytes(buffer, key);
+        putBytes(buffer, traceId);
+        putBytes(buffer, record.value());
+        putBytes(buffer, contentType);
+        putBytes(buffer, typeId);
+        putBytes(buffer, messageId);
+        return buffer.array();
+    }
+
+    static SpoolRecord decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long timestamp = buffer.getLong();
+        String topic = getString(buffer);
+        String key = getString(buffer);
+        String traceId = getString(buffer);
+        byte[] value = getBytes(buffer);
+        String contentType = buffer.hasRemaining() ? getString(buffer) : null;
+        String typeId = buffer.hasRemaining() ? getString(buffer) : null;
+        String messageId = buffer.hasRemaining() ? getString(buffer) : null;
+        return new SpoolRecord(topic, key, value, traceId, timestamp, contentType, typeId, messageId);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = getBytes(buffer);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,194 @@
+package com.learning.messaging.spool;
+
+import com.learning.messaging.config.SpoolProperties;
+import com.learning.messaging.headers.MessagingHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Replays spooled records to Kafka, in spool order, on a single background thread.
+ * <p>
+ * - Each round reads up to {@code drainBatchSize} records, sends them all and waits for the acks
+ * - The cursor moves past the longest acknowledged prefix, so ordering is kept and a record
+ *   is never dropped without an ack (delivery is at-least-once: a partially failed round resends
+ *   records after the first failure)
+ * - A retriable failure means the broker is still unavailable: back off and retry the round
+ * - A non-retriable failure (record too large, unknown topic, ...) will never succeed:
+ *   the record is logged, counted as dropped and skipped
+ * - Unsynced appends are forced to disk every {@code fsyncInterval}
+ */
+@Slf4j
+public class SpoolDrainer implements SmartLifecycle {
+
+    private static final String METRIC_DRAINED = "messaging.spool.drained";
+    private static final String METRIC_DROPPED = "messaging.spool.dropped";
+    private static final String METRIC_PENDING_BYTES = "messaging.spool.pending.bytes";
+
+    private final DiskSpool spool;
+    private final KafkaTemplate<String, byte[]> template;
+    private final SpoolProperties props;
+    private final Counter drained;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param template replays the records; owned by the drainer and closed on {@link #stop()}
+     */
+    public SpoolDrainer(DiskSpool spool,
+                        KafkaTemplate<String, byte[]> template,
+                        SpoolProperties props,
+                        MeterRegistry meterRegistry) {
+        this.spool = spool;
+        this.template = template;
+        this.props = props;
+        this.drained = meterRegistry.counter(METRIC_DRAINED);
+        this.dropped = meterRegistry.counter(METRIC_DROPPED);
+        Gauge.builder(METRIC_PENDING_BYTES, spool, DiskSpool::pendingBytes)
+                .description("Spooled bytes not yet replayed to Kafka")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "messaging-spool-drainer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(props.getDrainSendTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spool.sync();
+        try {
+            template.destroy();
+        } catch (Exception e) {
+            log.warn("❌ Failed to close spool drain producer", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long syncIntervalMs = Math.max(1, props.getFsyncInterval().toMillis());
+        long idleMs = Math.min(props.getDrainIdleInterval().toMillis(), syncIntervalMs);
+
+        while (running) {
+            try {
+                spool.sync();
+                List<DiskSpool.Entry> entries = spool.read(Math.max(1, props.getDrainBatchSize()));
+                if (entries.isEmpty()) {
+                    Thread.sleep(idleMs);
+                } else if (!drain(entries)) {
+                    Thread.sleep(props.getDrainBackoff().toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("❌ Spool drain round failed", e);
+            }
+        }
+    }
+
+    /**
+     * Send one round and commit the acknowledged prefix.
+     *
+     * @return {@code false} if the round stopped on a retriable failure
+     */
+    boolean drain(List<DiskSpool.Entry> entries) throws InterruptedException {
+        List<CompletableFuture<?>> futures = new ArrayList<>(entries.size());
+        for (DiskSpool.Entry entry : entries) {
+            SpoolRecord record = entry.record();
+            ProducerRecord<String, byte[]> producerRecord = new ProducerRecord<>(record.topic(), record.key(), record.value());
+            header(producerRecord, MessagingHeaders.CONTENT_TYPE, record.contentType());
+            header(producerRecord, MessagingHeaders.TYPE_ID, record.typeId());
+            header(producerRecord, MessagingHeaders.TRACE_ID, record.traceId());
+            // consumers deduplicate on it: a replay of a record that did reach the broker is dropped
+            header(producerRecord, MessagingHeaders.MESSAGE_ID, record.messageId());
+            futures.add(template.send(producerRecord));
+        }
+
+        long deadline = System.nanoTime() + props.getDrainSendTimeout().toNanos();
+        DiskSpool.Entry acknowledged = null;
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                DiskSpool.Entry entry = entries.get(i);
+                try {
+                    futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    drained.increment();
+                } catch (ExecutionException e) {
+                    if (isRetriable(e.getCause())) {
+                        log.warn("⏸️ Broker still unavailable, spool drain paused [topic={}, traceId={}, error={}]",
+                                entry.record().topic(), entry.record().traceId(), e.getCause().toString());
+                        return false;
+                    }
+                    dropped.increment();
+                    log.error("🗑️ Dropping spooled record that can never be delivered [topic={}, key={}, traceId={}]",
+                            entry.record().topic(), entry.record().key(), entry.record().traceId(), e.getCause());
+                } catch (TimeoutException e) {
+                    log.warn("⏸️ Spool drain round timed out [topic={}, traceId={}]",
+                            entry.record().topic(), entry.record().traceId());
+                    return false;
+                }
+                acknowledged = entry;
+            }
+            return true;
+        } finally {
+            if (acknowledged != null) {
+                spool.commit(acknowledged);
+            }
+        }
+    }
+
+    private static boolean isRetriable(Throwable error) {
+        boolean kafkaError = false;
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof RetriableException) {
+                return true;
+            }
+            kafkaError |= t instanceof KafkaException;
+        }
+        // a non-retriable client error will fail forever; anything else is treated as transient
+        return !kafkaError;
+    }
+
+    private static void header(ProducerRecord<String, byte[]> record, String name, String value) {
+        if (value != null) {
+            record.headers().add(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
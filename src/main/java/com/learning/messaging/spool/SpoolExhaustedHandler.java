@@ -0,0 +1,142 @@
+package com.learning.messaging.spool;
+
+import com.learning.messaging.exceptions.RetryableSendException;
+import com.learning.messaging.retry.RetryExhaustedHandler;
+import com.learning.messaging.serialization.EncodedEvent;
+import com.learning.messaging.serialization.EventCodecs;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends exhausted events to the local {@link DiskSpool} instead of the DLQ.
+ * <p>
+ * When the broker is down, every send eventually exhausts its retries; holding those
+ * records in memory (or sending them to a DLQ on the same cluster) doesn't help.
+ * The event is written to disk as the producer encoded it (encoded here only if it never was),
+ * and the {@link SpoolDrainer} replays it once the broker is reachable again.
+ * <p>
+ * {@link #onExhausted} only enqueues (bounded, never blocks), so producer I/O threads never wait for the disk;
+ * a dedicated writer thread appends queued records in order. When the queue is full the record is rejected
+ * and counted. Metrics: {@code messaging.spool.appended}, {@code .append.failed}, {@code .append.rejected}
+ * counters and a {@code .queue.size} gauge.
+ */
+@Slf4j
+public class SpoolExhaustedHandler implements RetryExhaustedHandler, SmartLifecycle {
+
+    private static final String METRIC_APPENDED = "messaging.spool.appended";
+    private static final String METRIC_FAILED = "messaging.spool.append.failed";
+    private static final String METRIC_REJECTED = "messaging.spool.append.rejected";
+    private static final String METRIC_QUEUE_SIZE = "messaging.spool.queue.size";
+
+    /** Upper bound for draining the queue on stop. */
+    private static final long STOP_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final DiskSpool spool;
+    private final EventCodecs codecs;
+    private final int queueCapacity;
+    private final BlockingQueue<RetryableSendException> queue;
+    private final Counter appended;
+    private final Counter failed;
+    private final Counter rejected;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public SpoolExhaustedHandler(DiskSpool spool, EventCodecs codecs, int queueCapacity, MeterRegistry meterRegistry) {
+        this.spool = spool;
+        this.codecs = codecs;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.queue = new ArrayBlockingQueue<>(this.queueCapacity);
+        this.appended = meterRegistry.counter(METRIC_APPENDED);
+        this.failed = meterRegistry.counter(METRIC_FAILED);
+        this.rejected = meterRegistry.counter(METRIC_REJECTED);
+        Gauge.builder(METRIC_QUEUE_SIZE, queue, BlockingQueue::size)
+                .description("Exhausted records waiting to be appended to the spool")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onExhausted(RetryableSendException error) {
+        if (!queue.offer(error)) {
+            rejected.increment();
+            log.error("❌ Spool queue full, exhausted event is lost [topic={}, key={}, traceId={}, queueCapacity={}]",
+                    error.getTopic(), error.getKey(), error.getTraceId(), queueCapacity);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::run, "messaging-spool-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops after the queue is drained (bounded), before the spool itself is closed.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("❌ Spool writer stopped with records still queued [records={}]", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                RetryableSendException error = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (error != null) {
+                    append(error);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    void append(RetryableSendException error) {
+        try {
+            EncodedEvent encoded = error.getEncoded() != null ? error.getEncoded() : codecs.encode(error.getEvent());
+            spool.append(new SpoolRecord(error.getTopic(), error.getKey(), encoded.payload(),
+                    error.getTraceId(), System.currentTimeMillis(),
+                    new String(encoded.contentType(), StandardCharsets.UTF_8),
+                    new String(encoded.typeId(), StandardCharsets.UTF_8),
+                    encoded.messageId() != null ? new String(encoded.messageId(), StandardCharsets.UTF_8) : null));
+            appended.increment();
+
+            log.warn("💾 Spooled exhausted event [topic={}, key={}, traceId={}]",
+                    error.getTopic(), error.getKey(), error.getTraceId());
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("❌ Could not spool exhausted event, it is lost [topic={}, key={}, traceId={}]",
+                    error.getTopic(), error.getKey(), error.getTraceId(), e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.learning.messaging.spool;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * A serialized record held in the spool.
+ *
+ * @param topic       original topic
+ * @param key         partitioning key (nullable)
+ * @param value       serialized value, exactly as it would have been sent (nullable)
+ * @param traceId     traceId of the original send (nullable)
+ * @param timestamp   epoch millis when the record was spooled
+ * @param contentType content type of the value, sent as a header on replay (nullable)
+ * @param typeId      event class name, sent as a header on replay (nullable)
+ * @param messageId   message id of the original send, sent as a header on replay (nullable)
+ */
+public record SpoolRecord(String topic,
+                          @Nullable String key,
+                          @Nullable byte[] value,
+                          @Nullable String traceId,
+                          long timestamp,
+                          @Nullable String contentType,
+                          @Nullable String typeId,
+                          @Nullable String messageId) {
+
+    public SpoolRecord(String topic, @Nullable String key, @Nullable byte[] value, @Nullable String traceId, long timestamp) {
+        this(topic, key, value, traceId, timestamp, null, null, null);
+    }
+
+    public SpoolRecord(String topic, @Nullable String key, @Nullable byte[] value, @Nullable String traceId, long timestamp,
+                       @Nullable String contentType, @Nullable String typeId) {
+        this(topic, key, value, traceId, timestamp, contentType, typeId, null);
+    }
+}
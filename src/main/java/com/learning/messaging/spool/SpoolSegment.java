@@ -0,0 +1,137 @@
+package com.learning.messaging.spool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped segment file of the spool.
+ * <p>
+ * Frame layout: {@code [int length][int crc32c][payload]}. The length is written last,
+ * so a frame becomes visible only once it is complete; a zero length marks the end.
+ * On open, frames are validated and the segment is truncated at the first torn or
+ * corrupt frame. Not thread-safe: {@link DiskSpool} serializes access.
+ */
+final class SpoolSegment implements Closeable {
+
+    static final int FRAME_HEADER = 8;
+    static final String SUFFIX = ".spool";
+
+    private final long id;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+
+    private SpoolSegment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static SpoolSegment open(Path directory, long id, int size) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", id, SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int mappedSize = (int) Math.max(size, channel.size());
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+        SpoolSegment segment = new SpoolSegment(id, path, channel, buffer);
+        segment.recover();
+        return segment;
+    }
+
+    /**
+     * Find the end of the valid frames and clear anything after it.
+     */
+    private void recover() {
+        int position = 0;
+        while (read(position) != null) {
+            position += FRAME_HEADER + buffer.getInt(position);
+        }
+        writePosition = position;
+        if (position + 4 <= buffer.capacity() && buffer.getInt(position) != 0) {
+            for (int i = position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Append a frame.
+     *
+     * @return {@code false} if the segment has no room left for it
+     */
+    boolean append(byte[] payload) {
+        int end = writePosition + FRAME_HEADER + payload.length;
+        if (end > buffer.capacity()) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        buffer.putInt(writePosition + 4, (int) crc.getValue());
+        buffer.put(writePosition + FRAME_HEADER, payload);
+        buffer.putInt(writePosition, payload.length);
+        writePosition = end;
+        return true;
+    }
+
+    /**
+     * Read the payload of the frame at a position.
+     *
+     * @return the payload, or {@code null} at the end of the valid frames
+     */
+    byte[] read(int position) {
+        if (position + FRAME_HEADER > buffer.capacity()) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + FRAME_HEADER + length > buffer.capacity()) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(position + FRAME_HEADER, payload);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+            return null;
+        }
+        return payload;
+    }
+
+    /**
+     * Flush written frames to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    long id() {
+        return id;
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+}
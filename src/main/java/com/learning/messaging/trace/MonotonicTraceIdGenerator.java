@@ -0,0 +1,89 @@
+package com.learning.messaging.trace;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fast, non-blocking traceId generator.
+ * <p>
+ * Ids are 128 bits rendered as 32 lowercase hex chars, which is also a valid
+ * W3C trace-context trace-id (see {@link #traceparent(String)}):
+ * <pre>
+ *   [48 bits epoch millis][32 bits node id][48 bits counter]
+ * </pre>
+ * - The node id is random per instance (or fixed), so ids from different processes don't collide
+ * - The counter starts at a random value and is incremented atomically, so ids are unique
+ *   within a process and increase with time on each thread
+ * - SecureRandom is used once at construction, never per id
+ * - Hex is written into a per-thread preallocated buffer: one String per id, nothing else
+ */
+public class MonotonicTraceIdGenerator implements TraceIdGenerator {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final long COUNTER_MASK = (1L << 48) - 1;
+
+    private static final ThreadLocal<byte[]> TRACE_BUFFER = ThreadLocal.withInitial(() -> new byte[32]);
+    private static final ThreadLocal<byte[]> TRACEPARENT_BUFFER = ThreadLocal.withInitial(() -> new byte[55]);
+
+    private final long nodeId;
+    private final AtomicLong counter;
+
+    public MonotonicTraceIdGenerator() {
+        this(new SecureRandom().nextInt());
+    }
+
+    /**
+     * @param nodeId identifies this process; only the low 32 bits are used
+     */
+    public MonotonicTraceIdGenerator(int nodeId) {
+        this.nodeId = nodeId & 0xFFFFFFFFL;
+        this.counter = new AtomicLong(new SecureRandom().nextLong() & COUNTER_MASK);
+    }
+
+    @Override
+    public String nextTraceId() {
+        long high = (System.currentTimeMillis() << 16) | (nodeId >>> 16);
+        long low = (nodeId << 48) | (counter.getAndIncrement() & COUNTER_MASK);
+
+        byte[] buffer = TRACE_BUFFER.get();
+        writeHex(buffer, 0, high);
+        writeHex(buffer, 16, low);
+        return new String(buffer, 0, 32, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Build a W3C {@code traceparent} header value ({@code 00-<trace-id>-<parent-id>-01})
+     * for a traceId produced by this generator, with a fresh parent (span) id.
+     *
+     * @param traceId 32 lowercase hex chars
+     */
+    public String traceparent(String traceId) {
+        if (traceId.length() != 32) {
+            throw new IllegalArgumentException("traceId must be 32 hex chars: " + traceId);
+        }
+        // span id: counter and node, never zero
+        long spanId = (counter.getAndIncrement() & COUNTER_MASK) << 16 | (nodeId & 0xFFFF) | 1L << 63;
+
+        byte[] buffer = TRACEPARENT_BUFFER.get();
+        buffer[0] = '0';
+        buffer[1] = '0';
+        buffer[2] = '-';
+        for (int i = 0; i < 32; i++) {
+            buffer[3 + i] = (byte) traceId.charAt(i);
+        }
+        buffer[35] = '-';
+        writeHex(buffer, 36, spanId);
+        buffer[52] = '-';
+        buffer[53] = '0';
+        buffer[54] = '1';
+        return new String(buffer, 0, 55, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void writeHex(byte[] buffer, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            buffer[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
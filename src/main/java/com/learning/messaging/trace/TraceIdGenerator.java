@@ -0,0 +1,25 @@
+package com.learning.messaging.trace;
+
+import java.util.UUID;
+
+/**
+ * Generates traceIds for sends that have none in the MDC.
+ * <p>
+ * Implementations are called once per record and must be thread-safe and non-blocking.
+ * Register a bean of this type to replace the default ({@link MonotonicTraceIdGenerator}).
+ */
+@FunctionalInterface
+public interface TraceIdGenerator {
+
+    /**
+     * @return a new traceId, never null
+     */
+    String nextTraceId();
+
+    /**
+     * The pre-existing behaviour: random UUIDs (SecureRandom, several allocations per id).
+     */
+    static TraceIdGenerator uuid() {
+        return () -> UUID.randomUUID().toString();
+    }
+}
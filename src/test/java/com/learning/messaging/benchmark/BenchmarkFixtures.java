@@ -0,0 +1,81 @@
+package com.learning.messaging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.learning.messaging.config.BackpressureProperties;
+import com.learning.messaging.config.LoggingProperties;
+import com.learning.messaging.config.MetricsProperties;
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.logging.MessagingLog;
+import com.learning.messaging.metrics.LatencyMeterFactory;
+import com.learning.messaging.producer.KafkaEventProducer;
+import com.learning.messaging.producer.ProducerBackpressure;
+import com.learning.messaging.retry.RetryExecutor;
+import com.learning.messaging.retry.RetryGuards;
+import com.learning.messaging.retry.RetryPolicyRegistry;
+import com.learning.messaging.retry.RetryScheduler;
+import com.learning.messaging.serialization.EventCodecs;
+import com.learning.messaging.support.InMemoryKafkaTemplate;
+import com.learning.messaging.trace.MonotonicTraceIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Wires producer and retry components by hand for benchmarks (no Spring context, no broker).
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Runs scheduled retries inline, so the failure path measures retry bookkeeping, not sleeping.
+     */
+    static final RetryScheduler INLINE_SCHEDULER = new RetryScheduler() {
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            task.run();
+        }
+
+        @Override
+        public int pendingCount() {
+            return 0;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    };
+
+    /**
+     * Publish-path logging with default sampling; summaries are never started.
+     */
+    static final MessagingLog MESSAGING_LOG = new MessagingLog(new LoggingProperties());
+
+    /**
+     * Set the library log level; JMH output is unreadable with per-record INFO logs on the console.
+     * Use {@code -p logLevel=INFO} to include logging cost.
+     */
+    static void logLevel(String level) {
+        ((Logger) LoggerFactory.getLogger("com.learning.messaging")).setLevel(Level.toLevel(level));
+    }
+
+    static RetryExecutor<String> retryExecutor(RetryProperties retryProps, MeterRegistry registry) {
+        MetricsProperties metricsProps = new MetricsProperties();
+        return new RetryExecutor<>(retryProps, registry, List.of(), INLINE_SCHEDULER,
+                new RetryGuards(retryProps, registry, metricsProps), new RetryPolicyRegistry(retryProps), null,
+                metricsProps, new LatencyMeterFactory(registry, metricsProps), MESSAGING_LOG);
+    }
+
+    static KafkaEventProducer<String> producer(InMemoryKafkaTemplate<byte[]> template,
+                                               RetryProperties retryProps,
+                                               MeterRegistry registry) {
+        MetricsProperties metricsProps = new MetricsProperties();
+        return new KafkaEventProducer<>(template, EventCodecs.defaults(), retryExecutor(retryProps, registry), registry,
+                new ProducerBackpressure(new BackpressureProperties(), registry),
+                metricsProps, new LatencyMeterFactory(registry, metricsProps),
+                new MonotonicTraceIdGenerator(), MESSAGING_LOG);
+    }
+}
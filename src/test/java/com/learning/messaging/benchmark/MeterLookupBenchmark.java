@@ -0,0 +1,83 @@
+package com.learning.messaging.benchmark;
+
+import com.learning.messaging.metrics.TopicMeterCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record cost of resolving the success counter for a topic:
+ * {@code meterRegistry.counter(name, "topic", topic)} versus a {@link TopicMeterCache} hit.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeterLookupBenchmark {
+
+    private static final String METRIC = "messaging.producer.success";
+
+    @Param({"1", "100"})
+    public int topicCount;
+
+    private MeterRegistry registry;
+    private TopicMeterCache<Counter> cache;
+    private String[] topics;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new TopicMeterCache<>(topic -> registry.counter(METRIC, "topic", topic),
+                registry::remove, 1000, TimeUnit.MINUTES.toNanos(30));
+        topics = new String[topicCount];
+        for (int i = 0; i < topicCount; i++) {
+            topics[i] = "topic-" + i;
+            registry.counter(METRIC, "topic", topics[i]);
+            cache.get(topics[i]);
+        }
+    }
+
+    private String nextTopic() {
+        String topic = topics[next];
+        next = next + 1 == topics.length ? 0 : next + 1;
+        return topic;
+    }
+
+    @Benchmark
+    public void registryLookup() {
+        registry.counter(METRIC, "topic", nextTopic()).increment();
+    }
+
+    @Benchmark
+    public void cachedHandle() {
+        cache.get(nextTopic()).increment();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MeterLookupBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.learning.messaging.benchmark;
+
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.dto.PublishResult;
+import com.learning.messaging.producer.KafkaEventProducer;
+import com.learning.messaging.producer.PublishListener;
+import com.learning.messaging.support.InMemoryKafkaTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link KafkaEventProducer#send} against an in-memory template:
+ * backpressure, retry wrapper, metrics, result mapping and logging.
+ * {@code sendWithListener} is the fire-and-forget path (no result mapping, no returned future).
+ * <p>
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProducerSendBenchmark {
+
+    @Param({"OFF"})
+    public String logLevel;
+
+    private KafkaEventProducer<String> producer;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.logLevel(logLevel);
+        producer = BenchmarkFixtures.producer(new InMemoryKafkaTemplate<>(), new RetryProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public PublishResult send() {
+        return producer.send("orders", "order-1", "payload").join();
+    }
+
+    @Benchmark
+    public PublishResult sendWithoutKey() {
+        return producer.send("orders", "payload").join();
+    }
+
+    @Benchmark
+    public void sendWithListener() {
+        producer.send("orders", "order-1", "payload", PublishListener.NONE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProducerSendBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,51 @@
+package com.learning.messaging.benchmark;
+
+import com.learning.messaging.dto.PublishResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating a {@link PublishResult} (one per published record).
+ * <p>
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublishResultBenchmark {
+
+    private final IllegalStateException error = new IllegalStateException("broker unavailable");
+    private long offset;
+
+    @Benchmark
+    public PublishResult success() {
+        return PublishResult.success("orders", 0, offset++, "trace-1");
+    }
+
+    @Benchmark
+    public PublishResult failed() {
+        return PublishResult.failed("orders", error, "trace-1");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PublishResultBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.learning.messaging.benchmark;
+
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.retry.RetryExecutor;
+import com.learning.messaging.retry.RetryPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Overhead of {@link RetryExecutor#executeWithRetry} per record, and of the backoff computation.
+ * <p>
+ * - happyPath: the first attempt succeeds
+ * - retryThenSucceed: one failed attempt, one retry (scheduled inline, no real backoff)
+ * - exhausted: every attempt fails until max-attempts
+ * - backoffForAttempt / policyDelay: Math.pow per attempt versus a precomputed full-jitter table
+ * <p>
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetryExecutorBenchmark {
+
+    private static final CompletableFuture<String> OK = CompletableFuture.completedFuture("ok");
+    private static final CompletableFuture<String> FAILED =
+            CompletableFuture.failedFuture(new IllegalStateException("broker unavailable"));
+
+    @Param({"OFF"})
+    public String logLevel;
+
+    @Param({"3"})
+    public int maxAttempts;
+
+    private RetryProperties props;
+    private RetryExecutor<String> executor;
+    private RetryPolicy policy;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.logLevel(logLevel);
+        props = new RetryProperties();
+        props.setMaxAttempts(maxAttempts);
+        executor = BenchmarkFixtures.retryExecutor(props, new SimpleMeterRegistry());
+        policy = new RetryPolicy(RetryProperties.BackoffStrategy.FULL_JITTER, maxAttempts,
+                props.getInitialBackoffMs(), props.getMultiplier(), props.getMaxBackoffMs(), 0);
+    }
+
+    @Benchmark
+    public String happyPath() {
+        return executor.executeWithRetry("orders", "order-1", "payload", () -> OK).join();
+    }
+
+    @Benchmark
+    public String retryThenSucceed() {
+        Supplier<CompletableFuture<String>> failOnce = new Supplier<>() {
+            private boolean failed;
+
+            @Override
+            public CompletableFuture<String> get() {
+                if (failed) {
+                    return OK;
+                }
+                failed = true;
+                return FAILED;
+            }
+        };
+        return executor.executeWithRetry("orders", "order-1", "payload", failOnce).join();
+    }
+
+    @Benchmark
+    public Throwable exhausted() {
+        return executor.executeWithRetry("orders", "order-1", "payload", () -> FAILED)
+                .handle((result, error) -> error)
+                .join();
+    }
+
+    @Benchmark
+    public long backoffForAttempt() {
+        long total = 0;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            total += props.backoffForAttempt(attempt);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long policyDelay() {
+        long total = 0;
+        long previous = 0;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            previous = policy.nextDelayMs(attempt, previous);
+            total += previous;
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RetryExecutorBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.learning.messaging.benchmark;
+
+import com.learning.messaging.serialization.EventCodecs;
+import com.learning.messaging.serialization.JacksonEventCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding one event: Spring's {@link JsonSerializer} (what the Kafka producer did on every
+ * attempt) versus the {@link JacksonEventCodec} JSON and CBOR codecs (cached writers, per-thread buffer).
+ * <p>
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    public record OrderEvent(String orderId, String customerId, BigDecimal amount, Instant createdAt,
+                             List<String> items) {
+    }
+
+    private final OrderEvent event = new OrderEvent("order-42", "customer-7", new BigDecimal("129.90"),
+            Instant.parse("2025-01-01T10:15:30Z"), List.of("sku-1", "sku-2", "sku-3"));
+
+    private final JsonSerializer<Object> springJson = new JsonSerializer<>();
+    private final EventCodecs json = EventCodecs.defaults();
+    private final EventCodecs cbor = new EventCodecs(List.of(JacksonEventCodec.json(), JacksonEventCodec.cbor()),
+            "cbor", Map.of());
+
+    @Benchmark
+    public byte[] springJsonSerializer() {
+        return springJson.serialize("orders", event);
+    }
+
+    @Benchmark
+    public byte[] jsonCodec() {
+        return json.encode(event).payload();
+    }
+
+    @Benchmark
+    public byte[] cborCodec() {
+        return cbor.encode(event).payload();
+    }
+
+    @TearDown
+    public void tearDown() {
+        springJson.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SerializationBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,54 @@
+package com.learning.messaging.benchmark;
+
+import com.learning.messaging.trace.MonotonicTraceIdGenerator;
+import com.learning.messaging.trace.TraceIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-send cost of generating a traceId: random UUID versus {@link MonotonicTraceIdGenerator}.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TraceIdBenchmark {
+
+    private final TraceIdGenerator uuid = TraceIdGenerator.uuid();
+    private final MonotonicTraceIdGenerator monotonic = new MonotonicTraceIdGenerator();
+
+    @Benchmark
+    public String uuid() {
+        return uuid.nextTraceId();
+    }
+
+    @Benchmark
+    public String monotonic() {
+        return monotonic.nextTraceId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TraceIdBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,451 @@
+package com.learning.messaging.consumer;
+
+import com.learning.messaging.config.ConsumerProperties;
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.headers.MessagingHeaders;
+import com.learning.messaging.support.InMemoryKafkaTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsumerWorkerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders", 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ClosingAwareConsumer consumer = new ClosingAwareConsumer();
+    private final ConsumerProperties props = new ConsumerProperties();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Deserializer<Object> deserializer = (Deserializer) new StringDeserializer();
+
+    @Test
+    void deliversRecordsInOrderAndCommitsProcessedOffsets() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> received.add((String) event);
+
+        ConsumerWorker worker = worker(handler, false);
+        enqueue("a", "b", "c");
+        Thread thread = start(worker);
+
+        awaitSize(received, 3);
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(List.of("a", "b", "c"), received);
+        assertEquals(3, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        assertTrue(consumer.closeCalled);
+    }
+
+    @Test
+    void skipsRecordAfterHandlerAttemptsAreExhausted() throws Exception {
+        props.setHandlerAttempts(2);
+        props.setHandlerBackoff(Duration.ZERO);
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> {
+            received.add((String) event);
+            if ("poison".equals(event)) {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        ConsumerWorker worker = worker(handler, false);
+        enqueue("poison", "ok");
+        Thread thread = start(worker);
+
+        awaitSize(received, 3);
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(List.of("poison", "poison", "ok"), received);
+        assertEquals(2, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        assertEquals(1.0, registry.counter("failure", "topic", "orders").count());
+    }
+
+    @Test
+    void doesNotCommitPastARecordWhoseHandlerFailsWhileStopping() throws Exception {
+        props.setHandlerAttempts(100);
+        props.setHandlerBackoff(Duration.ofMillis(20));
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> {
+            received.add((String) event);
+            if ("poison".equals(event)) {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        ConsumerWorker worker = worker(handler, false);
+        enqueue("ok", "poison", "later");
+        Thread thread = start(worker);
+
+        awaitSize(received, 3);
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertFalse(received.contains("later"));
+        assertEquals(1, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        assertEquals(0.0, registry.counter("failure", "topic", "orders").count());
+        assertTrue(consumer.closeCalled);
+    }
+
+    @Test
+    void keyOrderedDoesNotCommitPastARecordWhoseHandlerFailsWhileStopping() throws Exception {
+        props.setHandlerAttempts(100);
+        props.setHandlerBackoff(Duration.ofMillis(20));
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> {
+            received.add((String) event);
+            if ("poison".equals(event)) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ConsumerWorker worker = worker(handler, new KeyOrderedDispatcher(executor));
+            enqueue("ok", "poison", "later");
+            Thread thread = start(worker);
+
+            awaitSize(received, 3);
+            worker.stop();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+
+            assertFalse(received.contains("later"));
+            assertEquals(1, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+            assertTrue(consumer.closeCalled);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void retriesOffsetsOfAFailedAsyncCommit() throws Exception {
+        consumer.failAsyncCommits = 1;
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> received.add((String) event);
+
+        ConsumerWorker worker = worker(handler, false);
+        enqueue("a");
+        Thread thread = start(worker);
+
+        awaitSize(received, 1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (consumer.committed(Set.of(PARTITION)).get(PARTITION) == null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, consumer.failAsyncCommits);
+        assertEquals(1, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Test
+    void deliversPartitionBatchesInBatchMode() throws Exception {
+        List<List<Object>> batches = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = new EventConsumer<>() {
+            @Override
+            public void onEvent(Object event) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void onEvents(List<Object> events) {
+                batches.add(List.copyOf(events));
+            }
+        };
+
+        ConsumerWorker worker = worker(handler, true);
+        enqueue("a", "b");
+        Thread thread = start(worker);
+
+        awaitSize(batches, 1);
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(List.of(List.of("a", "b")), batches);
+        assertEquals(2, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+    }
+
+    @Test
+    void dropsDuplicateMessageIdsBeforeTheHandler() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> received.add((String) event);
+
+        ConsumerWorker worker = worker(handler, false, DeduplicationCache.offHeap(100, 60_000));
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+            consumer.addRecord(withMessageId(0, "a", "id-1"));
+            consumer.addRecord(withMessageId(1, "a", "id-1"));
+            consumer.addRecord(withMessageId(2, "b", "id-2"));
+            consumer.addRecord(new ConsumerRecord<>("orders", 0, 3, "key", "c".getBytes(StandardCharsets.UTF_8)));
+        });
+        Thread thread = start(worker);
+
+        awaitSize(received, 3);
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(List.of("a", "b", "c"), received);
+        assertEquals(4, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        assertEquals(1.0, registry.counter("duplicate", "topic", "orders").count());
+    }
+
+    private static ConsumerRecord<String, byte[]> withMessageId(long offset, String value, String messageId) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(MessagingHeaders.MESSAGE_ID, messageId.getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>("orders", 0, offset, 0L, TimestampType.CREATE_TIME, -1, -1, "key",
+                value.getBytes(StandardCharsets.UTF_8), headers, Optional.empty());
+    }
+
+    @Test
+    void forwardsFailedRecordToRetryTierAndKeepsThePartitionFlowing() throws Exception {
+        props.setHandlerAttempts(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> {
+            received.add((String) event);
+            if ("poison".equals(event)) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>().capture();
+        RetryTopics retryTopics = new RetryTopics(template, List.of(Duration.ofSeconds(1)), new RetryProperties(),
+                Duration.ofSeconds(1));
+
+        ConsumerWorker worker = worker(handler, false, null, retryTopics);
+        enqueue("poison", "ok");
+        Thread thread = start(worker);
+
+        awaitSize(received, 2);
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(List.of("poison", "ok"), received);
+        assertEquals(2, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        ProducerRecord<String, byte[]> forwarded = template.captured().get(0);
+        assertEquals("orders.retry.1s", forwarded.topic());
+        assertEquals("poison", new String(forwarded.value(), StandardCharsets.UTF_8));
+        assertEquals("1", header(forwarded, MessagingHeaders.RETRY_TIER));
+        assertEquals("orders", header(forwarded, MessagingHeaders.ORIGINAL_TOPIC));
+    }
+
+    @Test
+    void retriesAFailedForwardBeforeCommittingTheRecord() throws Exception {
+        props.setHandlerAttempts(1);
+        props.setHandlerBackoff(Duration.ofMillis(5));
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> {
+            received.add((String) event);
+            if ("poison".equals(event)) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        AtomicInteger failingForwards = new AtomicInteger(3);
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>().capture()
+                .failWhen(record -> failingForwards.getAndDecrement() > 0);
+        RetryTopics retryTopics = new RetryTopics(template, List.of(Duration.ofSeconds(1)), new RetryProperties(),
+                Duration.ofSeconds(1));
+
+        ConsumerWorker worker = worker(handler, false, null, retryTopics);
+        enqueue("poison", "ok");
+        Thread thread = start(worker);
+
+        awaitSize(received, 2);
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(List.of("poison", "ok"), received);
+        assertEquals(2, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        assertEquals(1, template.captured().size());
+        assertEquals("orders.retry.1s", template.captured().get(0).topic());
+    }
+
+    @Test
+    void doesNotCommitARecordThatCouldNotBeForwarded() throws Exception {
+        props.setHandlerAttempts(1);
+        props.setHandlerBackoff(Duration.ofMillis(5));
+        List<String> received = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> {
+            received.add((String) event);
+            if ("poison".equals(event)) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>().failWhen(record -> true);
+        RetryTopics retryTopics = new RetryTopics(template, List.of(Duration.ofSeconds(1)), new RetryProperties(),
+                Duration.ofSeconds(1));
+
+        ConsumerWorker worker = worker(handler, false, null, retryTopics);
+        enqueue("ok", "poison", "later");
+        Thread thread = start(worker);
+
+        awaitSize(received, 2);
+        Thread.sleep(50);
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(List.of("ok", "poison"), received);
+        assertEquals(1, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+        assertTrue(consumer.closeCalled);
+    }
+
+    @Test
+    void holdsRetryTierRecordsUntilTheyAreDue() throws Exception {
+        List<Long> receivedAt = new CopyOnWriteArrayList<>();
+        EventConsumer<Object> handler = event -> receivedAt.add(System.currentTimeMillis());
+        RetryTopics retryTopics = new RetryTopics(new InMemoryKafkaTemplate<>(), List.of(Duration.ofSeconds(1)),
+                new RetryProperties(), Duration.ofSeconds(1));
+
+        long dueAt = System.currentTimeMillis() + 300;
+        ConsumerWorker worker = worker(handler, false, null, retryTopics);
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+            RecordHeaders headers = new RecordHeaders();
+            headers.add(MessagingHeaders.DUE_AT, Long.toString(dueAt).getBytes(StandardCharsets.UTF_8));
+            consumer.addRecord(new ConsumerRecord<>("orders", 0, 0, 0L, TimestampType.CREATE_TIME, -1, -1, "key",
+                    "a".getBytes(StandardCharsets.UTF_8), headers, Optional.empty()));
+        });
+        Thread thread = start(worker);
+
+        awaitSize(receivedAt, 1);
+        worker.stop();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(1, receivedAt.size());
+        assertTrue(receivedAt.get(0) >= dueAt, "handled before it was due");
+        assertEquals(1, consumer.committed(Set.of(PARTITION)).get(PARTITION).offset());
+    }
+
+    private static String header(ProducerRecord<String, byte[]> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    private ConsumerWorker worker(EventConsumer<Object> handler, boolean batch) {
+        return worker(handler, batch, null, null);
+    }
+
+    private ConsumerWorker worker(EventConsumer<Object> handler, boolean batch, DeduplicationCache deduplication) {
+        return worker(handler, batch, deduplication, null);
+    }
+
+    private ConsumerWorker worker(EventConsumer<Object> handler, boolean batch, DeduplicationCache deduplication,
+                                  RetryTopics retryTopics) {
+        props.setPollTimeout(Duration.ofMillis(10));
+        Subscription subscription = new Subscription("test", handler, String.class, List.of("orders"), null, batch, 1,
+                DispatchMode.SERIAL);
+        return new ConsumerWorker("test-0", subscription, consumer, deserializer, props,
+                topic -> new ConsumerWorker.ConsumerMeters(
+                        registry.counter("records", "topic", topic),
+                        registry.counter("failure", "topic", topic),
+                        registry.counter("duplicate", "topic", topic)),
+                null, deduplication, retryTopics);
+    }
+
+    private ConsumerWorker worker(EventConsumer<Object> handler, KeyOrderedDispatcher dispatcher) {
+        props.setPollTimeout(Duration.ofMillis(10));
+        Subscription subscription = new Subscription("test", handler, String.class, List.of("orders"), null, false, 1,
+                DispatchMode.KEY_ORDERED);
+        return new ConsumerWorker("test-0", subscription, consumer, deserializer, props,
+                topic -> new ConsumerWorker.ConsumerMeters(
+                        registry.counter("records", "topic", topic),
+                        registry.counter("failure", "topic", topic),
+                        registry.counter("duplicate", "topic", topic)),
+                dispatcher, null, null);
+    }
+
+    private void enqueue(String... values) {
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+            for (int i = 0; i < values.length; i++) {
+                consumer.addRecord(new ConsumerRecord<>("orders", 0, i, "key", values[i].getBytes(StandardCharsets.UTF_8)));
+            }
+        });
+    }
+
+    private static Thread start(ConsumerWorker worker) {
+        Thread thread = new Thread(worker);
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Keeps committed offsets readable after the worker closes the consumer, and redelivers
+     * records after a seek back like a broker would (MockConsumer drops polled records).
+     */
+    private static final class ClosingAwareConsumer extends MockConsumer<String, byte[]> {
+        private final List<ConsumerRecord<String, byte[]>> added = new CopyOnWriteArrayList<>();
+        private volatile boolean closeCalled;
+        private volatile int failAsyncCommits;
+
+        private ClosingAwareConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void addRecord(ConsumerRecord<String, byte[]> record) {
+            added.add(record);
+            super.addRecord(record);
+        }
+
+        @Override
+        public synchronized void seek(TopicPartition partition, long offset) {
+            super.seek(partition, offset);
+            for (ConsumerRecord<String, byte[]> record : added) {
+                if (record.partition() == partition.partition() && record.topic().equals(partition.topic())
+                        && record.offset() >= offset) {
+                    super.addRecord(record);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+            if (failAsyncCommits > 0) {
+                failAsyncCommits--;
+                callback.onComplete(offsets, new RetriableCommitFailedException("injected"));
+                return;
+            }
+            super.commitAsync(offsets, callback);
+        }
+
+        @Override
+        public synchronized void close() {
+            closeCalled = true;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.learning.messaging.consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeduplicationCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void dropsIdsSeenWithinTtl() {
+        DeduplicationCache cache = DeduplicationCache.offHeap(100, 1_000);
+
+        assertTrue(cache.firstSeen(id("a"), 10_000));
+        assertTrue(cache.firstSeen(id("b"), 10_000));
+        assertFalse(cache.firstSeen(id("a"), 10_500));
+        assertTrue(cache.firstSeen(id("a"), 11_000), "expired ids count as new");
+        assertFalse(cache.firstSeen(id("a"), 11_001));
+    }
+
+    @Test
+    void forgottenIdsAreHandledAgain() {
+        DeduplicationCache cache = DeduplicationCache.offHeap(100, 60_000);
+
+        assertTrue(cache.firstSeen(id("a"), 1_000));
+        cache.forget(id("a"));
+        assertTrue(cache.firstSeen(id("a"), 2_000));
+        assertFalse(cache.firstSeen(id("a"), 3_000));
+    }
+
+    @Test
+    void staysBoundedAndForgetsOldestFirst() {
+        DeduplicationCache cache = DeduplicationCache.offHeap(100, Long.MAX_VALUE);
+        assertEquals(256, cache.capacity());
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(cache.firstSeen(id("id-" + i), 1 + i));
+        }
+        int remembered = 0;
+        for (int i = 9_900; i < 10_000; i++) {
+            if (!cache.firstSeen(id("id-" + i), 20_000)) {
+                remembered++;
+            }
+        }
+        assertTrue(remembered >= 90, "most recent ids are kept, got " + remembered);
+    }
+
+    @Test
+    void mappedTableSurvivesCleanCloseOnly() throws IOException {
+        Path file = dir.resolve("orders" + DeduplicationCache.SUFFIX);
+        try (DeduplicationCache cache = DeduplicationCache.mapped(file, 100, 60_000)) {
+            assertTrue(cache.firstSeen(id("a"), 1_000));
+        }
+        DeduplicationCache reopened = DeduplicationCache.mapped(file, 100, 60_000);
+        assertFalse(reopened.firstSeen(id("a"), 2_000), "kept across a clean restart");
+        assertTrue(reopened.firstSeen(id("b"), 2_000));
+
+        // not closed: as after a crash, the table is not trusted
+        try (DeduplicationCache afterCrash = DeduplicationCache.mapped(file, 100, 60_000)) {
+            assertTrue(afterCrash.firstSeen(id("b"), 3_000));
+        }
+    }
+
+    private static byte[] id(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.learning.messaging.consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyOrderedDispatcherTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void keepsPerKeyOrderUnderConcurrency() throws InterruptedException {
+        KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher(executor);
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            String key = "key-" + (i % 10);
+            int sequence = i;
+            dispatcher.submit(key, () -> seen.computeIfAbsent(key, k -> new ArrayList<>()).add(sequence));
+        }
+
+        assertTrue(dispatcher.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(10, seen.size());
+        seen.forEach((key, sequences) -> {
+            assertEquals(200, sequences.size());
+            for (int i = 1; i < sequences.size(); i++) {
+                assertTrue(sequences.get(i - 1) < sequences.get(i), "out of order for " + key);
+            }
+        });
+    }
+
+    @Test
+    void runsDifferentKeysConcurrently() throws InterruptedException {
+        KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher(executor);
+        CountDownLatch allStarted = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            dispatcher.submit("key-" + i, () -> {
+                allStarted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completed.incrementAndGet();
+            });
+        }
+
+        assertTrue(allStarted.await(5, TimeUnit.SECONDS), "keys were serialized");
+        assertEquals(4, dispatcher.inFlight());
+        release.countDown();
+        assertTrue(dispatcher.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(4, completed.get());
+    }
+
+    @Test
+    void offsetTrackerOnlyCommitsContiguousPrefix() {
+        OffsetTracker tracker = new OffsetTracker();
+        OffsetTracker.Slot first = tracker.add(10);
+        OffsetTracker.Slot second = tracker.add(11);
+        OffsetTracker.Slot third = tracker.add(12);
+
+        third.complete();
+        assertEquals(-1, tracker.advance());
+
+        first.complete();
+        assertEquals(11, tracker.advance());
+
+        second.complete();
+        assertEquals(13, tracker.advance());
+        assertEquals(0, tracker.pending());
+    }
+}
@@ -0,0 +1,62 @@
+package com.learning.messaging.consumer;
+
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.headers.MessagingHeaders;
+import com.learning.messaging.support.InMemoryKafkaTemplate;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RetryTopicsTest {
+
+    private final InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>().capture();
+    private final RetryTopics retryTopics = new RetryTopics(template,
+            List.of(Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofMillis(1500)),
+            new RetryProperties(), Duration.ofSeconds(1));
+
+    @Test
+    void namesTiersAfterTheirDelay() {
+        assertEquals(List.of(List.of("orders.retry.1s"), List.of("orders.retry.30s"), List.of("orders.retry.1500ms")),
+                retryTopics.tierTopics(List.of("orders")));
+        assertEquals("5m", RetryTopics.label(Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void movesThroughTheTiersThenToTheDlq() throws Exception {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(MessagingHeaders.MESSAGE_ID, "id-1".getBytes(StandardCharsets.UTF_8));
+        headers.add(MessagingHeaders.ORIGINAL_TOPIC, "orders".getBytes(StandardCharsets.UTF_8));
+        headers.add(MessagingHeaders.RETRY_TIER, "2".getBytes(StandardCharsets.UTF_8));
+        headers.add(MessagingHeaders.DUE_AT, "1".getBytes(StandardCharsets.UTF_8));
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("orders.retry.30s", 0, 7, 0L,
+                TimestampType.CREATE_TIME, -1, -1, "k1", "v".getBytes(StandardCharsets.UTF_8), headers, Optional.empty());
+
+        assertEquals("orders.retry.1500ms", retryTopics.forward(record, new IllegalStateException("boom")));
+        headers.remove(MessagingHeaders.RETRY_TIER);
+        headers.add(MessagingHeaders.RETRY_TIER, "3".getBytes(StandardCharsets.UTF_8));
+        assertEquals("orders.dlq", retryTopics.forward(record, new IllegalStateException("boom")));
+
+        ProducerRecord<String, byte[]> dlq = template.captured().get(1);
+        assertEquals("k1", dlq.key());
+        assertEquals("orders", header(dlq, MessagingHeaders.ORIGINAL_TOPIC));
+        assertEquals("id-1", header(dlq, MessagingHeaders.MESSAGE_ID));
+        assertEquals(IllegalStateException.class.getName(), header(dlq, MessagingHeaders.ERROR_CLASS));
+        assertEquals("4", header(dlq, MessagingHeaders.ATTEMPTS));
+        assertNull(dlq.headers().lastHeader(MessagingHeaders.DUE_AT));
+        assertNull(dlq.headers().lastHeader(MessagingHeaders.RETRY_TIER));
+    }
+
+    private static String header(ProducerRecord<String, byte[]> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,215 @@
+package com.learning.messaging.load;
+
+import com.learning.messaging.config.BackpressureProperties;
+import com.learning.messaging.config.LoggingProperties;
+import com.learning.messaging.config.MetricsProperties;
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.logging.MessagingLog;
+import com.learning.messaging.metrics.LatencyMeterFactory;
+import com.learning.messaging.producer.KafkaEventProducer;
+import com.learning.messaging.producer.ProducerBackpressure;
+import com.learning.messaging.producer.PublishListener;
+import com.learning.messaging.retry.DlqExhaustedHandler;
+import com.learning.messaging.retry.HashedWheelRetryScheduler;
+import com.learning.messaging.retry.RetryExecutor;
+import com.learning.messaging.retry.RetryGuards;
+import com.learning.messaging.retry.RetryPolicyRegistry;
+import com.learning.messaging.serialization.EventCodecs;
+import com.learning.messaging.support.InMemoryKafkaTemplate;
+import com.learning.messaging.trace.MonotonicTraceIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link LoadScenario} against the real producer, retry and DLQ path, wired by hand
+ * (no Spring context) on an {@link InMemoryKafkaTemplate} that injects the scenario's faults.
+ * <p>
+ * - Senders use the fire-and-forget send, paced to the target rate, with default backpressure (BLOCK)
+ * - Retries go through a hashed-wheel scheduler and worker pool, exhausted records through the
+ *   batched {@link DlqExhaustedHandler}; the DLQ shares the faulty broker, as it would in production
+ * - After the run the harness waits for every outcome, then reads throughput, latency percentiles,
+ *   retry and DLQ counts from the same Micrometer meters the library publishes, plus heap and GC figures
+ */
+public final class LoadHarness {
+
+    private static final String TOPIC = "load";
+
+    private LoadHarness() {
+    }
+
+    public static LoadReport run(LoadScenario scenario) throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MetricsProperties metricsProps = new MetricsProperties();
+        RetryProperties retryProps = new RetryProperties();
+        retryProps.setMaxAttempts(scenario.getMaxAttempts());
+        retryProps.setInitialBackoffMs(scenario.getInitialBackoffMs());
+        retryProps.getDlq().setBackoff(Duration.ofMillis(200));
+        MessagingLog messagingLog = new MessagingLog(new LoggingProperties());
+        LatencyMeterFactory latencyMeters = new LatencyMeterFactory(registry, metricsProps);
+
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>()
+                .partitions(scenario.getPartitions())
+                .latency(scenario.getLatency(), scenario.getJitter())
+                .errorRate(scenario.getErrorRate());
+
+        ExecutorService retryWorkers = Executors.newFixedThreadPool(4);
+        HashedWheelRetryScheduler scheduler = new HashedWheelRetryScheduler(10, 512, retryWorkers, "load-retry-wheel");
+        DlqExhaustedHandler dlq = new DlqExhaustedHandler(retryProps, template, EventCodecs.defaults(), registry);
+        RetryExecutor<String> retryExecutor = new RetryExecutor<>(retryProps, registry, List.of(dlq), scheduler,
+                new RetryGuards(retryProps, registry, metricsProps), new RetryPolicyRegistry(retryProps), null,
+                metricsProps, latencyMeters, messagingLog);
+        KafkaEventProducer<String> producer = new KafkaEventProducer<>(template, EventCodecs.defaults(),
+                retryExecutor, registry, new ProducerBackpressure(new BackpressureProperties(), registry),
+                metricsProps, latencyMeters, new MonotonicTraceIdGenerator(), messagingLog);
+
+        LongAdder submitted = new LongAdder();
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        PublishListener listener = new PublishListener() {
+            @Override
+            public void onSuccess(String topic, int partition, long offset, String traceId) {
+                succeeded.increment();
+            }
+
+            @Override
+            public void onFailure(String topic, String key, Throwable error, String traceId) {
+                failed.increment();
+            }
+        };
+
+        HeapSampler heap = new HeapSampler();
+        ScheduledExecutorService faults = Executors.newSingleThreadScheduledExecutor();
+        if (scenario.getOutagePartition() >= 0) {
+            faults.schedule(() -> template.outage(scenario.getOutagePartition()),
+                    scenario.getOutageStart().toMillis(), TimeUnit.MILLISECONDS);
+            faults.schedule(() -> template.restore(scenario.getOutagePartition()),
+                    scenario.getOutageStart().plus(scenario.getOutageDuration()).toMillis(), TimeUnit.MILLISECONDS);
+        }
+        faults.scheduleAtFixedRate(heap::sample, 0, 50, TimeUnit.MILLISECONDS);
+
+        dlq.start();
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + scenario.getDuration().toNanos();
+        String payload = "x".repeat(Math.max(0, scenario.getPayloadBytes() - 2));
+        long intervalNanos = scenario.getRatePerSecond() > 0
+                ? TimeUnit.SECONDS.toNanos(scenario.getSenders()) / scenario.getRatePerSecond()
+                : 0;
+        List<Thread> senders = new ArrayList<>(scenario.getSenders());
+        for (int i = 0; i < scenario.getSenders(); i++) {
+            Thread sender = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long next = System.nanoTime();
+                while (System.nanoTime() < endNanos) {
+                    if (intervalNanos > 0) {
+                        next += intervalNanos;
+                        long wait = next - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                    submitted.increment();
+                    producer.send(TOPIC, "key-" + random.nextInt(scenario.getKeys()), payload, listener);
+                }
+            }, "load-sender-" + i);
+            senders.add(sender);
+            sender.start();
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+
+        long drainDeadline = System.nanoTime() + scenario.getDrainTimeout().toNanos();
+        while (succeeded.sum() + failed.sum() < submitted.sum() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+        dlq.stop();
+        faults.shutdownNow();
+        scheduler.shutdown();
+        retryWorkers.shutdown();
+        heap.sample();
+
+        Timer latency = registry.find("messaging.producer.latency").tag("outcome", "success").timer();
+        HistogramSnapshot snapshot = latency != null ? latency.takeSnapshot() : HistogramSnapshot.empty(0, 0, 0);
+        return new LoadReport(scenario.getName(),
+                submitted.sum(),
+                succeeded.sum(),
+                failed.sum(),
+                elapsed,
+                succeeded.sum() / Math.max(1e-9, elapsed.toNanos() / 1e9),
+                percentile(snapshot, 0.5),
+                percentile(snapshot, 0.95),
+                percentile(snapshot, 0.99),
+                snapshot.max(TimeUnit.MILLISECONDS),
+                count(registry, "messaging.retry.scheduled"),
+                count(registry, "messaging.retry.exhausted"),
+                count(registry, "messaging.dlq.sent"),
+                count(registry, "messaging.dlq.failed"),
+                count(registry, "messaging.dlq.dropped"),
+                heap.peakBytes.get(),
+                heap.gcCount(),
+                heap.gcMillis());
+    }
+
+    private static double percentile(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static long count(SimpleMeterRegistry registry, String name) {
+        return (long) registry.find(name).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    /**
+     * Peak heap usage and collector activity since construction.
+     */
+    private static final class HeapSampler {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        private final AtomicLong peakBytes = new AtomicLong();
+        private final long gcCountAtStart = totalGcCount(collectors);
+        private final long gcMillisAtStart = totalGcMillis(collectors);
+
+        void sample() {
+            peakBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+
+        long gcCount() {
+            return totalGcCount(collectors) - gcCountAtStart;
+        }
+
+        long gcMillis() {
+            return totalGcMillis(collectors) - gcMillisAtStart;
+        }
+
+        private static long totalGcCount(List<GarbageCollectorMXBean> collectors) {
+            return collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+        }
+
+        private static long totalGcMillis(List<GarbageCollectorMXBean> collectors) {
+            return collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.learning.messaging.load;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one {@link LoadScenario}.
+ *
+ * @param scenario         scenario name
+ * @param submitted        sends started
+ * @param succeeded        sends acknowledged, possibly after retries
+ * @param failed           sends that finally failed (exhausted, rejected by backpressure or not encodable)
+ * @param elapsed          time from the first send until every outcome was known
+ * @param throughput       succeeded sends per second of {@code elapsed}
+ * @param p50Millis        publish latency percentiles of successful sends, including retries
+ * @param p95Millis        see {@code p50Millis}
+ * @param p99Millis        see {@code p50Millis}
+ * @param maxMillis        slowest successful send
+ * @param retriesScheduled retries scheduled by {@code RetryExecutor}
+ * @param exhausted        records handed to the exhausted handlers
+ * @param dlqSent          records forwarded to the DLQ
+ * @param dlqFailed        records the DLQ could not take after its own attempts
+ * @param dlqDropped       records dropped because the DLQ queue was full
+ * @param peakHeapBytes    highest heap usage sampled during the run
+ * @param gcCount          collections during the run
+ * @param gcMillis         time spent in collections during the run
+ */
+public record LoadReport(String scenario,
+                         long submitted,
+                         long succeeded,
+                         long failed,
+                         Duration elapsed,
+                         double throughput,
+                         double p50Millis,
+                         double p95Millis,
+                         double p99Millis,
+                         double maxMillis,
+                         long retriesScheduled,
+                         long exhausted,
+                         long dlqSent,
+                         long dlqFailed,
+                         long dlqDropped,
+                         long peakHeapBytes,
+                         long gcCount,
+                         long gcMillis) {
+
+    @Override
+    public String toString() {
+        return String.format("%s: submitted=%d succeeded=%d failed=%d elapsed=%dms throughput=%.0f/s "
+                        + "latency[p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms] retries=%d exhausted=%d "
+                        + "dlq[sent=%d failed=%d dropped=%d] heap[peak=%dMB] gc[count=%d time=%dms]",
+                scenario, submitted, succeeded, failed, elapsed.toMillis(), throughput,
+                p50Millis, p95Millis, p99Millis, maxMillis, retriesScheduled, exhausted,
+                dlqSent, dlqFailed, dlqDropped, peakHeapBytes / (1024 * 1024), gcCount, gcMillis);
+    }
+}
@@ -0,0 +1,72 @@
+package com.learning.messaging.load;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * A sustained-load scenario for {@link LoadHarness}: the traffic to generate and the faults the
+ * in-memory broker injects while it runs.
+ */
+@Value
+@Builder
+public class LoadScenario {
+
+    String name;
+
+    /** How long senders keep publishing. */
+    @Builder.Default
+    Duration duration = Duration.ofSeconds(5);
+
+    /** Sender threads, each calling the fire-and-forget send in a loop. */
+    @Builder.Default
+    int senders = 4;
+
+    /** Total target rate across senders; 0 sends as fast as backpressure allows. */
+    @Builder.Default
+    int ratePerSecond = 0;
+
+    @Builder.Default
+    int payloadBytes = 256;
+
+    /** Distinct record keys, picked at random. */
+    @Builder.Default
+    int keys = 1000;
+
+    @Builder.Default
+    int partitions = 6;
+
+    /** Broker acknowledgement latency, plus up to {@link #jitter}. */
+    @Builder.Default
+    Duration latency = Duration.ofMillis(1);
+
+    @Builder.Default
+    Duration jitter = Duration.ofMillis(1);
+
+    /** Share (0..1) of sends that fail with a retriable error. */
+    @Builder.Default
+    double errorRate = 0;
+
+    /** Partition taken down during the run; -1 for none. */
+    @Builder.Default
+    int outagePartition = -1;
+
+    @Builder.Default
+    Duration outageStart = Duration.ofSeconds(1);
+
+    @Builder.Default
+    Duration outageDuration = Duration.ofSeconds(2);
+
+    /** messaging.producer.max-attempts */
+    @Builder.Default
+    int maxAttempts = 5;
+
+    /** messaging.producer.initial-backoff-ms */
+    @Builder.Default
+    long initialBackoffMs = 100;
+
+    /** How long to wait after the run for outstanding sends (including retries and the DLQ) to finish. */
+    @Builder.Default
+    Duration drainTimeout = Duration.ofSeconds(30);
+}
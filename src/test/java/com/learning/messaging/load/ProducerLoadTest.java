@@ -0,0 +1,71 @@
+package com.learning.messaging.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sustained-load scenarios for the producer, retry and DLQ path; excluded from the default build.
+ * <p>
+ * Run: {@code mvn -Pload test}, longer runs with {@code -Dload.seconds=60}.
+ * Each scenario logs its {@link LoadReport}; compare against a report from {@code main}.
+ */
+@Slf4j
+@Tag("load")
+class ProducerLoadTest {
+
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.seconds", 5));
+
+    @Test
+    void steadyState() throws InterruptedException {
+        LoadReport report = LoadHarness.run(LoadScenario.builder()
+                .name("steady-state")
+                .duration(DURATION)
+                .build());
+        log.info("{}", report);
+
+        assertEquals(report.submitted(), report.succeeded());
+        assertEquals(0, report.retriesScheduled());
+    }
+
+    @Test
+    void transientErrorsAreRetried() throws InterruptedException {
+        LoadReport report = LoadHarness.run(LoadScenario.builder()
+                .name("transient-errors")
+                .duration(DURATION)
+                .ratePerSecond(20_000)
+                .errorRate(0.05)
+                .initialBackoffMs(10)
+                .build());
+        log.info("{}", report);
+
+        assertEquals(report.submitted(), report.succeeded() + report.failed());
+        assertTrue(report.retriesScheduled() > 0);
+        assertTrue(report.failed() <= report.submitted() / 1000, "5 attempts at 5% errors should rarely exhaust");
+    }
+
+    @Test
+    void partitionOutageExhaustsToTheDlq() throws InterruptedException {
+        LoadReport report = LoadHarness.run(LoadScenario.builder()
+                .name("partition-outage")
+                .duration(DURATION)
+                .ratePerSecond(10_000)
+                .outagePartition(0)
+                .outageStart(Duration.ofSeconds(1))
+                .outageDuration(Duration.ofSeconds(2))
+                .maxAttempts(3)
+                .initialBackoffMs(50)
+                .build());
+        log.info("{}", report);
+
+        assertEquals(report.submitted(), report.succeeded() + report.failed());
+        assertTrue(report.exhausted() > 0);
+        assertTrue(report.succeeded() > report.failed(), "other partitions keep flowing");
+        assertEquals(report.exhausted(), report.dlqSent() + report.dlqFailed() + report.dlqDropped());
+    }
+}
@@ -0,0 +1,98 @@
+package com.learning.messaging.logging;
+
+import com.learning.messaging.config.LoggingProperties;
+import com.learning.messaging.exceptions.RetryableSendException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessagingLogTest {
+
+    @Test
+    void rateLimiterCountsSuppressedLinesAndRefillsEverySecond() {
+        AtomicLong clock = new AtomicLong();
+        LogRateLimiter limiter = new LogRateLimiter(2, clock::get);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.drainSuppressed());
+        assertEquals(0, limiter.drainSuppressed());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void rateLimiterGrantsNoMoreThanItsPermitsWhenThreadsRaceIntoANewWindow() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        LogRateLimiter limiter = new LogRateLimiter(10, clock::get);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int second = 1; second <= 100; second++) {
+                clock.set(TimeUnit.SECONDS.toNanos(second));
+                CyclicBarrier start = new CyclicBarrier(threads);
+                AtomicInteger granted = new AtomicInteger();
+                List<Future<?>> runs = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    runs.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < 100; i++) {
+                            if (limiter.tryAcquire()) {
+                                granted.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> run : runs) {
+                    run.get(5, TimeUnit.SECONDS);
+                }
+                assertEquals(10, granted.get(), "second " + second);
+                assertEquals(threads * 100 - 10, limiter.drainSuppressed());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void summaryReportsCountsPerIntervalAndSkipsIdleTopics() {
+        LoggingProperties props = new LoggingProperties();
+        props.setFailureLogsPerSecond(1);
+        MessagingLog messagingLog = new MessagingLog(props);
+
+        for (int i = 0; i < 5; i++) {
+            messagingLog.produced("orders", "k" + i, 0, i, "trace");
+        }
+        messagingLog.retryScheduled("orders", "k", 1, 100, "trace", new TimeoutException());
+        messagingLog.retryScheduled("orders", "k", 1, 100, "trace", new TimeoutException());
+        messagingLog.recovered("orders", "k", 2, "trace");
+        messagingLog.exhausted(new RetryableSendException("orders", "k", "event", null, "trace", 5,
+                new TimeoutException()));
+
+        List<MessagingLog.TopicSummary> summaries = messagingLog.summarize();
+        assertEquals(List.of(new MessagingLog.TopicSummary("orders", 5, 2, 1, 1, 1)), summaries);
+
+        assertEquals(List.of(), messagingLog.summarize());
+
+        messagingLog.produced("orders", "k", 0, 5, "trace");
+        assertEquals(List.of(new MessagingLog.TopicSummary("orders", 1, 0, 0, 0, 0)), messagingLog.summarize(),
+                "counts after an idle interval are still reported");
+    }
+}
@@ -0,0 +1,118 @@
+package com.learning.messaging.metrics;
+
+import com.learning.messaging.config.MetricsProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LatencyMeterFactoryTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MetricsProperties props = new MetricsProperties();
+
+    @Test
+    void timersCarryTopicAndExtraTagsWithConfiguredPercentilesAndSlo() {
+        props.getLatency().setSlo(List.of(Duration.ofMillis(50), Duration.ofMillis(200)));
+        LatencyMeterFactory factory = new LatencyMeterFactory(registry, props);
+
+        Timer timer = factory.timer("messaging.producer.latency", "orders", "outcome", "success");
+        timer.record(10, TimeUnit.MILLISECONDS);
+        timer.record(100, TimeUnit.MILLISECONDS);
+
+        assertSame(timer, registry.get("messaging.producer.latency")
+                .tag("topic", "orders").tag("outcome", "success").timer());
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        assertArrayEquals(new double[]{0.5, 0.95, 0.99},
+                Arrays.stream(snapshot.percentileValues()).mapToDouble(ValueAtPercentile::percentile).toArray());
+        assertArrayEquals(new double[]{50, 200},
+                Arrays.stream(snapshot.histogramCounts()).mapToDouble(bucket -> bucket.bucket(TimeUnit.MILLISECONDS)).toArray());
+        assertArrayEquals(new double[]{1, 2},
+                Arrays.stream(snapshot.histogramCounts()).mapToDouble(CountAtBucket::count).toArray());
+    }
+
+    @Test
+    void percentileHistogramIsRequestedWithinTheExpectedRange() {
+        // SimpleMeterRegistry does not publish percentile-histogram buckets, so check what the timer asks for
+        Map<String, DistributionStatisticConfig> configs = new HashMap<>();
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                configs.put(id.getName(), config);
+                return config;
+            }
+        });
+        props.getLatency().setHistogram(true);
+        props.getLatency().setMaxExpected(Duration.ofSeconds(10));
+        LatencyMeterFactory factory = new LatencyMeterFactory(registry, props);
+
+        factory.timer("messaging.producer.latency", "orders");
+        factory.summary("messaging.retry.attempts", "orders");
+
+        DistributionStatisticConfig timer = configs.get("messaging.producer.latency");
+        assertEquals(Boolean.TRUE, timer.isPublishingHistogram());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), timer.getMinimumExpectedValueAsDouble());
+        assertEquals(TimeUnit.SECONDS.toNanos(10), timer.getMaximumExpectedValueAsDouble());
+        assertEquals(Boolean.TRUE, configs.get("messaging.retry.attempts").isPublishingHistogram());
+    }
+
+    @Test
+    void percentileHistogramIsOffByDefault() {
+        LatencyMeterFactory factory = new LatencyMeterFactory(registry, props);
+
+        Timer timer = factory.timer("messaging.producer.latency", "orders");
+        timer.record(5, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, timer.takeSnapshot().histogramCounts().length);
+    }
+
+    @Test
+    void switchedOffTopicsGetNoMeters() {
+        props.getLatency().getTopics().put("telemetry", false);
+        LatencyMeterFactory factory = new LatencyMeterFactory(registry, props);
+
+        assertNull(factory.timer("messaging.producer.latency", "telemetry"));
+        assertNull(factory.summary("messaging.retry.attempts", "telemetry"));
+        assertNotNull(factory.timer("messaging.producer.latency", "orders"));
+        LatencyMeterFactory.recordSince(null, System.nanoTime());
+        assertNull(registry.find("messaging.producer.latency").tag("topic", "telemetry").timer());
+    }
+
+    @Test
+    void evictedTopicsAreRemovedFromTheRegistry() {
+        LatencyMeterFactory factory = new LatencyMeterFactory(registry, props);
+        TopicMeterCache<Timer> cache = new TopicMeterCache<>(
+                topic -> factory.timer("messaging.producer.latency", topic), factory::remove, 1, -1);
+
+        Timer orders = cache.get("orders");
+        DistributionSummary attempts = factory.summary("messaging.retry.attempts", "orders");
+        attempts.record(2);
+        cache.get("payments");
+
+        assertNull(registry.find("messaging.producer.latency").tag("topic", "orders").timer(), "evicted to make room");
+        assertNotNull(registry.find("messaging.producer.latency").tag("topic", "payments").timer());
+        assertNotNull(orders);
+        factory.remove(attempts);
+        factory.remove(null);
+        assertNull(registry.find("messaging.retry.attempts").summary());
+    }
+}
@@ -0,0 +1,276 @@
+package com.learning.messaging.producer;
+
+import com.learning.messaging.config.BackpressureProperties;
+import com.learning.messaging.config.LoggingProperties;
+import com.learning.messaging.config.MetricsProperties;
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.dto.BatchPublishResult;
+import com.learning.messaging.dto.Keyed;
+import com.learning.messaging.dto.PublishResult;
+import com.learning.messaging.exceptions.RetryableSendException;
+import com.learning.messaging.headers.MessagingHeaders;
+import com.learning.messaging.logging.MessagingLog;
+import com.learning.messaging.metrics.LatencyMeterFactory;
+import com.learning.messaging.retry.HashedWheelRetryScheduler;
+import com.learning.messaging.retry.RetryExecutor;
+import com.learning.messaging.retry.RetryGuards;
+import com.learning.messaging.retry.RetryPolicyRegistry;
+import com.learning.messaging.serialization.EventCodec;
+import com.learning.messaging.serialization.EventCodecs;
+import com.learning.messaging.support.InMemoryKafkaTemplate;
+import com.learning.messaging.trace.MonotonicTraceIdGenerator;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KafkaEventProducerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MetricsProperties metricsProps = new MetricsProperties();
+    private final RetryProperties retryProps = new RetryProperties();
+    private final MessagingLog messagingLog = new MessagingLog(new LoggingProperties());
+    private final ProducerBackpressure backpressure = new ProducerBackpressure(new BackpressureProperties(), registry);
+    private final HashedWheelRetryScheduler scheduler = new HashedWheelRetryScheduler(1, 8, Runnable::run, "test-wheel");
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void listenerGetsOffsetsAndRetriesReuseTheEncodedBytes() {
+        retryProps.setInitialBackoffMs(1);
+        AtomicInteger failuresLeft = new AtomicInteger(1);
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>()
+                .capture()
+                .failWhen(record -> failuresLeft.getAndDecrement() > 0);
+        CompletableFuture<Long> offset = new CompletableFuture<>();
+
+        producer(template).send("orders", "k1", "payload", new PublishListener() {
+            @Override
+            public void onSuccess(String topic, int partition, long recordOffset, String traceId) {
+                offset.complete(recordOffset);
+            }
+        });
+
+        assertEquals(0L, offset.join(), "the failed attempt consumed no offset");
+        assertEquals("\"payload\"", new String(template.captured().get(0).value()));
+        assertEquals(1.0, registry.get("messaging.producer.success").tag("topic", "orders").counter().count());
+    }
+
+    @Test
+    void listenerGetsFinalFailureOnceRetriesAreExhausted() {
+        retryProps.setMaxAttempts(2);
+        retryProps.setInitialBackoffMs(1);
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>().failWhen(record -> true);
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+
+        producer(template).send("orders", "k1", "payload", new PublishListener() {
+            @Override
+            public void onFailure(String topic, String key, Throwable error, String traceId) {
+                failure.complete(error);
+            }
+        });
+
+        Throwable error = failure.join();
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertEquals(2.0, registry.get("messaging.producer.failure").tag("topic", "orders").counter().count(),
+                "one per failed attempt, as on the future path");
+    }
+
+    @Test
+    void everyRecordGetsOneMessageIdKeptAcrossAttempts() {
+        retryProps.setInitialBackoffMs(1);
+        List<String> attemptIds = new CopyOnWriteArrayList<>();
+        AtomicInteger failuresLeft = new AtomicInteger(1);
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>()
+                .failWhen(record -> {
+                    attemptIds.add(messageId(record));
+                    return failuresLeft.getAndDecrement() > 0;
+                });
+        KafkaEventProducer<String> producer = producer(template);
+
+        producer.send("orders", "k1", "first").join();
+        producer.send("orders", "k1", "second").join();
+
+        assertEquals(3, attemptIds.size());
+        assertEquals(attemptIds.get(0), attemptIds.get(1), "a retry keeps the message id");
+        assertNotEquals(attemptIds.get(1), attemptIds.get(2));
+    }
+
+    @Test
+    void sendAllResendsOnlyTheFailedRecords() {
+        retryProps.setInitialBackoffMs(1);
+        List<String> attemptedKeys = new CopyOnWriteArrayList<>();
+        AtomicInteger k2FailuresLeft = new AtomicInteger(1);
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>()
+                .failWhen(record -> {
+                    attemptedKeys.add(record.key());
+                    return record.key().equals("k2") && k2FailuresLeft.getAndDecrement() > 0;
+                });
+
+        BatchPublishResult batch = producer(template)
+                .sendAll("orders", List.of(Keyed.of("k1", "a"), Keyed.of("k2", "b"), Keyed.of("k3", "c")))
+                .join();
+
+        assertEquals(List.of("k1", "k2", "k3", "k2"), attemptedKeys);
+        assertEquals(2, batch.getAttempts());
+        assertEquals(3, batch.getSucceeded());
+        assertEquals(List.of(0L, 2L, 1L), batch.getResults().stream().map(PublishResult::getOffset).toList(),
+                "results stay index-aligned with the records");
+        assertEquals(3, latency("success").count());
+        assertEquals(0.0, inFlightRecords());
+    }
+
+    @Test
+    void sendAllReportsRecordsThatStillFailAndReleasesCapacity() {
+        retryProps.setMaxAttempts(2);
+        retryProps.setInitialBackoffMs(1);
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>()
+                .failWhen(record -> record.key().equals("k2"));
+
+        BatchPublishResult batch = producer(template)
+                .sendAll("orders", List.of(Keyed.of("k1", "a"), Keyed.of("k2", "b"), Keyed.of("k3", "c")))
+                .join();
+
+        assertEquals(2, batch.getAttempts());
+        assertEquals(2, batch.getSucceeded());
+        assertEquals(1, batch.getFailed());
+        assertEquals(List.of(PublishResult.Status.SUCCESS, PublishResult.Status.FAILED, PublishResult.Status.SUCCESS),
+                batch.getResults().stream().map(PublishResult::getStatus).toList());
+        assertInstanceOf(TimeoutException.class, rootCause(batch.getResults().get(1).getError()));
+        assertEquals(2, latency("success").count());
+        assertEquals(1, latency("failure").count());
+        assertEquals(0.0, inFlightRecords());
+    }
+
+    @Test
+    void capacityIsReleasedOnSuccessAndOnFinalFailure() {
+        retryProps.setMaxAttempts(2);
+        retryProps.setInitialBackoffMs(1);
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>()
+                .failWhen(record -> record.key().equals("bad"));
+        KafkaEventProducer<String> producer = producer(template);
+
+        assertEquals(PublishResult.Status.SUCCESS, producer.send("orders", "good", "a").join().getStatus());
+        assertEquals(0.0, inFlightRecords());
+        CompletableFuture<PublishResult> exhausted = producer.send("orders", "bad", "b");
+        assertThrows(CompletionException.class, exhausted::join);
+        assertEquals(0.0, inFlightRecords());
+
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        producer.send("orders", "bad", "c", new PublishListener() {
+            @Override
+            public void onFailure(String topic, String key, Throwable error, String traceId) {
+                failure.complete(error);
+            }
+        });
+        failure.join();
+        assertEquals(0.0, inFlightRecords());
+    }
+
+    @Test
+    void retriesRejectedByAStoppedSchedulerFailAndReleaseCapacity() throws Exception {
+        retryProps.setMaxAttempts(3);
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>()
+                .failWhen(record -> record.key().equals("bad"));
+        KafkaEventProducer<String> producer = producer(template);
+        scheduler.shutdown();
+
+        CompletableFuture<PublishResult> single = producer.send("orders", "bad", "a");
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> single.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RetryableSendException.class, failed.getCause());
+        BatchPublishResult batch = producer.sendAll("orders", List.of(Keyed.of("good", "b"), Keyed.of("bad", "c")))
+                .get(1, TimeUnit.SECONDS);
+
+        assertEquals(1, batch.getAttempts());
+        assertEquals(List.of(PublishResult.Status.SUCCESS, PublishResult.Status.FAILED),
+                batch.getResults().stream().map(PublishResult::getStatus).toList());
+        assertEquals(0.0, inFlightRecords());
+    }
+
+    @Test
+    void encodeFailureCompletesWithAFailedResultLikeSaturation() {
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>().capture();
+        EventCodec failing = new EventCodec() {
+            @Override
+            public String name() {
+                return "failing";
+            }
+
+            @Override
+            public String contentType() {
+                return "application/x-failing";
+            }
+
+            @Override
+            public byte[] encode(Object event) {
+                throw new SerializationException("cannot encode " + event);
+            }
+
+            @Override
+            public <T> T decode(byte[] data, Class<T> type) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        PublishResult result = producer(template, new EventCodecs(List.of(failing), "failing", Map.of()))
+                .send("orders", "k1", "event").join();
+
+        assertEquals(PublishResult.Status.FAILED, result.getStatus());
+        assertInstanceOf(SerializationException.class, result.getError());
+        assertEquals(List.of(), template.captured());
+        assertEquals(0.0, inFlightRecords());
+    }
+
+    private Timer latency(String outcome) {
+        return registry.get("messaging.producer.latency").tag("topic", "orders").tag("outcome", outcome).timer();
+    }
+
+    private double inFlightRecords() {
+        return registry.get("messaging.producer.inflight.records").tag("scope", "global").gauge().value();
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        while (error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static String messageId(ProducerRecord<String, byte[]> record) {
+        return new String(record.headers().lastHeader(MessagingHeaders.MESSAGE_ID).value(), StandardCharsets.UTF_8);
+    }
+
+    private KafkaEventProducer<String> producer(InMemoryKafkaTemplate<byte[]> template) {
+        return producer(template, EventCodecs.defaults());
+    }
+
+    private KafkaEventProducer<String> producer(InMemoryKafkaTemplate<byte[]> template, EventCodecs codecs) {
+        RetryExecutor<String> retryExecutor = new RetryExecutor<>(retryProps, registry, List.of(), scheduler,
+                new RetryGuards(retryProps, registry, metricsProps), new RetryPolicyRegistry(retryProps), null,
+                metricsProps, new LatencyMeterFactory(registry, metricsProps), messagingLog);
+        return new KafkaEventProducer<>(template, codecs, retryExecutor, registry,
+                backpressure, metricsProps,
+                new LatencyMeterFactory(registry, metricsProps), new MonotonicTraceIdGenerator(), messagingLog);
+    }
+}
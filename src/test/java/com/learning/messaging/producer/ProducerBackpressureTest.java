@@ -0,0 +1,154 @@
+package com.learning.messaging.producer;
+
+import com.learning.messaging.config.BackpressureProperties;
+import com.learning.messaging.exceptions.ProducerSaturatedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProducerBackpressureTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BackpressureProperties props = new BackpressureProperties();
+
+    @Test
+    void blockGivesUpAfterTheTimeout() {
+        props.setMaxInFlightRecords(1);
+        props.setBlockTimeoutMs(50);
+        ProducerBackpressure backpressure = new ProducerBackpressure(props, registry);
+
+        assertNull(backpressure.acquire("orders", 1, 10));
+        long start = System.nanoTime();
+        ProducerSaturatedException rejected = backpressure.acquire("orders", 1, 10);
+
+        assertNotNull(rejected);
+        assertEquals(ProducerSaturatedException.Reason.TIMEOUT, rejected.getReason());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 45);
+        assertEquals(1.0, rejected("TIMEOUT"));
+    }
+
+    @Test
+    void blockedSendIsAdmittedOnceCapacityIsReleased() throws Exception {
+        props.setMaxInFlightRecords(1);
+        props.setBlockTimeoutMs(5_000);
+        ProducerBackpressure backpressure = new ProducerBackpressure(props, registry);
+        assertNull(backpressure.acquire("orders", 1, 10));
+
+        CompletableFuture<ProducerSaturatedException> blocked =
+                CompletableFuture.supplyAsync(() -> backpressure.acquire("orders", 1, 10));
+        Thread.sleep(50);
+        backpressure.release("orders", 1, 10);
+
+        assertNull(blocked.get(1, TimeUnit.SECONDS));
+        assertEquals(1.0, inFlight("global", "*"));
+    }
+
+    @Test
+    void failFastRejectsWithoutWaiting() {
+        props.setMaxInFlightRecords(1);
+        props.setBlockTimeoutMs(5_000);
+        props.setOverflowPolicy(BackpressureProperties.OverflowPolicy.FAIL_FAST);
+        ProducerBackpressure backpressure = new ProducerBackpressure(props, registry);
+
+        assertNull(backpressure.acquire("orders", 1, 10));
+        long start = System.nanoTime();
+        ProducerSaturatedException rejected = backpressure.acquire("orders", 1, 10);
+
+        assertEquals(ProducerSaturatedException.Reason.FULL, rejected.getReason());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+        assertEquals(1.0, rejected("FULL"));
+    }
+
+    @Test
+    void byteLimitAppliesBeforeTheRecordLimit() {
+        props.setMaxInFlightRecords(100);
+        props.setMaxInFlightBytes(1_000);
+        props.setOverflowPolicy(BackpressureProperties.OverflowPolicy.FAIL_FAST);
+        ProducerBackpressure backpressure = new ProducerBackpressure(props, registry);
+
+        assertNull(backpressure.acquire("orders", 1, 600));
+        assertNotNull(backpressure.acquire("orders", 1, 600), "1200 bytes over the 1000 byte limit");
+        assertNull(backpressure.acquire("orders", 1, 400));
+        assertEquals(1_000.0, registry.get("messaging.producer.inflight.bytes").tag("scope", "global").gauge().value());
+    }
+
+    @Test
+    void recordLimitAppliesBeforeTheByteLimit() {
+        props.setMaxInFlightRecords(2);
+        props.setOverflowPolicy(BackpressureProperties.OverflowPolicy.FAIL_FAST);
+        ProducerBackpressure backpressure = new ProducerBackpressure(props, registry);
+
+        assertNull(backpressure.acquire("orders", 2, 10));
+        assertNotNull(backpressure.acquire("orders", 1, 10));
+    }
+
+    @Test
+    void oversizedSendIsAdmittedWhenNothingElseIsInFlight() {
+        props.setMaxInFlightBytes(1_000);
+        props.setOverflowPolicy(BackpressureProperties.OverflowPolicy.FAIL_FAST);
+        ProducerBackpressure backpressure = new ProducerBackpressure(props, registry);
+
+        assertNull(backpressure.acquire("orders", 1, 5_000));
+        assertNotNull(backpressure.acquire("orders", 1, 1));
+    }
+
+    @Test
+    void topicLimitsApplyOnTopOfTheGlobalLimit() {
+        props.setOverflowPolicy(BackpressureProperties.OverflowPolicy.FAIL_FAST);
+        BackpressureProperties.TopicLimit audit = new BackpressureProperties.TopicLimit();
+        audit.setMaxInFlightRecords(1);
+        props.getTopics().put("audit", audit);
+        ProducerBackpressure backpressure = new ProducerBackpressure(props, registry);
+
+        assertNull(backpressure.acquire("audit", 1, 10));
+        assertNotNull(backpressure.acquire("audit", 1, 10));
+        assertNull(backpressure.acquire("orders", 1, 10), "other topics only see the global limit");
+        assertEquals(1.0, inFlight("topic", "audit"));
+        assertEquals(2.0, inFlight("global", "*"));
+
+        backpressure.release("audit", 1, 10);
+        assertEquals(0.0, inFlight("topic", "audit"));
+        assertEquals(1.0, inFlight("global", "*"));
+        assertNull(backpressure.acquire("audit", 1, 10));
+    }
+
+    @Test
+    void shedRejectsLowPriorityAboveTheWatermarkOnly() {
+        props.setMaxInFlightRecords(10);
+        props.setOverflowPolicy(BackpressureProperties.OverflowPolicy.SHED);
+        props.setShedWatermark(0.5);
+        BackpressureProperties.TopicLimit audit = new BackpressureProperties.TopicLimit();
+        audit.setPriority(Priority.LOW);
+        props.getTopics().put("audit", audit);
+        ProducerBackpressure backpressure = new ProducerBackpressure(props, registry);
+
+        assertNull(backpressure.acquire("orders", 5, 10));
+        assertEquals(ProducerSaturatedException.Reason.SHED, backpressure.acquire("audit", 1, 10).getReason());
+        assertNull(backpressure.acquire("orders", 1, 10));
+    }
+
+    @Test
+    void disabledAdmitsEverything() {
+        props.setEnabled(false);
+        props.setMaxInFlightRecords(1);
+        ProducerBackpressure backpressure = new ProducerBackpressure(props, registry);
+
+        assertNull(backpressure.acquire("orders", 1, 10));
+        assertNull(backpressure.acquire("orders", 1, 10));
+    }
+
+    private double inFlight(String scope, String topic) {
+        return registry.get("messaging.producer.inflight.records").tag("scope", scope).tag("topic", topic).gauge().value();
+    }
+
+    private double rejected(String reason) {
+        return registry.get("messaging.producer.rejected").tag("reason", reason).counter().count();
+    }
+}
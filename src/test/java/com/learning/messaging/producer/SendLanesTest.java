@@ -0,0 +1,121 @@
+package com.learning.messaging.producer;
+
+import com.learning.messaging.config.BackpressureProperties;
+import com.learning.messaging.support.InMemoryKafkaTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendLanesTest {
+
+    private final InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>().capture();
+    private final BackpressureProperties props = new BackpressureProperties();
+    private SendLanes lanes;
+
+    @AfterEach
+    void close() {
+        if (lanes != null) {
+            lanes.close();
+        }
+    }
+
+    @Test
+    void disabledSendsStraightThrough() throws Exception {
+        lanes = new SendLanes(props, TopicProducers.fixed(template), new SimpleMeterRegistry());
+
+        lanes.send(record("orders"), false).get(1, TimeUnit.SECONDS);
+
+        assertEquals(1, template.sent());
+    }
+
+    @Test
+    void higherLanesGoFirstWhileTheProducerIsSaturated() throws Exception {
+        template.latency(Duration.ofMillis(10), Duration.ZERO);
+        props.getTopics().computeIfAbsent("payments", topic -> new BackpressureProperties.TopicLimit())
+                .setPriority(Priority.HIGH);
+        props.getTopics().computeIfAbsent("audit", topic -> new BackpressureProperties.TopicLimit())
+                .setPriority(Priority.LOW);
+        lanes = enabled(1);
+
+        List<CompletableFuture<SendResult<String, byte[]>>> sent = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sent.add(lanes.send(record("audit"), false));
+        }
+        for (int i = 0; i < 5; i++) {
+            sent.add(lanes.send(record("payments"), false));
+        }
+        CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        // at most the first audit record goes out before them; smooth round-robin at weights 8:1
+        // then lets one audit record in after four payments
+        List<String> topics = topics();
+        assertEquals(5, topics.subList(0, 7).stream().filter("payments"::equals).count(), topics::toString);
+        assertEquals(List.of("audit", "audit", "audit"), topics.subList(7, 10));
+    }
+
+    @Test
+    void retriesWaitInTheRetryLane() throws Exception {
+        template.latency(Duration.ofMillis(10), Duration.ZERO);
+        props.getTopics().computeIfAbsent("payments", topic -> new BackpressureProperties.TopicLimit())
+                .setPriority(Priority.HIGH);
+        lanes = enabled(1);
+
+        List<CompletableFuture<SendResult<String, byte[]>>> sent = new ArrayList<>();
+        sent.add(lanes.send(record("orders"), false));
+        sent.add(lanes.send(record("payments"), true));
+        sent.add(lanes.send(record("orders"), false));
+        CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("orders", "orders", "payments"), topics());
+    }
+
+    @Test
+    void rateLimitedTopicsDoNotHoldUpTheirLane() throws Exception {
+        props.getTopics().computeIfAbsent("audit", topic -> new BackpressureProperties.TopicLimit())
+                .setMaxRecordsPerSecond(10.0);
+        lanes = enabled(100);
+
+        List<CompletableFuture<SendResult<String, byte[]>>> audit = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            audit.add(lanes.send(record("audit"), false));
+        }
+        List<CompletableFuture<SendResult<String, byte[]>>> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orders.add(lanes.send(record("orders"), false));
+        }
+        long start = System.nanoTime();
+        CompletableFuture.allOf(orders.toArray(CompletableFuture[]::new)).get(1, TimeUnit.SECONDS);
+        assertFalse(audit.get(14).isDone(), "a one-second burst, then 10 per second");
+
+        CompletableFuture.allOf(audit.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(20, template.sent());
+        assertTrue(elapsedMs >= 300, "took " + elapsedMs + " ms");
+    }
+
+    private SendLanes enabled(int maxInFlight) {
+        props.getLanes().setEnabled(true);
+        props.getLanes().setMaxInFlight(maxInFlight);
+        return new SendLanes(props, TopicProducers.fixed(template), new SimpleMeterRegistry());
+    }
+
+    private List<String> topics() {
+        return template.captured().stream().map(ProducerRecord::topic).toList();
+    }
+
+    private static ProducerRecord<String, byte[]> record(String topic) {
+        return new ProducerRecord<>(topic, "k", new byte[16]);
+    }
+}
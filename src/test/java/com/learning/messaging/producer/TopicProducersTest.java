@@ -0,0 +1,155 @@
+package com.learning.messaging.producer;
+
+import com.learning.messaging.config.ProducerTuningProperties;
+import com.learning.messaging.support.InMemoryKafkaTemplate;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopicProducersTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Map<String, Object>> overrides = new ArrayList<>();
+    private final List<InMemoryKafkaTemplate<byte[]>> templates = new ArrayList<>();
+
+    @Test
+    void disabledSendsEverythingThroughOneTemplate() {
+        TopicProducers producers = producers(new ProducerTuningProperties());
+
+        send(producers, "orders", 10_000, 1_000);
+        clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+        send(producers, "orders", 1, 1_000);
+
+        assertEquals(1, templates.size());
+        assertEquals(10_001, templates.get(0).sent());
+        assertEquals(TopicClass.STANDARD, producers.classOf("orders"));
+    }
+
+    @Test
+    void pinnedTopicsUseTheirClass() {
+        ProducerTuningProperties props = enabled();
+        props.getTopics().put("payments", TopicClass.LATENCY);
+        TopicProducers producers = producers(props);
+
+        send(producers, "payments", 10_000, 20_000);
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        send(producers, "payments", 1, 20_000);
+
+        assertEquals(TopicClass.LATENCY, producers.classOf("payments"));
+        assertEquals(2, templates.size());
+        assertEquals(0, templates.get(0).sent());
+        assertEquals(10_001, templates.get(1).sent());
+        assertEquals(Map.of(ProducerConfig.LINGER_MS_CONFIG, 0, ProducerConfig.COMPRESSION_TYPE_CONFIG, "none"),
+                overrides.get(1));
+    }
+
+    @Test
+    void busyTopicsArePromotedToBulkAndDemotedWhenQuiet() {
+        TopicProducers producers = producers(enabled());
+
+        send(producers, "audit", 1_000, 1_000);
+        send(producers, "orders", 10, 100);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        producers.evaluate();
+        send(producers, "audit", 1, 1_000);
+
+        assertEquals(TopicClass.BULK, producers.classOf("audit"));
+        assertEquals(TopicClass.STANDARD, producers.classOf("orders"));
+        // 1000 records/s of ~1 KB, acked at once: shortest linger, ~5 KB per linger
+        Map<String, Object> bulk = overrides.get(1);
+        assertEquals(5L, bulk.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(64 * 1024, bulk.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertEquals("lz4", bulk.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals(1, templates.get(1).sent());
+
+        // 300 records/s: above half the threshold, stays
+        send(producers, "audit", 299, 1_000);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        producers.evaluate();
+        assertEquals(TopicClass.BULK, producers.classOf("audit"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        producers.evaluate();
+        assertEquals(TopicClass.STANDARD, producers.classOf("audit"));
+        assertEquals(2, templates.size(), "the bulk producer is kept for the next promotion");
+    }
+
+    @Test
+    void largeRecordsArePromotedAtAnyRate() {
+        TopicProducers producers = producers(enabled());
+
+        send(producers, "documents", 2, 64 * 1024);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        producers.evaluate();
+
+        assertEquals(TopicClass.BULK, producers.classOf("documents"));
+        assertEquals(128 * 1024, overrides.get(1).get(ProducerConfig.BATCH_SIZE_CONFIG));
+    }
+
+    @Test
+    void aTopicMovesOnceItsInFlightSendsAreAckedAndKeepsItsOrder() throws Exception {
+        TopicProducers producers = new TopicProducers(enabled(), config -> {
+            InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>().capture();
+            if (templates.isEmpty()) {
+                template.latency(Duration.ofMillis(200), Duration.ZERO);
+            }
+            templates.add(template);
+            return template;
+        }, clock::get, null);
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            sends.add(producers.send(new ProducerRecord<>("audit", "k", ByteBuffer.allocate(4).putInt(i).array())));
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        producers.evaluate();
+        for (int i = 1_000; i < 1_010; i++) {
+            sends.add(producers.send(new ProducerRecord<>("audit", "k", ByteBuffer.allocate(4).putInt(i).array())));
+        }
+
+        assertEquals(TopicClass.STANDARD, producers.classOf("audit"), "still in flight on the standard producer");
+        assertEquals(0, templates.get(1).sent());
+
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(TopicClass.BULK, producers.classOf("audit"));
+        assertEquals(1_000, templates.get(0).sent());
+        List<Integer> moved = templates.get(1).captured().stream()
+                .map(record -> ByteBuffer.wrap(record.value()).getInt())
+                .toList();
+        assertEquals(IntStream.range(1_000, 1_010).boxed().toList(), moved);
+    }
+
+    private static ProducerTuningProperties enabled() {
+        ProducerTuningProperties props = new ProducerTuningProperties();
+        props.setEnabled(true);
+        props.setWindow(Duration.ofSeconds(1));
+        return props;
+    }
+
+    private TopicProducers producers(ProducerTuningProperties props) {
+        return new TopicProducers(props, config -> {
+            InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<>();
+            overrides.add(config);
+            templates.add(template);
+            return template;
+        }, clock::get, null);
+    }
+
+    private static void send(TopicProducers producers, String topic, int records, int valueBytes) {
+        for (int i = 0; i < records; i++) {
+            producers.send(new ProducerRecord<>(topic, "k", new byte[valueBytes]));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.learning.messaging.replay;
+
+import com.learning.messaging.config.ReplayProperties;
+import com.learning.messaging.dto.BatchPublishResult;
+import com.learning.messaging.dto.Keyed;
+import com.learning.messaging.dto.PublishResult;
+import com.learning.messaging.headers.MessagingHeaders;
+import com.learning.messaging.producer.EventProducer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayJobTest {
+
+    private static final String DLQ = "orders.dlq";
+    private static final TopicPartition PARTITION = new TopicPartition(DLQ, 0);
+
+    @TempDir
+    Path directory;
+
+    private final ReplayProperties props = new ReplayProperties();
+    private final RecordingProducer producer = new RecordingProducer();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Deserializer<Object> deserializer = (Deserializer) new StringDeserializer();
+
+    @Test
+    void republishesMatchingRecordsAndResumesFromCheckpoint() {
+        ReplayCheckpoints checkpoints = new ReplayCheckpoints(directory);
+        ReplayRequest request = new ReplayRequest("orders-timeouts", DLQ, null, null, null, null,
+                "TimeoutException", 0.0, 0, false, true);
+
+        ReplayJob first = job(request, checkpoints);
+        first.run();
+
+        ReplayStatus status = first.status();
+        assertEquals(ReplayJob.State.COMPLETED, status.state());
+        assertEquals(4, status.scanned());
+        assertEquals(3, status.matched());
+        assertEquals(2, status.replayed());
+        assertEquals(1, status.skipped());
+        assertEquals(List.of("orders:k1=a", "orders:k3=c"), producer.sent);
+        assertEquals(Map.of(PARTITION, 4L), checkpoints.load("orders-timeouts", DLQ));
+
+        ReplayJob second = job(request, checkpoints);
+        second.run();
+
+        assertEquals(ReplayJob.State.COMPLETED, second.status().state());
+        assertEquals(0, second.status().scanned());
+        assertEquals(2, producer.sent.size());
+    }
+
+    @Test
+    void dryRunCountsWithoutPublishingOrCheckpointing() {
+        ReplayCheckpoints checkpoints = new ReplayCheckpoints(directory);
+        ReplayRequest request = new ReplayRequest(null, DLQ, null, null, null, "k2", null, null, 0, true, true);
+
+        ReplayJob job = job(request, checkpoints);
+        job.run();
+
+        assertEquals(ReplayJob.State.COMPLETED, job.status().state());
+        assertEquals(1, job.status().matched());
+        assertEquals(0, job.status().replayed());
+        assertTrue(producer.sent.isEmpty());
+        assertTrue(checkpoints.load(DLQ, DLQ).isEmpty());
+    }
+
+    private ReplayJob job(ReplayRequest request, ReplayCheckpoints checkpoints) {
+        MockConsumer<String, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(DLQ, List.of(new PartitionInfo(DLQ, 0, Node.noNode(), new Node[0], new Node[0])));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(PARTITION, 4L));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(dlqRecord(0, "k1", "a", "orders", "org.apache.kafka.common.errors.TimeoutException"));
+            consumer.addRecord(dlqRecord(1, "k2", "b", "orders", "org.apache.kafka.common.errors.RecordTooLargeException"));
+            consumer.addRecord(dlqRecord(2, "k3", "c", "orders", "org.apache.kafka.common.errors.TimeoutException"));
+            consumer.addRecord(dlqRecord(3, "k4", "d", null, "org.apache.kafka.common.errors.TimeoutException"));
+        });
+        return new ReplayJob("test", request, consumer, deserializer, producer, checkpoints, props);
+    }
+
+    private static ConsumerRecord<String, byte[]> dlqRecord(long offset, String key, String value,
+                                                            String originalTopic, String errorClass) {
+        RecordHeaders headers = new RecordHeaders();
+        if (originalTopic != null) {
+            headers.add(MessagingHeaders.ORIGINAL_TOPIC, originalTopic.getBytes(StandardCharsets.UTF_8));
+        }
+        headers.add(MessagingHeaders.ERROR_CLASS, errorClass.getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>(DLQ, 0, offset, System.currentTimeMillis(), TimestampType.CREATE_TIME,
+                -1, -1, key, value.getBytes(StandardCharsets.UTF_8), headers, Optional.empty());
+    }
+
+    private static class RecordingProducer implements EventProducer<Object> {
+
+        private final List<String> sent = new ArrayList<>();
+
+        @Override
+        public CompletableFuture<PublishResult> send(String topic, Object event) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<PublishResult> send(String topic, String key, Object event) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<BatchPublishResult> sendAll(String topic, List<Keyed<Object>> records) {
+            List<PublishResult> results = new ArrayList<>();
+            for (Keyed<Object> record : records) {
+                sent.add(topic + ":" + record.getKey() + "=" + record.getEvent());
+                results.add(PublishResult.success(topic, 0, sent.size(), "trace"));
+            }
+            return CompletableFuture.completedFuture(BatchPublishResult.of(topic, results, 1, "trace"));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.learning.messaging.retry;
+
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.exceptions.RetryableSendException;
+import com.learning.messaging.headers.MessagingHeaders;
+import com.learning.messaging.serialization.EventCodecs;
+import com.learning.messaging.support.InMemoryKafkaTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.NotLeaderOrFollowerException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DlqExhaustedHandlerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RetryProperties props = new RetryProperties();
+
+    @Test
+    void forwardsWithHeadersAndRetriesOnlyFailedRecords() throws InterruptedException {
+        props.getDlq().setBackoff(Duration.ZERO);
+        AtomicInteger failuresLeft = new AtomicInteger(1);
+        InMemoryKafkaTemplate<byte[]> template = new InMemoryKafkaTemplate<byte[]>()
+                .capture()
+                .failWhen(record -> "k2".equals(record.key()) && failuresLeft.getAndDecrement() > 0);
+        DlqExhaustedHandler handler = new DlqExhaustedHandler(props, template, EventCodecs.defaults(), registry);
+
+        handler.forward(List.of(exhausted("k1"), exhausted("k2")));
+
+        List<ProducerRecord<String, byte[]>> sent = template.captured();
+        assertEquals(2, sent.size());
+        assertEquals("k2", sent.get(1).key(), "failed record re-sent on the handler's own retry");
+        ProducerRecord<String, byte[]> record = sent.get(0);
+        assertEquals("orders.dlq", record.topic());
+        assertEquals("orders", header(record, MessagingHeaders.ORIGINAL_TOPIC));
+        assertEquals("trace-1", header(record, MessagingHeaders.TRACE_ID));
+        assertEquals("5", header(record, MessagingHeaders.ATTEMPTS));
+        assertEquals(NotLeaderOrFollowerException.class.getName(), header(record, MessagingHeaders.ERROR_CLASS));
+        assertEquals("leader moved", header(record, MessagingHeaders.ERROR_MESSAGE));
+        assertEquals("\"event\"", new String(record.value(), StandardCharsets.UTF_8), "encoded when the producer didn't");
+        assertEquals("application/json", header(record, MessagingHeaders.CONTENT_TYPE));
+        assertEquals(2.0, registry.get("messaging.dlq.sent").counter().count());
+    }
+
+    @Test
+    void dropsWhenQueueIsFullInsteadOfBlocking() {
+        props.getDlq().setQueueCapacity(1);
+        DlqExhaustedHandler handler = new DlqExhaustedHandler(props, new InMemoryKafkaTemplate<>(), EventCodecs.defaults(), registry);
+
+        handler.onExhausted(exhausted("k1"));
+        handler.onExhausted(exhausted("k2"));
+
+        assertEquals(1.0, registry.get("messaging.dlq.dropped").counter().count());
+        assertEquals(1.0, registry.get("messaging.dlq.queue.size").gauge().value());
+    }
+
+    @Test
+    void closesTheProducerItCreatedOnStop() {
+        RecordingProducerFactory factory = new RecordingProducerFactory();
+        DlqExhaustedHandler handler = new DlqExhaustedHandler(props, factory, EventCodecs.defaults(), registry);
+        handler.start();
+
+        handler.stop();
+
+        assertTrue(factory.copy.destroyed);
+        assertFalse(factory.destroyed, "the application's factory stays open");
+    }
+
+    private static RetryableSendException exhausted(String key) {
+        Throwable sendError = new CompletionException(new NotLeaderOrFollowerException("leader moved"));
+        return new RetryableSendException("orders", key, "event", "trace-1", 5, sendError);
+    }
+
+    private static String header(ProducerRecord<String, byte[]> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records whether the copy a template derives from it is closed.
+     */
+    private static class RecordingProducerFactory extends DefaultKafkaProducerFactory<String, byte[]> {
+        private RecordingProducerFactory copy;
+        private volatile boolean destroyed;
+
+        private RecordingProducerFactory() {
+            super(Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092"));
+        }
+
+        @Override
+        public DefaultKafkaProducerFactory<String, byte[]> copyWithConfigurationOverride(Map<String, Object> overrides) {
+            copy = new RecordingProducerFactory();
+            return copy;
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+            super.destroy();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.learning.messaging.retry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedWheelRetrySchedulerTest {
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(2);
+    private HashedWheelRetryScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        workers.shutdownNow();
+    }
+
+    @Test
+    void firesAfterDelayOnWorkerThread() throws InterruptedException {
+        scheduler = new HashedWheelRetryScheduler(5, 64, workers, "test-wheel");
+        CountDownLatch fired = new CountDownLatch(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+
+        long start = System.nanoTime();
+        scheduler.schedule(() -> {
+            threads.add(Thread.currentThread().getName());
+            fired.countDown();
+        }, 50);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs >= 50, "fired too early: " + elapsedMs + "ms");
+        assertNotEquals("test-wheel", threads.get(0));
+        assertEquals(0, scheduler.pendingCount());
+    }
+
+    @Test
+    void handlesDelaysLongerThanOneWheelRotation() throws InterruptedException {
+        // 8 buckets * 5ms = 40ms per rotation
+        scheduler = new HashedWheelRetryScheduler(5, 8, workers, "test-wheel");
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch fired = new CountDownLatch(3);
+
+        long start = System.nanoTime();
+        scheduler.schedule(() -> { order.add(150); fired.countDown(); }, 150);
+        scheduler.schedule(() -> { order.add(10); fired.countDown(); }, 10);
+        scheduler.schedule(() -> { order.add(90); fired.countDown(); }, 90);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        assertEquals(List.of(10, 90, 150), order);
+    }
+
+    @Test
+    void rejectsAfterShutdown() {
+        scheduler = new HashedWheelRetryScheduler(5, 8, workers, "test-wheel");
+        scheduler.schedule(() -> { }, 10_000);
+        scheduler.shutdown();
+
+        assertEquals(0, scheduler.pendingCount());
+        assertThrows(RejectedExecutionException.class, () -> scheduler.schedule(() -> { }, 10));
+    }
+}
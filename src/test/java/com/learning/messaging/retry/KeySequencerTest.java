@@ -0,0 +1,118 @@
+package com.learning.messaging.retry;
+
+import com.learning.messaging.config.LoggingProperties;
+import com.learning.messaging.config.MetricsProperties;
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.logging.MessagingLog;
+import com.learning.messaging.metrics.LatencyMeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeySequencerTest {
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(2);
+    private final KeySequencer sequencer = new KeySequencer(16, workers);
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+    }
+
+    @Test
+    void sameKeyWaitsBehindPendingRetryOtherKeysDoNot() throws Exception {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> retried = new CompletableFuture<>();
+        sequencer.hold("k1", retried);
+
+        CompletableFuture<String> second = sequencer.submit("k1", () -> send(sent, "k1-second"));
+        CompletableFuture<String> third = sequencer.submit("k1", () -> send(sent, "k1-third"));
+        CompletableFuture<String> other = sequencer.submit("k2", () -> send(sent, "k2"));
+
+        assertEquals("k2", other.get(1, TimeUnit.SECONDS), "unrelated key is not held");
+        assertFalse(second.isDone());
+        assertEquals(List.of("k2"), sent);
+
+        // the retried record fails for good: later records are released anyway, in order
+        retried.completeExceptionally(new IllegalStateException("exhausted"));
+        assertEquals("k1-third", third.get(1, TimeUnit.SECONDS));
+        assertEquals("k1-second", second.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of("k2", "k1-second", "k1-third"), sent);
+    }
+
+    @Test
+    void keysAreReleasedOnceTheirChainCompletes() throws Exception {
+        CompletableFuture<String> retried = new CompletableFuture<>();
+        sequencer.hold("k1", retried);
+        CompletableFuture<String> queued = sequencer.submit("k1", () -> CompletableFuture.completedFuture("ok"));
+        assertEquals(1, sequencer.heldKeys());
+
+        retried.complete("done");
+        queued.get(1, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (sequencer.heldKeys() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, sequencer.heldKeys());
+
+        assertTrue(sequencer.submit("k1", () -> CompletableFuture.completedFuture("direct")).isDone(),
+                "with nothing pending, sends run inline");
+    }
+
+    @Test
+    void sameKeySendsThatFailWhileInFlightAreRetriedInSubmissionOrder() throws Exception {
+        RetryProperties props = new RetryProperties();
+        props.setInitialBackoffMs(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MetricsProperties metricsProps = new MetricsProperties();
+        HashedWheelRetryScheduler scheduler = new HashedWheelRetryScheduler(1, 8, Runnable::run, "test-wheel");
+        RetryExecutor<String> executor = new RetryExecutor<>(props, registry, List.of(), scheduler,
+                new RetryGuards(props, registry, metricsProps), new RetryPolicyRegistry(props), sequencer,
+                metricsProps, new LatencyMeterFactory(registry, metricsProps),
+                new MessagingLog(new LoggingProperties()));
+
+        // first attempts stay in flight until completed below; retries succeed
+        List<String> sent = new CopyOnWriteArrayList<>();
+        Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+        Function<String, Supplier<CompletableFuture<String>>> sender = record -> () -> {
+            sent.add(record);
+            CompletableFuture<String> attempt = new CompletableFuture<>();
+            return inFlight.putIfAbsent(record, attempt) == null ? attempt : CompletableFuture.completedFuture(record);
+        };
+
+        CompletableFuture<String> first = executor.executeWithRetry("orders", "k1", "first", sender.apply("first"));
+        CompletableFuture<String> second = executor.executeWithRetry("orders", "k1", "second", sender.apply("second"));
+        assertEquals(List.of("first", "second"), sent, "same-key sends are not queued while nothing is retried");
+
+        // the later record fails first, and its backoff runs out before the earlier one fails
+        inFlight.get("second").completeExceptionally(new IllegalStateException("leader moved"));
+        Thread.sleep(50);
+        assertEquals(List.of("first", "second"), sent, "not retried ahead of an earlier record");
+        inFlight.get("first").completeExceptionally(new IllegalStateException("leader moved"));
+
+        assertEquals("first", first.get(1, TimeUnit.SECONDS));
+        assertEquals("second", second.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "second", "first", "second"), sent);
+        scheduler.shutdown();
+    }
+
+    private static CompletableFuture<String> send(List<String> sent, String record) {
+        sent.add(record);
+        return CompletableFuture.completedFuture(record);
+    }
+}
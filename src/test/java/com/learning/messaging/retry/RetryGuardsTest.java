@@ -0,0 +1,147 @@
+package com.learning.messaging.retry;
+
+import com.learning.messaging.config.LoggingProperties;
+import com.learning.messaging.config.MetricsProperties;
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.exceptions.RetryRejectedException;
+import com.learning.messaging.exceptions.RetryableSendException;
+import com.learning.messaging.logging.MessagingLog;
+import com.learning.messaging.metrics.LatencyMeterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryGuardsTest {
+
+    @Test
+    void breakerOpensOnFailureRateAndClosesAfterSuccessfulProbes() throws InterruptedException {
+        RetryProperties.Breaker props = new RetryProperties.Breaker();
+        props.setWindowSize(4);
+        props.setFailureRateThreshold(0.5);
+        props.setOpenDuration(Duration.ofMillis(20));
+        props.setHalfOpenProbes(2);
+        CircuitBreaker breaker = new CircuitBreaker("orders", props);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            if (i % 2 == 0) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(30);
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only halfOpenProbes attempts pass while half-open");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void budgetCapsRetriesToShareOfFirstAttempts() {
+        RetryProperties.Budget props = new RetryProperties.Budget();
+        props.setRatio(0.1);
+        props.setMaxTokens(5);
+        props.setMinRetriesPerSecond(0);
+        RetryBudget budget = new RetryBudget(props);
+
+        assertEquals(5, budget.tryWithdraw(10), "starts with a full bucket");
+        assertEquals(0, budget.tryWithdraw(1));
+
+        budget.deposit(20);
+        assertEquals(2, budget.tryWithdraw(10));
+    }
+
+    @Test
+    void topicsPastTheMeterLimitKeepTheirOwnBreakerAcrossEviction() throws InterruptedException {
+        RetryProperties props = new RetryProperties();
+        props.getCircuitBreaker().setEnabled(true);
+        props.getCircuitBreaker().setWindowSize(2);
+        props.getCircuitBreaker().setOpenDuration(Duration.ofMinutes(1));
+        MetricsProperties metricsProps = new MetricsProperties();
+        metricsProps.setMaxTopics(1);
+        metricsProps.setTopicIdleTimeout(Duration.ofMillis(200));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RetryGuards guards = new RetryGuards(props, registry, metricsProps);
+
+        RetryGuards.Guard orders = guards.get("orders");
+        RetryGuards.Guard payments = guards.get("payments");
+        RetryGuards.Guard audit = guards.get("audit");
+        for (int i = 0; i < 2; i++) {
+            assertTrue(payments.tryAcquire());
+            payments.onFailure();
+        }
+        assertFalse(payments.tryAcquire());
+
+        assertEquals(CircuitBreaker.State.OPEN, payments.breaker().state());
+        assertEquals(CircuitBreaker.State.CLOSED, audit.breaker().state(), "overflow topics don't share a breaker");
+        assertEquals(CircuitBreaker.State.CLOSED, orders.breaker().state());
+        assertEquals(1.0, registry.get("messaging.retry.rejected")
+                .tag("topic", "_overflow").tag("reason", "CIRCUIT_OPEN").counter().count());
+
+        Thread.sleep(250);
+        guards.get("audit");
+        assertEquals(0, registry.find("messaging.retry.circuit.state").tag("topic", "orders").gauges().size(),
+                "idle meters are evicted");
+        assertSame(payments, guards.get("payments"));
+        assertEquals(CircuitBreaker.State.OPEN, payments.breaker().state(), "eviction keeps the breaker state");
+        assertEquals(1, payments.rejectedCircuit());
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingTheBroker() {
+        RetryProperties props = new RetryProperties();
+        props.setMaxAttempts(1);
+        props.getCircuitBreaker().setEnabled(true);
+        props.getCircuitBreaker().setWindowSize(2);
+        props.getCircuitBreaker().setOpenDuration(Duration.ofMinutes(1));
+        props.getCircuitBreaker().setOpenAction(RetryProperties.OpenAction.DIVERT);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MetricsProperties metricsProps = new MetricsProperties();
+        List<RetryableSendException> diverted = new CopyOnWriteArrayList<>();
+        HashedWheelRetryScheduler scheduler = new HashedWheelRetryScheduler(1, 8, Runnable::run, "test-wheel");
+        RetryExecutor<String> executor = new RetryExecutor<>(props, registry, List.of(diverted::add),
+                scheduler,
+                new RetryGuards(props, registry, metricsProps), new RetryPolicyRegistry(props), null,
+                metricsProps, new LatencyMeterFactory(registry, metricsProps),
+                new MessagingLog(new LoggingProperties()));
+
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<String> result = executor.executeWithRetry("orders", "k", "event", () -> {
+                calls.incrementAndGet();
+                return CompletableFuture.failedFuture(new IllegalStateException("leader not available"));
+            });
+            assertThrows(CompletionException.class, result::join);
+        }
+
+        assertEquals(2, calls.get(), "third send is rejected by the open circuit");
+        assertEquals(3, diverted.size());
+        RetryRejectedException rejected = assertInstanceOf(RetryRejectedException.class, diverted.get(2).getCause());
+        assertEquals(RetryRejectedException.Reason.CIRCUIT_OPEN, rejected.getReason());
+        assertEquals(1.0, registry.get("messaging.retry.rejected").tag("reason", "CIRCUIT_OPEN").counter().count());
+        assertEquals(2.0, registry.get("messaging.retry.circuit.state").gauge().value());
+        scheduler.shutdown();
+    }
+}
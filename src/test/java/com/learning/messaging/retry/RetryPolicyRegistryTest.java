@@ -0,0 +1,72 @@
+package com.learning.messaging.retry;
+
+import com.learning.messaging.config.RetryProperties;
+import com.learning.messaging.config.RetryProperties.BackoffStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyRegistryTest {
+
+    @Test
+    void resolvesExactNameThenPatternThenDefault() {
+        RetryProperties props = new RetryProperties();
+        props.getPolicies().put("orders.*", policy(BackoffStrategy.FULL_JITTER, 3));
+        props.getPolicies().put("orders.priority", policy(BackoffStrategy.FIXED, 10));
+        RetryPolicyRegistry registry = new RetryPolicyRegistry(props);
+
+        assertEquals(BackoffStrategy.FIXED, registry.policyFor("orders.priority").strategy());
+        assertEquals(10, registry.policyFor("orders.priority").maxAttempts());
+        assertEquals(BackoffStrategy.FULL_JITTER, registry.policyFor("orders.created").strategy());
+        assertSame(registry.defaultPolicy(), registry.policyFor("payments"));
+        assertEquals(BackoffStrategy.EXPONENTIAL, registry.policyFor("payments").strategy());
+    }
+
+    @Test
+    void delaysFollowTheStrategy() {
+        RetryPolicy exponential = new RetryPolicy(BackoffStrategy.EXPONENTIAL, 10, 100, 2.0, 1000, 0);
+        assertEquals(100, exponential.nextDelayMs(1, 0));
+        assertEquals(400, exponential.nextDelayMs(3, 0));
+        assertEquals(1000, exponential.nextDelayMs(9, 0), "capped at maxBackoff");
+
+        RetryPolicy fullJitter = new RetryPolicy(BackoffStrategy.FULL_JITTER, 10, 100, 2.0, 1000, 0);
+        RetryPolicy decorrelated = new RetryPolicy(BackoffStrategy.DECORRELATED_JITTER, 10, 100, 2.0, 1000, 0);
+        long previous = 0;
+        for (int i = 0; i < 1000; i++) {
+            long jittered = fullJitter.nextDelayMs(3, 0);
+            assertTrue(jittered >= 0 && jittered <= 400, "full jitter within [0, base]: " + jittered);
+
+            long next = decorrelated.nextDelayMs(2, previous);
+            assertTrue(next >= 100 && next <= Math.min(1000, Math.max(100, previous * 3)),
+                    "decorrelated jitter within [initial, 3 * previous]: " + next);
+            previous = next;
+        }
+
+        assertEquals(100, new RetryPolicy(BackoffStrategy.FIXED, 10, 100, 2.0, 1000, 0).nextDelayMs(7, 0));
+    }
+
+    @Test
+    void deadlineStopsRetriesRegardlessOfAttempts() {
+        RetryPolicy deadline = new RetryPolicy(BackoffStrategy.DEADLINE, 1, 100, 2.0, 1000, 30_000);
+        long start = System.nanoTime();
+
+        assertTrue(deadline.shouldRetry(50, start, 1000), "attempt count is not the limit");
+        assertFalse(deadline.shouldRetry(2, start - Duration.ofSeconds(29).toNanos(), 1500));
+
+        RetryPolicy attempts = new RetryPolicy(BackoffStrategy.EXPONENTIAL, 3, 100, 2.0, 1000, 0);
+        assertTrue(attempts.shouldRetry(2, start, 200));
+        assertFalse(attempts.shouldRetry(3, start, 400));
+    }
+
+    private static RetryProperties.Policy policy(BackoffStrategy strategy, int maxAttempts) {
+        RetryProperties.Policy policy = new RetryProperties.Policy();
+        policy.setBackoffStrategy(strategy);
+        policy.setMaxAttempts(maxAttempts);
+        return policy;
+    }
+}
@@ -0,0 +1,71 @@
+package com.learning.messaging.serialization;
+
+import com.learning.messaging.headers.MessagingHeaders;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventCodecsTest {
+
+    public record OrderEvent(String orderId, BigDecimal amount, List<String> items) {
+    }
+
+    private final OrderEvent order = new OrderEvent("o-1", new BigDecimal("12.50"), List.of("a", "b"));
+
+    @Test
+    void jsonRoundTripThroughTypeAndContentTypeHeaders() {
+        EventCodecs codecs = EventCodecs.defaults();
+        EncodedEvent encoded = codecs.encode(order);
+
+        Headers headers = encoded.headers();
+        assertEquals("application/json", header(headers, MessagingHeaders.CONTENT_TYPE));
+        assertEquals(OrderEvent.class.getName(), header(headers, MessagingHeaders.TYPE_ID));
+        assertEquals(order, deserializer(codecs, "com.learning.messaging.*").deserialize("orders", headers, encoded.payload()));
+
+        // the thread's buffer is reused: earlier results must not change
+        byte[] first = encoded.payload().clone();
+        codecs.encode(new OrderEvent("o-2", BigDecimal.ONE, List.of()));
+        assertEquals(new String(first, StandardCharsets.UTF_8), new String(encoded.payload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void typeMappedToCborIsSmallerAndDecodesBack() {
+        EventCodecs codecs = new EventCodecs(List.of(JacksonEventCodec.json(), JacksonEventCodec.cbor()), "json",
+                Map.of(OrderEvent.class.getName(), "cbor"));
+        EncodedEvent cbor = codecs.encode(order);
+
+        assertEquals("application/cbor", header(cbor.headers(), MessagingHeaders.CONTENT_TYPE));
+        assertTrue(cbor.payload().length < EventCodecs.defaults().encode(order).payload().length);
+        assertEquals(order, deserializer(codecs, "*").deserialize("orders", cbor.headers(), cbor.payload()));
+    }
+
+    @Test
+    void rejectsUntrustedTypesAndUnknownCodecs() {
+        EventCodecs codecs = EventCodecs.defaults();
+        EncodedEvent encoded = codecs.encode(order);
+
+        assertThrows(SerializationException.class,
+                () -> deserializer(codecs, "com.example.*").deserialize("orders", encoded.headers(), encoded.payload()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new EventCodecs(List.of(JacksonEventCodec.json()), "avro", Map.of()));
+    }
+
+    private static EventCodecDeserializer deserializer(EventCodecs codecs, String trustedPackages) {
+        EventCodecDeserializer deserializer = new EventCodecDeserializer(codecs);
+        deserializer.configure(Map.of("spring.json.trusted.packages", trustedPackages), false);
+        return deserializer;
+    }
+
+    private static String header(Headers headers, String name) {
+        return new String(headers.lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
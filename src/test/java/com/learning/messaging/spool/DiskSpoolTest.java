@@ -0,0 +1,120 @@
+package com.learning.messaging.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysInOrderAcrossSegmentsAndResumesFromCursor() throws IOException {
+        try (DiskSpool spool = new DiskSpool(dir, 256, 10)) {
+            for (int i = 0; i < 20; i++) {
+                spool.append(record(i));
+            }
+            assertTrue(segmentCount() > 1, "small segments should have rolled");
+
+            List<DiskSpool.Entry> first = spool.read(5);
+            assertEquals(5, first.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals("key-" + i, first.get(i).record().key());
+            }
+            spool.commit(first.get(4));
+        }
+
+        try (DiskSpool reopened = new DiskSpool(dir, 256, 10)) {
+            List<DiskSpool.Entry> rest = reopened.read(100);
+            assertEquals(15, rest.size());
+            for (int i = 0; i < 15; i++) {
+                SpoolRecord record = rest.get(i).record();
+                assertEquals("orders", record.topic());
+                assertEquals("key-" + (i + 5), record.key());
+                assertArrayEquals(("value-" + (i + 5)).getBytes(StandardCharsets.UTF_8), record.value());
+            }
+            reopened.commit(rest.get(14));
+            assertEquals(0, reopened.read(100).size());
+            assertEquals(1, segmentCount(), "drained segments are deleted");
+        }
+    }
+
+    @Test
+    void recoversUpToLastValidFrame() throws IOException {
+        try (DiskSpool spool = new DiskSpool(dir, 4096, 1)) {
+            spool.append(record(0));
+            spool.append(new SpoolRecord("orders", null, null, null, 1L));
+            spool.append(record(2));
+        }
+
+        // corrupt the last frame's payload, as a torn write would
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(f -> f.toString().endsWith(SpoolSegment.SUFFIX)).findFirst().orElseThrow();
+        }
+        int lastFrame = SpoolSegment.FRAME_HEADER + DiskSpool.encode(record(0)).length
+                + SpoolSegment.FRAME_HEADER + DiskSpool.encode(new SpoolRecord("orders", null, null, null, 1L)).length;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(lastFrame + SpoolSegment.FRAME_HEADER + 3);
+            file.write(0x7f);
+        }
+
+        try (DiskSpool recovered = new DiskSpool(dir, 4096, 1)) {
+            List<DiskSpool.Entry> entries = recovered.read(100);
+            assertEquals(2, entries.size());
+            assertEquals("key-0", entries.get(0).record().key());
+            assertNull(entries.get(1).record().key());
+            assertNull(entries.get(1).record().value());
+
+            // new appends continue right after the valid frames
+            recovered.append(record(3));
+            assertEquals("key-3", recovered.read(100).get(2).record().key());
+        }
+    }
+
+    @Test
+    void keepsHeadersAndReadsFramesWrittenBeforeTheyExisted() throws IOException {
+        try (DiskSpool spool = new DiskSpool(dir, 4096, 1)) {
+            spool.append(new SpoolRecord("orders", "k", new byte[]{1}, "trace", 1L,
+                    "application/json", "com.example.OrderPlaced", "message-1"));
+
+            SpoolRecord record = spool.read(1).get(0).record();
+            assertEquals("application/json", record.contentType());
+            assertEquals("com.example.OrderPlaced", record.typeId());
+            assertEquals("message-1", record.messageId());
+        }
+
+        // an older frame ends after the value
+        byte[] full = DiskSpool.encode(record(0));
+        byte[] old = Arrays.copyOf(full, full.length - 3 * Integer.BYTES);
+        SpoolRecord decoded = DiskSpool.decode(old);
+        assertEquals("key-0", decoded.key());
+        assertNull(decoded.contentType());
+        assertNull(decoded.messageId());
+    }
+
+    private static SpoolRecord record(int i) {
+        return new SpoolRecord("orders", "key-" + i, ("value-" + i).getBytes(StandardCharsets.UTF_8),
+                "trace-" + i, i);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(SpoolSegment.SUFFIX)).count();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.learning.messaging.spool;
+
+import com.learning.messaging.exceptions.RetryableSendException;
+import com.learning.messaging.serialization.EventCodecs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SpoolExhaustedHandlerTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void appendsOnTheWriterThreadAndDrainsTheQueueOnStop() {
+        try (DiskSpool spool = new DiskSpool(dir, 4096, 1)) {
+            SpoolExhaustedHandler handler = new SpoolExhaustedHandler(spool, EventCodecs.defaults(), 10, registry);
+
+            handler.onExhausted(exhausted("k1"));
+            handler.onExhausted(exhausted("k2"));
+            assertEquals(0, spool.read(10).size(), "nothing written on the calling thread");
+
+            handler.start();
+            handler.stop();
+
+            List<DiskSpool.Entry> entries = spool.read(10);
+            assertEquals(2, entries.size());
+            assertEquals("k1", entries.get(0).record().key());
+            assertEquals("k2", entries.get(1).record().key());
+            assertEquals("trace-1", entries.get(0).record().traceId());
+            assertArrayEquals("\"event\"".getBytes(StandardCharsets.UTF_8), entries.get(0).record().value());
+            assertEquals(2.0, registry.get("messaging.spool.appended").counter().count());
+            assertEquals(0.0, registry.get("messaging.spool.queue.size").gauge().value());
+        }
+    }
+
+    @Test
+    void rejectsWhenQueueIsFullInsteadOfBlocking() {
+        try (DiskSpool spool = new DiskSpool(dir, 4096, 1)) {
+            SpoolExhaustedHandler handler = new SpoolExhaustedHandler(spool, EventCodecs.defaults(), 1, registry);
+
+            handler.onExhausted(exhausted("k1"));
+            handler.onExhausted(exhausted("k2"));
+
+            assertEquals(1.0, registry.get("messaging.spool.append.rejected").counter().count());
+            assertEquals(1.0, registry.get("messaging.spool.queue.size").gauge().value());
+        }
+    }
+
+    private static RetryableSendException exhausted(String key) {
+        Throwable sendError = new CompletionException(new TimeoutException("broker unavailable"));
+        return new RetryableSendException("orders", key, "event", "trace-1", 5, sendError);
+    }
+}
@@ -0,0 +1,215 @@
+package com.learning.messaging.support;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.NotLeaderOrFollowerException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+/**
+ * {@link KafkaTemplate} that acknowledges sends in memory, without a broker.
+ * <p>
+ * By default sends complete immediately and succeed with a fake {@link SendResult} (partition 0, increasing offsets),
+ * unless {@link #failWhen(Predicate)} says the record should fail; failures complete
+ * with a retriable {@link TimeoutException}, like an unavailable broker would.
+ * With {@link #capture()}, acknowledged records are kept for assertions.
+ * <p>
+ * Faults for load tests:
+ * - {@link #partitions(int)}: records are spread like the Kafka default partitioner
+ *   (murmur2 of the key, round-robin without one), with offsets per partition
+ * - {@link #latency(Duration, Duration)}: sends complete later, on a shared timer thread,
+ *   like the producer's I/O thread would complete them
+ * - {@link #errorRate(double)}: a random share of sends fails with a {@link TimeoutException}
+ * - {@link #outage(int)} / {@link #restore(int)}: every send to a partition fails with a
+ *   {@link NotLeaderOrFollowerException} until it is restored
+ *
+ * @param <V> value type
+ */
+public class InMemoryKafkaTemplate<V> extends KafkaTemplate<String, V> {
+
+    private static final ScheduledExecutorService TIMER = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "in-memory-kafka-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private final List<ProducerRecord<String, V>> captured = new CopyOnWriteArrayList<>();
+    private final Set<Integer> down = ConcurrentHashMap.newKeySet();
+    private volatile Predicate<ProducerRecord<String, V>> failure = record -> false;
+    private volatile boolean capture;
+    private volatile AtomicLongArray offsets = new AtomicLongArray(1);
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+    private volatile double errorRate;
+
+    public InMemoryKafkaTemplate() {
+        super(new DefaultKafkaProducerFactory<>(Map.of()));
+    }
+
+    /**
+     * Fail every send whose record matches {@code failure}.
+     */
+    public InMemoryKafkaTemplate<V> failWhen(Predicate<ProducerRecord<String, V>> failure) {
+        this.failure = failure;
+        return this;
+    }
+
+    /**
+     * Keep acknowledged records, see {@link #captured()}.
+     */
+    public InMemoryKafkaTemplate<V> capture() {
+        this.capture = true;
+        return this;
+    }
+
+    /**
+     * Spread records over {@code partitions} partitions (the same count for every topic). Call before sending.
+     */
+    public InMemoryKafkaTemplate<V> partitions(int partitions) {
+        this.offsets = new AtomicLongArray(partitions);
+        return this;
+    }
+
+    /**
+     * Complete every send after {@code latency} plus a uniformly random share of {@code jitter}.
+     */
+    public InMemoryKafkaTemplate<V> latency(Duration latency, Duration jitter) {
+        this.latencyNanos = latency.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        return this;
+    }
+
+    /**
+     * Fail a random share (0..1) of sends.
+     */
+    public InMemoryKafkaTemplate<V> errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Fail every send to {@code partition} until {@link #restore(int)}.
+     */
+    public InMemoryKafkaTemplate<V> outage(int partition) {
+        down.add(partition);
+        return this;
+    }
+
+    public InMemoryKafkaTemplate<V> restore(int partition) {
+        down.remove(partition);
+        return this;
+    }
+
+    /**
+     * Records acknowledged since {@link #capture()}.
+     */
+    public List<ProducerRecord<String, V>> captured() {
+        return captured;
+    }
+
+    /**
+     * Number of records acknowledged so far.
+     */
+    public long sent() {
+        return acknowledged.get();
+    }
+
+    @Override
+    public CompletableFuture<SendResult<String, V>> send(String topic, String key, V data) {
+        return send(new ProducerRecord<>(topic, key, data));
+    }
+
+    @Override
+    public CompletableFuture<SendResult<String, V>> send(String topic, V data) {
+        return send(new ProducerRecord<>(topic, data));
+    }
+
+    @Override
+    public CompletableFuture<SendResult<String, V>> send(ProducerRecord<String, V> record) {
+        AtomicLongArray partitionOffsets = offsets;
+        int partition = partition(record, partitionOffsets.length());
+        Exception error = null;
+        if (failure.test(record)) {
+            error = new TimeoutException("in-memory send failure: " + record.topic());
+        } else if (down.contains(partition)) {
+            error = new NotLeaderOrFollowerException("in-memory partition outage: " + record.topic() + "-" + partition);
+        } else if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            error = new TimeoutException("in-memory injected failure: " + record.topic());
+        }
+
+        long delayNanos = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos) : 0);
+        if (delayNanos <= 0) {
+            return complete(record, partition, partitionOffsets, error);
+        }
+        CompletableFuture<SendResult<String, V>> future = new CompletableFuture<>();
+        Exception delayedError = error;
+        TIMER.schedule(() -> {
+            complete(record, partition, partitionOffsets, delayedError).whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    future.completeExceptionally(throwable);
+                } else {
+                    future.complete(result);
+                }
+            });
+        }, delayNanos, TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    /**
+     * Nothing is buffered: sends complete on their own, without a producer to flush.
+     */
+    @Override
+    public void flush() {
+    }
+
+    private CompletableFuture<SendResult<String, V>> complete(ProducerRecord<String, V> record, int partition,
+                                                              AtomicLongArray partitionOffsets, Exception error) {
+        if (error != null) {
+            return CompletableFuture.failedFuture(error);
+        }
+        long offset = partitionOffsets.getAndIncrement(partition);
+        acknowledged.incrementAndGet();
+        if (capture) {
+            captured.add(record);
+        }
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition(record.topic(), partition),
+                offset, 0, System.currentTimeMillis(), -1, -1);
+        return CompletableFuture.completedFuture(new SendResult<>(record, metadata));
+    }
+
+    private int partition(ProducerRecord<String, V> record, int partitions) {
+        if (record.partition() != null) {
+            return record.partition() % partitions;
+        }
+        if (partitions == 1) {
+            return 0;
+        }
+        if (record.key() == null) {
+            return Utils.toPositive(roundRobin.getAndIncrement()) % partitions;
+        }
+        return Utils.toPositive(Utils.murmur2(record.key().getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+}
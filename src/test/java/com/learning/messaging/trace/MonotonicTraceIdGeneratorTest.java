@@ -0,0 +1,42 @@
+package com.learning.messaging.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MonotonicTraceIdGeneratorTest {
+
+    private static final Pattern TRACE_ID = Pattern.compile("[0-9a-f]{32}");
+    private static final Pattern TRACEPARENT = Pattern.compile("00-[0-9a-f]{32}-[0-9a-f]{16}-01");
+
+    private final MonotonicTraceIdGenerator generator = new MonotonicTraceIdGenerator(42);
+
+    @Test
+    void idsAreUniqueW3cTraceIdsIncreasingOnAThread() {
+        Set<String> seen = new HashSet<>();
+        String previous = "";
+        for (int i = 0; i < 100_000; i++) {
+            String id = generator.nextTraceId();
+            assertTrue(TRACE_ID.matcher(id).matches(), id);
+            assertTrue(id.compareTo(previous) > 0 || id.substring(0, 12).compareTo(previous.substring(0, 12)) > 0,
+                    () -> "not monotonic: " + id);
+            seen.add(id);
+            previous = id;
+        }
+        assertEquals(100_000, seen.size());
+    }
+
+    @Test
+    void traceparentWrapsTraceId() {
+        String traceId = generator.nextTraceId();
+        String traceparent = generator.traceparent(traceId);
+
+        assertTrue(TRACEPARENT.matcher(traceparent).matches(), traceparent);
+        assertEquals(traceId, traceparent.substring(3, 35));
+    }
+}